@@ -0,0 +1,136 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.util.YamlArray;
+import io.shiromi.yaml.util.YamlBoolean;
+import io.shiromi.yaml.util.YamlNull;
+import io.shiromi.yaml.util.YamlNumber;
+import io.shiromi.yaml.util.YamlObject;
+import io.shiromi.yaml.util.YamlString;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+
+/**
+ * Checks the heap allocated per call of the hot paths of the library against the budgets committed in
+ * <code>allocation-budgets.properties</code>, as measured by the allocations of the calling thread.
+ * <p>
+ * Every operation is run until it is compiled, then measured over many calls, so the allocations are those of the
+ * compiled code. Run during <code>mvn -P benchmarks verify</code>, which the continuous integration build runs and
+ * which fails if any operation allocates more than its budget. After an intended change, the budgets are printed in
+ * the format of the file with
+ * <blockquote>
+ * <pre>{@code
+ *      java -cp benchmarks.jar io.shiromi.yaml.benchmarks.AllocationBudgets --record
+ *     }</pre>
+ * </blockquote>
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+public final class AllocationBudgets {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Keeps the results of the operations from being optimized away
+     */
+    private static volatile long sink;
+
+    private record Operation(String name, int calls, LongSupplier call) {
+    }
+
+    private AllocationBudgets() {
+    }
+
+    private static @NotNull List<Operation> operations() {
+        YamlObject o = DocumentState.object("fixed", 1, 16);
+        try {
+            o.append(new YamlString("string", "value"), new YamlNumber("number", 1.5), new YamlBoolean("boolean", true),
+                    new YamlNull("null"), new YamlArray("array", 1.0, 2.0), new YamlObject("object",
+                            new YamlNumber("n", 1)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        YamlNumber number = o.getNumber("number");
+        YamlObject tree = DocumentState.object("tree", 4, 8);
+        String corpus = new CorpusGenerator().generate(16 << 10);
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation("getByName", 1_000_000, () -> o.getByName("key15").hashCode()));
+        operations.add(new Operation("getByName.missing", 1_000_000, () -> o.getByName("missing") == null ? 1 : 0));
+        operations.add(new Operation("typedGetters", 1_000_000, () -> o.getString("string").hashCode()
+                + o.getNumber("number").hashCode() + o.getBoolean("boolean").hashCode() + o.getNull("null").hashCode()
+                + o.getArray("array").hashCode() + o.getObject("object").hashCode()));
+        operations.add(new Operation("YamlNumber.read", 1_000_000,
+                () -> number.size() + (long) number.get().doubleValue()));
+        operations.add(new Operation("stringify", 2_000, () -> tree.stringify().length()));
+        operations.add(new Operation("parse", 200, () -> Yaml.fromString(corpus).length));
+        return operations;
+    }
+
+    /**
+     * Measures the bytes allocated per call of an operation
+     */
+    private static double measure(@NotNull Operation op) {
+        // enough calls for the operation to be compiled
+        for (int i = 0; i < op.calls() / 2 + 1000; i++) sink += op.call().getAsLong();
+
+        long empty = THREADS.getCurrentThreadAllocatedBytes();
+        empty = THREADS.getCurrentThreadAllocatedBytes() - empty;
+        long start = THREADS.getCurrentThreadAllocatedBytes();
+        long s = 0;
+        for (int i = 0; i < op.calls(); i++) s += op.call().getAsLong();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes() - start - empty;
+        sink += s;
+        return Math.max(0, allocated) / (double) op.calls();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("Allocations of threads cannot be measured by this jvm");
+            System.exit(2);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        boolean record = args.length > 0 && args[0].equals("--record");
+
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationBudgets.class.getResourceAsStream("/allocation-budgets.properties")) {
+            if (in != null) budgets.load(in);
+        }
+
+        List<String> failures = new ArrayList<>();
+        for (Operation op : operations()) {
+            double perCall = measure(op);
+            if (record) {
+                // some headroom for allocations which differ between jvms
+                System.out.printf(Locale.ROOT, "%s=%d%n", op.name(), (long) Math.ceil(perCall * 1.1));
+                continue;
+            }
+            String budget = budgets.getProperty(op.name());
+            if (budget == null) {
+                failures.add(op.name() + ": no budget");
+                continue;
+            }
+            long limit = Long.parseLong(budget.trim());
+            // a byte of slack for the measurement itself
+            boolean over = perCall > limit + 1;
+            System.out.printf(Locale.ROOT, "%-20s %14.1f bytes/call, budget %d%s%n", op.name(), perCall, limit,
+                    over ? "  EXCEEDED" : "");
+            if (over) failures.add(String.format(Locale.ROOT, "%s: %.1f bytes/call, budget %d", op.name(), perCall,
+                    limit));
+        }
+        if (failures.isEmpty()) return;
+        System.out.println(failures.size() + " allocation budgets exceeded:");
+        for (String f : failures) System.out.println("  " + f);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,302 @@
+package io.shiromi.yaml.benchmarks;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates yaml documents of a configurable shape and size, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      new CorpusGenerator().depth(5).fanOut(3).values(12).mix(4, 4, 1, 1, 2)
+ *              .write(Path.of("corpus/large.yaml"), CorpusGenerator.parseSize("512m"));
+ *     }</pre>
+ * </blockquote>
+ * A document is a sequence of top level objects named <code>doc0</code>, <code>doc1</code>, ..., written until the
+ * requested size is reached. Each object holds
+ * <ul>
+ *     <li>{@link #values(int) values} scalars or arrays, whose types are drawn by the weights of the
+ *     {@link #mix(int, int, int, int, int) mix}, and</li>
+ *     <li>{@link #fanOut(int) fanOut} child objects of the same shape, unless it is at the {@link #depth(int) depth}
+ *     of the document.</li>
+ * </ul>
+ * The text is written as it is generated, so documents of any size can be generated with little memory, a file
+ * ending with <code>.gz</code> is compressed with <code>gzip</code>. The same generator with the same
+ * {@link #seed(long) seed} always generates the same document.
+ * <p>
+ * Can also be run on its own, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      java -cp benchmarks.jar io.shiromi.yaml.benchmarks.CorpusGenerator large.yaml 2g depth=6 fanOut=2
+ *     }</pre>
+ * </blockquote>
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see ScaleSuite
+ * @since 1.8
+ */
+public final class CorpusGenerator {
+    private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+            "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa"};
+
+    private int depth = 3;
+    private int fanOut = 2;
+    private int values = 8;
+    private int arrayLength = 4;
+    private final int[] mix = {1, 1, 1, 1, 1};
+    private long seed = 42;
+
+    /**
+     * Sets how deep objects are nested, <code>1</code> for top level objects without children, defaults to
+     * <code>3</code>
+     *
+     * @return the same instance
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator depth(int depth) {
+        if (depth < 1) throw new IllegalArgumentException("Depth has to be at least 1: " + depth);
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Sets the amount of child objects of each object above the deepest level, defaults to <code>2</code>
+     *
+     * @return the same instance
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator fanOut(int fanOut) {
+        if (fanOut < 0) throw new IllegalArgumentException("Fan-out cannot be negative: " + fanOut);
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * Sets the amount of scalars and arrays of each object, defaults to <code>8</code>
+     *
+     * @return the same instance
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator values(int values) {
+        if (values < 0) throw new IllegalArgumentException("Values cannot be negative: " + values);
+        this.values = values;
+        return this;
+    }
+
+    /**
+     * Sets the amount of elements of each array, defaults to <code>4</code>
+     *
+     * @return the same instance
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator arrayLength(int arrayLength) {
+        if (arrayLength < 1) throw new IllegalArgumentException("Array length has to be at least 1: " + arrayLength);
+        this.arrayLength = arrayLength;
+        return this;
+    }
+
+    /**
+     * Sets the weights by which the type of each value is drawn, all weights default to <code>1</code>
+     *
+     * @param strings  the weight of strings
+     * @param numbers  the weight of numbers
+     * @param booleans the weight of booleans
+     * @param nulls    the weight of nulls
+     * @param arrays   the weight of arrays of numbers
+     * @return the same instance
+     */
+    @Contract("_, _, _, _, _ -> this")
+    public @NotNull CorpusGenerator mix(int strings, int numbers, int booleans, int nulls, int arrays) {
+        int[] m = {strings, numbers, booleans, nulls, arrays};
+        int total = 0;
+        for (int w : m) {
+            if (w < 0) throw new IllegalArgumentException("Weights cannot be negative: " + w);
+            total += w;
+        }
+        if (total == 0) throw new IllegalArgumentException("At least one weight has to be positive");
+        System.arraycopy(m, 0, this.mix, 0, m.length);
+        return this;
+    }
+
+    /**
+     * Sets the seed of the values, defaults to <code>42</code>
+     *
+     * @return the same instance
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets an option by its name, as given on the command line
+     *
+     * @param option the option, e.g. <code>depth=4</code> or <code>mix=4,4,1,1,2</code>
+     * @return the same instance
+     * @throws IllegalArgumentException if the option is not known or its value is not valid
+     */
+    @Contract("_ -> this")
+    public @NotNull CorpusGenerator option(@NotNull String option) {
+        int i = option.indexOf('=');
+        if (i < 0) throw new IllegalArgumentException("Option has to be given as name=value: " + option);
+        String value = option.substring(i + 1);
+        return switch (option.substring(0, i)) {
+            case "depth" -> this.depth(Integer.parseInt(value));
+            case "fanOut" -> this.fanOut(Integer.parseInt(value));
+            case "values" -> this.values(Integer.parseInt(value));
+            case "arrayLength" -> this.arrayLength(Integer.parseInt(value));
+            case "seed" -> this.seed(Long.parseLong(value));
+            case "mix" -> {
+                String[] w = value.split(",");
+                if (w.length != 5) throw new IllegalArgumentException("Mix has to hold 5 weights: " + value);
+                yield this.mix(Integer.parseInt(w[0]), Integer.parseInt(w[1]), Integer.parseInt(w[2]),
+                        Integer.parseInt(w[3]), Integer.parseInt(w[4]));
+            }
+            default -> throw new IllegalArgumentException("Unknown option: " + option);
+        };
+    }
+
+    /**
+     * Generates a document into a string
+     *
+     * @param bytes the size of the document, the last object may end up to one object past it
+     * @return the text of the document
+     */
+    public @NotNull String generate(long bytes) {
+        StringBuilder s = new StringBuilder((int) Math.min(bytes + 1024, Integer.MAX_VALUE - 8));
+        Random r = new Random(this.seed);
+        for (int i = 0; s.length() < bytes; i++) this.object(s, "doc" + i, 0, r);
+        return s.toString();
+    }
+
+    /**
+     * Generates a document into a file, creating its directories if needed
+     *
+     * @param file  the file to write, compressed with <code>gzip</code> if its name ends with <code>.gz</code>
+     * @param bytes the size of the text, the last object may end up to one object past it
+     * @return the size of the text written, in bytes
+     * @throws IOException if the file cannot be written
+     */
+    public long write(@NotNull Path file, long bytes) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        boolean gzip = file.getFileName().toString().endsWith(".gz");
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(gzip
+                ? new GZIPOutputStream(Files.newOutputStream(file), 65536)
+                : Files.newOutputStream(file), StandardCharsets.UTF_8), 65536)) {
+            return this.write(w, bytes);
+        }
+    }
+
+    /**
+     * Generates a document into a writer
+     *
+     * @param w     the writer, which is not closed
+     * @param bytes the size of the text, the last object may end up to one object past it
+     * @return the size of the text written, in bytes
+     * @throws IOException if the writer cannot be written to
+     */
+    public long write(@NotNull Writer w, long bytes) throws IOException {
+        Random r = new Random(this.seed);
+        StringBuilder s = new StringBuilder();
+        long written = 0;
+        for (int i = 0; written < bytes; i++) {
+            s.setLength(0);
+            this.object(s, "doc" + i, 0, r);
+            w.append(s);
+            written += s.length();
+        }
+        return written;
+    }
+
+    private void object(@NotNull StringBuilder s, String name, int level, Random r) {
+        s.append("\t".repeat(level)).append(name).append(":\n");
+        for (int i = 0; i < this.values; i++) {
+            s.append("\t".repeat(level + 1)).append("key").append(i).append(": ");
+            this.value(s, r);
+            s.append('\n');
+        }
+        if (level + 1 < this.depth)
+            for (int i = 0; i < this.fanOut; i++) this.object(s, "node" + i, level + 1, r);
+        // objects without any items are not valid, give them a single value
+        if (this.values == 0 && (this.fanOut == 0 || level + 1 == this.depth))
+            s.append("\t".repeat(level + 1)).append("empty: null\n");
+    }
+
+    private void value(@NotNull StringBuilder s, @NotNull Random r) {
+        int pick = r.nextInt(this.mix[0] + this.mix[1] + this.mix[2] + this.mix[3] + this.mix[4]);
+        int type = 0;
+        while (pick >= this.mix[type]) pick -= this.mix[type++];
+        switch (type) {
+            case 0 -> {
+                s.append('"');
+                for (int i = r.nextInt(4); i >= 0; i--) {
+                    s.append(WORDS[r.nextInt(WORDS.length)]);
+                    if (i > 0) s.append(' ');
+                }
+                s.append('"');
+            }
+            case 1 -> s.append(number(r));
+            case 2 -> s.append(r.nextBoolean());
+            case 3 -> s.append("null");
+            default -> {
+                // the elements are numbers, strings in arrays are written without quotes and cannot be read back
+                s.append("[ ");
+                for (int i = 0; i < this.arrayLength; i++) s.append(i == 0 ? "" : ", ").append(number(r));
+                s.append(" ]");
+            }
+        }
+    }
+
+    private static @NotNull String number(@NotNull Random r) {
+        return String.format(Locale.ROOT, "%.1f", r.nextInt(200000) / 10.0);
+    }
+
+    /**
+     * Parses a size, e.g. <code>512</code>, <code>64k</code>, <code>16m</code> or <code>2g</code>
+     *
+     * @param size the size, in bytes unless followed by <code>k</code>, <code>m</code> or <code>g</code>
+     * @return the size in bytes
+     * @throws NumberFormatException if the size cannot be parsed
+     */
+    public static long parseSize(@NotNull String size) {
+        String s = size.trim().toLowerCase(Locale.ROOT);
+        int shift = switch (s.isEmpty() ? ' ' : s.charAt(s.length() - 1)) {
+            case 'k' -> 10;
+            case 'm' -> 20;
+            case 'g' -> 30;
+            default -> 0;
+        };
+        if (shift != 0) s = s.substring(0, s.length() - 1);
+        return Long.parseLong(s) << shift;
+    }
+
+    /**
+     * Generates a document into a file
+     *
+     * @param args the file, its size and any options, e.g. <code>large.yaml 2g depth=6 fanOut=2</code>
+     */
+    public static void main(String @NotNull [] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CorpusGenerator <file> <size> [depth=n] [fanOut=n] [values=n] [arrayLength=n] "
+                    + "[mix=strings,numbers,booleans,nulls,arrays] [seed=n]");
+            System.exit(2);
+        }
+        CorpusGenerator g = new CorpusGenerator();
+        for (int i = 2; i < args.length; i++) g.option(args[i]);
+        long written = g.write(Path.of(args[0]), parseSize(args[1]));
+        System.out.printf("Wrote %d bytes to %s%n", written, args[0]);
+    }
+}
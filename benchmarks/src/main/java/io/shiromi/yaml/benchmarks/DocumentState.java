@@ -0,0 +1,103 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.exception.YamlElementAlreadyPresentException;
+import io.shiromi.yaml.util.YamlArray;
+import io.shiromi.yaml.util.YamlBoolean;
+import io.shiromi.yaml.util.YamlNull;
+import io.shiromi.yaml.util.YamlNumber;
+import io.shiromi.yaml.util.YamlObject;
+import io.shiromi.yaml.util.YamlString;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A generated document shared by the benchmarks, shaped by three parameters:
+ * <ul>
+ *     <li><code>size</code>, the amount of top level objects,</li>
+ *     <li><code>depth</code>, how deep each top level object is nested, and</li>
+ *     <li><code>width</code>, the amount of values of each object, cycling through strings, numbers, booleans,
+ *     nulls and arrays of <code>width</code> numbers.</li>
+ * </ul>
+ * Every object but the innermost holds a single child object next to its values, so a document has
+ * <code>size * depth * (width + 1)</code> lines. The document is the same for every run with the same parameters.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@State(Scope.Benchmark)
+public abstract class DocumentState {
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"1", "3", "6"})
+    public int depth;
+
+    @Param({"4", "16"})
+    public int width;
+
+    /**
+     * The top level objects of the document
+     */
+    protected YamlObject[] items;
+
+    /**
+     * The text of the document, as written by {@link Yaml#stringify()}
+     */
+    protected String text;
+
+    @Setup
+    public final void generate() throws Exception {
+        this.items = new YamlObject[this.size];
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < this.size; i++) {
+            this.items[i] = object("item" + i, this.depth, this.width);
+            s.append(this.items[i].stringify()).append('\n');
+        }
+        this.text = s.toString();
+        this.prepare();
+    }
+
+    /**
+     * Prepares the benchmark after the document was generated
+     */
+    protected void prepare() throws Exception {
+    }
+
+    /**
+     * Creates an object of the given shape
+     *
+     * @param name  the name of the object
+     * @param depth how deep the object is nested, <code>1</code> for an object of values only
+     * @param width the amount of values
+     * @return the object
+     */
+    static @NotNull YamlObject object(String name, int depth, int width) {
+        YamlObject o = new YamlObject(name);
+        try {
+            for (int i = 0; i < width; i++) o.append(value("key" + i, i, width));
+            if (depth > 1) o.append(object("child", depth - 1, width));
+        } catch (YamlElementAlreadyPresentException e) {
+            throw new IllegalStateException(e);
+        }
+        return o;
+    }
+
+    private static @NotNull Yaml value(String name, int i, int width) {
+        return switch (i % 5) {
+            case 0 -> new YamlString(name, "value " + i);
+            case 1 -> new YamlNumber(name, i * 1.5);
+            case 2 -> new YamlBoolean(name, i % 2 == 0);
+            case 3 -> new YamlNull(name);
+            default -> {
+                Object[] values = new Object[width];
+                for (int j = 0; j < width; j++) values[j] = (double) j;
+                yield new YamlArray(name, values);
+            }
+        };
+    }
+}
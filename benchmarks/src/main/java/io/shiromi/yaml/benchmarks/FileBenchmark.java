@@ -0,0 +1,65 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.YamlFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reads the generated document from a file with {@link YamlFile#read(File)} and writes it to a new file with
+ * {@link YamlFile#create()}, both in a temporary directory deleted after the benchmark
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark extends DocumentState {
+    private Path directory;
+    private File source;
+    private File target;
+
+    @Override
+    protected void prepare() throws IOException {
+        this.directory = Files.createTempDirectory("yaml-benchmark");
+        this.source = this.directory.resolve("document.yaml").toFile();
+        this.target = this.directory.resolve("created.yaml").toFile();
+        Files.writeString(this.source.toPath(), this.text, StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void delete() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+
+    @Benchmark
+    public YamlFile read() {
+        return YamlFile.read(this.source);
+    }
+
+    @Benchmark
+    public boolean create() {
+        // a new instance has no record of the file, so the whole file is written each time
+        return new YamlFile(this.target).write(this.items).create();
+    }
+}
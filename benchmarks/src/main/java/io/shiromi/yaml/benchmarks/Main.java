@@ -0,0 +1,32 @@
+package io.shiromi.yaml.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks with the options of the JMH command line, profiling allocations with <code>-prof gc</code>
+ * unless other profilers are given, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      java -jar benchmarks.jar ParseBenchmark -p size=1000 -p depth=3
+ *     }</pre>
+ * </blockquote>
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+public final class Main {
+    private Main() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean profiled = false;
+        for (String arg : args) if (arg.equals("-prof")) profiled = true;
+        if (!profiled) {
+            args = Arrays.copyOf(args, args.length + 2);
+            args[args.length - 2] = "-prof";
+            args[args.length - 1] = "gc";
+        }
+        org.openjdk.jmh.Main.main(args);
+    }
+}
@@ -0,0 +1,63 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.exception.YamlElementAlreadyPresentException;
+import io.shiromi.yaml.util.YamlArray;
+import io.shiromi.yaml.util.YamlObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up and adds items: {@link YamlObject#getByName(String)} for every item of every object of the document,
+ * {@link YamlObject#append(Yaml)} of all top level objects into a new object and {@link YamlArray#add(int, Object)}
+ * of <code>size * width</code> values into a new array
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectBenchmark extends DocumentState {
+    private String[] names;
+
+    @Override
+    protected void prepare() {
+        this.names = new String[this.width + (this.depth > 1 ? 1 : 0)];
+        for (int i = 0; i < this.names.length; i++) this.names[i] = this.items[0].get()[i].name;
+    }
+
+    @Benchmark
+    public void getByName(Blackhole bh) {
+        for (YamlObject o : this.items) {
+            for (YamlObject y = o; y != null; y = y.getObject("child"))
+                for (String name : this.names) bh.consume(y.getByName(name));
+        }
+    }
+
+    @Benchmark
+    public YamlObject append() throws YamlElementAlreadyPresentException {
+        YamlObject o = new YamlObject("root");
+        for (YamlObject y : this.items) o.append(y);
+        return o;
+    }
+
+    @Benchmark
+    public YamlArray add() {
+        YamlArray a = new YamlArray("values");
+        int n = this.size * this.width;
+        for (int i = 0; i < n; i++) a.add(a.length(), (double) i);
+        return a;
+    }
+}
@@ -0,0 +1,105 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.util.YamlArray;
+import io.shiromi.yaml.util.YamlBoolean;
+import io.shiromi.yaml.util.YamlNull;
+import io.shiromi.yaml.util.YamlNumber;
+import io.shiromi.yaml.util.YamlObject;
+import io.shiromi.yaml.util.YamlString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the generated document, as a whole with {@link Yaml#fromString(String)}, object by object with
+ * {@link YamlObject#parse(String)} and line by line with the <code>parse</code> method of each type
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark extends DocumentState {
+    private String[] objects;
+    private String[] strings;
+    private String[] numbers;
+    private String[] booleans;
+    private String[] nulls;
+    private String[] arrays;
+
+    @Override
+    protected void prepare() {
+        this.objects = new String[this.items.length];
+        for (int i = 0; i < this.items.length; i++) this.objects[i] = this.items[i].stringify();
+
+        List<String> strings = new ArrayList<>(), numbers = new ArrayList<>(), booleans = new ArrayList<>(),
+                nulls = new ArrayList<>(), arrays = new ArrayList<>();
+        for (YamlObject o : this.items) lines(o, strings, numbers, booleans, nulls, arrays);
+        this.strings = strings.toArray(String[]::new);
+        this.numbers = numbers.toArray(String[]::new);
+        this.booleans = booleans.toArray(String[]::new);
+        this.nulls = nulls.toArray(String[]::new);
+        this.arrays = arrays.toArray(String[]::new);
+    }
+
+    private static void lines(YamlObject o, List<String> strings, List<String> numbers, List<String> booleans,
+                              List<String> nulls, List<String> arrays) {
+        for (Yaml y : o.get()) {
+            if (y instanceof YamlObject child) lines(child, strings, numbers, booleans, nulls, arrays);
+            else if (y instanceof YamlString) strings.add(y.stringify());
+            else if (y instanceof YamlNumber) numbers.add(y.stringify());
+            else if (y instanceof YamlBoolean) booleans.add(y.stringify());
+            else if (y instanceof YamlNull) nulls.add(y.stringify());
+            else if (y instanceof YamlArray) arrays.add(y.stringify());
+        }
+    }
+
+    @Benchmark
+    public Yaml[] fromString() {
+        return Yaml.fromString(this.text);
+    }
+
+    @Benchmark
+    public void parseObject(Blackhole bh) {
+        for (String s : this.objects) bh.consume(YamlObject.parse(s));
+    }
+
+    @Benchmark
+    public void parseString(Blackhole bh) {
+        for (String s : this.strings) bh.consume(YamlString.parse(s));
+    }
+
+    @Benchmark
+    public void parseNumber(Blackhole bh) {
+        for (String s : this.numbers) bh.consume(YamlNumber.parse(s));
+    }
+
+    @Benchmark
+    public void parseBoolean(Blackhole bh) {
+        for (String s : this.booleans) bh.consume(YamlBoolean.parse(s));
+    }
+
+    @Benchmark
+    public void parseNull(Blackhole bh) {
+        for (String s : this.nulls) bh.consume(YamlNull.parse(s));
+    }
+
+    @Benchmark
+    public void parseArray(Blackhole bh) {
+        for (String s : this.arrays) bh.consume(YamlArray.parse(s));
+    }
+}
@@ -0,0 +1,316 @@
+package io.shiromi.yaml.benchmarks;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.YamlFile;
+import io.shiromi.yaml.exception.YamlElementAlreadyPresentException;
+import io.shiromi.yaml.util.YamlNumber;
+import io.shiromi.yaml.util.YamlObject;
+import io.shiromi.yaml.util.YamlString;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Loads, queries, modifies and saves generated documents of growing size through {@link YamlFile}, and checks that
+ * <ul>
+ *     <li>loading and saving keep a minimal throughput,</li>
+ *     <li>the heap taken by a loaded document stays below a multiple of its size,</li>
+ *     <li>the time per byte of each phase does not grow by more than a tolerance from one size to the next, which
+ *     would show super-linear growth, and</li>
+ *     <li>optionally, that the heap does not grow while the smallest document is processed over and over for a
+ *     given time.</li>
+ * </ul>
+ * Every check that fails is reported, and the suite exits with status <code>1</code>. Runs with options given as
+ * <code>name=value</code>, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      java -Xmx4g -cp benchmarks.jar io.shiromi.yaml.benchmarks.ScaleSuite sizes=1m,8m,64m,512m soak=600 depth=5
+ *     }</pre>
+ * </blockquote>
+ * <table>
+ *     <caption>Options</caption>
+ *     <tr><td><code>sizes</code></td><td>the sizes of the documents, defaults to <code>1m,2m,4m,8m</code></td></tr>
+ *     <tr><td><code>floor</code></td><td>the minimal throughput of loading and saving in MiB/s, defaults to
+ *     <code>1</code></td></tr>
+ *     <tr><td><code>ceiling</code></td><td>the maximal heap of a loaded document, as a multiple of its size,
+ *     defaults to <code>16</code></td></tr>
+ *     <tr><td><code>growth</code></td><td>the maximal growth of the time per byte from one size to the next,
+ *     defaults to <code>1.5</code></td></tr>
+ *     <tr><td><code>soak</code></td><td>the seconds the smallest document is processed over and over, defaults to
+ *     <code>0</code></td></tr>
+ * </table>
+ * Any other option is passed to the {@link CorpusGenerator#option(String) generator}.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see CorpusGenerator
+ * @since 1.8
+ */
+public final class ScaleSuite {
+    private static final String[] PHASES = {"load", "query", "modify", "save"};
+    private static final long MIN_GROWTH_NANOS = 50_000_000;
+
+    private final CorpusGenerator generator = new CorpusGenerator();
+    private long[] sizes = {1 << 20, 2 << 20, 4 << 20, 8 << 20};
+    private double floor = 1;
+    private double ceiling = 16;
+    private double growth = 1.5;
+    private long soak;
+
+    private final List<String> failures = new ArrayList<>();
+
+    /**
+     * The measurements of one pass over a document
+     *
+     * @param bytes     the size of the document
+     * @param nanos     the time taken by each phase, in the order of {@link #PHASES}
+     * @param heap      the heap taken by the loaded document, measured as the heap freed once it is dropped
+     * @param estimated the {@link YamlFile#estimateRetainedBytes() estimated} heap of the loaded document
+     * @param items     the amount of items after the document was saved and read again
+     */
+    private record Pass(long bytes, long[] nanos, long heap, long estimated, int items) {
+        double throughput(int phase) {
+            return this.bytes / (1024.0 * 1024.0) / (this.nanos[phase] / 1e9);
+        }
+
+        double nanosPerByte(int phase) {
+            return (double) this.nanos[phase] / this.bytes;
+        }
+    }
+
+    private ScaleSuite(String @NotNull [] args) {
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            String value = i < 0 ? "" : arg.substring(i + 1);
+            switch (i < 0 ? arg : arg.substring(0, i)) {
+                case "sizes" -> this.sizes = Stream.of(value.split(",")).mapToLong(CorpusGenerator::parseSize)
+                        .sorted().toArray();
+                case "floor" -> this.floor = Double.parseDouble(value);
+                case "ceiling" -> this.ceiling = Double.parseDouble(value);
+                case "growth" -> this.growth = Double.parseDouble(value);
+                case "soak" -> this.soak = Long.parseLong(value);
+                default -> this.generator.option(arg);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ScaleSuite suite = new ScaleSuite(args);
+        Path dir = Files.createTempDirectory("yaml-scale");
+        try {
+            suite.run(dir);
+        } finally {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+            }
+        }
+        if (suite.failures.isEmpty()) {
+            System.out.println("All checks passed");
+        } else {
+            System.out.println(suite.failures.size() + " checks failed:");
+            for (String f : suite.failures) System.out.println("  " + f);
+            System.exit(1);
+        }
+    }
+
+    private void run(@NotNull Path dir) throws IOException {
+        // a pass over the smallest document first, so the other passes measure compiled code
+        Path warmup = dir.resolve("warmup.yaml");
+        this.generator.write(warmup, this.sizes[0]);
+        this.pass(warmup, this.sizes[0]);
+
+        System.out.printf("%10s %10s %10s %10s %10s %12s %12s%n", "size", "load", "query", "modify", "save",
+                "heap", "estimated");
+        Pass previous = null;
+        for (long size : this.sizes) {
+            Path file = dir.resolve("corpus-" + size + ".yaml");
+            long bytes = this.generator.write(file, size);
+            Pass p;
+            try {
+                p = this.pass(file, bytes);
+            } catch (OutOfMemoryError e) {
+                this.failures.add(String.format("%s: out of memory", mib(bytes)));
+                break;
+            } finally {
+                Files.deleteIfExists(file);
+            }
+            System.out.printf("%10s %10s %10s %10s %10s %12s %12s%n", mib(bytes), ms(p.nanos[0]), ms(p.nanos[1]),
+                    ms(p.nanos[2]), ms(p.nanos[3]), mib(p.heap), mib(p.estimated));
+            this.check(p, previous);
+            previous = p;
+        }
+        if (this.soak > 0) this.soak(dir);
+    }
+
+    /**
+     * Loads, queries, modifies and saves a document, then reads it again to check the saved file
+     */
+    private @NotNull Pass pass(@NotNull Path path, long bytes) {
+        File f = path.toFile();
+        long[] nanos = new long[PHASES.length];
+
+        long t = System.nanoTime();
+        YamlFile file = YamlFile.read(f);
+        nanos[0] = System.nanoTime() - t;
+        if (file == null) throw new IllegalStateException("Could not read " + path);
+        long loaded = usedHeap();
+        long estimated = file.estimateRetainedBytes();
+
+        t = System.nanoTime();
+        long found = query(file);
+        nanos[1] = System.nanoTime() - t;
+
+        t = System.nanoTime();
+        modify(file);
+        nanos[2] = System.nanoTime() - t;
+
+        t = System.nanoTime();
+        boolean saved = file.create();
+        nanos[3] = System.nanoTime() - t;
+        if (!saved) this.failures.add(String.format("%s: could not be saved", mib(bytes)));
+        if (found == 0) this.failures.add(String.format("%s: no items found by name", mib(bytes)));
+
+        int expected = file.itemCount();
+        // the heap taken by the document is what is freed once it is dropped
+        file = null;
+        long heap = loaded - usedHeap();
+
+        YamlFile again = YamlFile.read(f);
+        int items = again == null ? -1 : again.itemCount();
+        if (items != expected)
+            this.failures.add(String.format("%s: %d items saved, %d read back", mib(bytes), expected, items));
+        return new Pass(bytes, nanos, heap, estimated, items);
+    }
+
+    /**
+     * Looks up every item of every object by its name
+     *
+     * @return the amount of items found
+     */
+    private static long query(@NotNull YamlFile file) {
+        long found = 0;
+        for (Yaml y : file.get())
+            if (y instanceof YamlObject o) found += query(o);
+        return found;
+    }
+
+    private static long query(@NotNull YamlObject o) {
+        long found = 0;
+        for (Yaml y : o.get()) {
+            if (o.getByName(y.name) != null) found++;
+            if (y instanceof YamlObject child) found += query(child);
+        }
+        return found;
+    }
+
+    /**
+     * Changes the first number of every top level object, and adds an item to every sixteenth unless it was added
+     * by an earlier pass
+     */
+    private static void modify(@NotNull YamlFile file) {
+        Yaml[] items = file.get();
+        for (int i = 0; i < items.length; i++) {
+            if (!(items[i] instanceof YamlObject o)) continue;
+            for (Yaml y : o.get()) {
+                if (y instanceof YamlNumber n) {
+                    n.set(n.get() + 1);
+                    break;
+                }
+            }
+            if (i % 16 == 0 && o.getByName("modified") == null) {
+                try {
+                    o.append(new YamlString("modified", "pass " + i));
+                } catch (YamlElementAlreadyPresentException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+
+    private void check(@NotNull Pass p, @Nullable Pass previous) {
+        for (int phase : new int[]{0, 3}) {
+            if (p.throughput(phase) < this.floor)
+                this.failures.add(String.format("%s: %s at %.2f MiB/s, below the floor of %.2f MiB/s", mib(p.bytes),
+                        PHASES[phase], p.throughput(phase), this.floor));
+        }
+        if (p.heap > this.ceiling * p.bytes)
+            this.failures.add(String.format("%s: loaded document takes %s of heap, above the ceiling of %.1fx",
+                    mib(p.bytes), mib(p.heap), this.ceiling));
+        if (previous == null) return;
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            // phases this short are dominated by noise
+            if (p.nanos[phase] < MIN_GROWTH_NANOS) continue;
+            double ratio = p.nanosPerByte(phase) / previous.nanosPerByte(phase);
+            if (ratio > this.growth)
+                this.failures.add(String.format("%s: %s grows super-linearly, %.2fx the time per byte of %s",
+                        mib(p.bytes), PHASES[phase], ratio, mib(previous.bytes)));
+        }
+    }
+
+    /**
+     * Processes the smallest document over and over, and checks that the heap left after each pass does not grow
+     */
+    private void soak(@NotNull Path dir) throws IOException {
+        Path file = dir.resolve("soak.yaml");
+        long bytes = this.generator.write(file, this.sizes[0]);
+        long end = System.nanoTime() + this.soak * 1_000_000_000L;
+        List<Long> heap = new ArrayList<>();
+        int passes = 0;
+        while (System.nanoTime() < end) {
+            Pass p = this.pass(file, bytes);
+            if (p.throughput(0) < this.floor || p.throughput(3) < this.floor) {
+                this.failures.add(String.format("soak: pass %d below the throughput floor", passes));
+                break;
+            }
+            if (++passes % 10 == 0) heap.add(usedHeap());
+        }
+        System.out.printf("soak: %d passes over %s%n", passes, mib(bytes));
+        if (heap.size() < 4) return;
+        int quarter = heap.size() / 4;
+        long first = heap.subList(0, quarter).stream().mapToLong(Long::longValue).min().orElse(0);
+        long last = heap.subList(heap.size() - quarter, heap.size()).stream().mapToLong(Long::longValue).min()
+                .orElse(0);
+        if (last > first * 1.1 + (1 << 20))
+            this.failures.add(String.format("soak: heap grew from %s to %s", mib(first), mib(last)));
+    }
+
+    /**
+     * Gets the heap in use after collecting until it stops shrinking, objects only reachable through references
+     * cleared by an earlier collection are freed by a later one
+     */
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) return used;
+            used = now;
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return used;
+    }
+
+    private static @NotNull String mib(long bytes) {
+        return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static @NotNull String ms(long nanos) {
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,317 @@
+package io.shiromi.yaml.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a <code>&lt;Name&gt;YamlBinder</code> class for every class or record with members annotated with
+ * <code>io.shiromi.yaml.annotations.SerializedItem</code>.
+ * <p>
+ * The binder reads the annotated members with the typed getters of <code>YamlObject</code> and writes them with the
+ * constructors of the yaml types, so no reflection is used at runtime. Supported are primitive types and their
+ * wrappers, <code>String</code>, enums, yaml types and other classes with annotated members, which are bound through
+ * their own binder. Annotated fields must not be <code>private</code>, classes need a constructor without parameters.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@SupportedAnnotationTypes(SerializedItemProcessor.ANNOTATION)
+public final class SerializedItemProcessor extends AbstractProcessor {
+    static final String ANNOTATION = "io.shiromi.yaml.annotations.SerializedItem";
+    private static final String DEFAULT_NAME = "";
+    private static final String UTIL = "io.shiromi.yaml.util.";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        TypeElement annotation = this.processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) return false;
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element e : round.getElementsAnnotatedWith(annotation))
+            if (e.getEnclosingElement() instanceof TypeElement t) types.add(t);
+        for (TypeElement t : types) {
+            try {
+                this.generate(t);
+            } catch (IOException e) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Cannot write the binder of " + t.getQualifiedName() + ": " + e.getMessage(), t);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * An annotated member, and the name of the item it is bound to
+     */
+    private record Member(Element element, String name, String item, TypeMirror type, boolean annotated) {
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        boolean record = type.getKind() == ElementKind.RECORD;
+        List<Member> members = new ArrayList<>();
+        if (record) {
+            for (RecordComponentElement c : type.getRecordComponents()) {
+                String item = itemName(c);
+                members.add(new Member(c, c.getSimpleName().toString(), item == null ? c.getSimpleName().toString() : item,
+                        c.asType(), item != null || hasAnnotatedField(type, c.getSimpleName())));
+            }
+        } else {
+            for (VariableElement f : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                String item = itemName(f);
+                if (item == null) continue;
+                if (f.getModifiers().contains(Modifier.PRIVATE) || f.getModifiers().contains(Modifier.STATIC)) {
+                    this.error(f, "Fields annotated with @SerializedItem must neither be private nor static");
+                    return;
+                }
+                members.add(new Member(f, f.getSimpleName().toString(), item, f.asType(), true));
+            }
+            boolean constructor = false;
+            for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements()))
+                if (c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE)) constructor = true;
+            if (!constructor) {
+                this.error(type, "Classes with @SerializedItem fields need a constructor without parameters");
+                return;
+            }
+        }
+
+        String pkg = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binder = binderName(type);
+        String target = type.getQualifiedName().toString();
+
+        StringBuilder s = new StringBuilder();
+        if (!pkg.isEmpty()) s.append("package ").append(pkg).append(";\n\n");
+        s.append("/**\n * Binds {@link ").append(target).append("} to yaml objects, generated from its\n")
+                .append(" * <code>@SerializedItem</code> members.\n */\n");
+        s.append("@javax.annotation.processing.Generated(\"").append(SerializedItemProcessor.class.getName()).append("\")\n");
+        s.append("public final class ").append(binder).append(" {\n");
+        s.append("    private ").append(binder).append("() {\n    }\n\n");
+
+        s.append("    /**\n     * Creates a new instance from the items of the given object\n     */\n");
+        s.append("    public static ").append(target).append(" fromYaml(").append(UTIL).append("YamlObject o) {\n");
+        if (!record) s.append("        ").append(target).append(" v = new ").append(target).append("();\n");
+        for (Member m : members) {
+            String var = record ? m.name : "v." + m.name;
+            if (record) s.append("        ").append(m.type).append(' ').append(m.name).append(" = ")
+                    .append(defaultValue(m.type)).append(";\n");
+            if (m.annotated && !this.read(s, m, var)) return;
+        }
+        if (record) {
+            s.append("        return new ").append(target).append('(');
+            for (int i = 0; i < members.size(); i++) s.append(i == 0 ? "" : ", ").append(members.get(i).name);
+            s.append(");\n");
+        } else s.append("        return v;\n");
+        s.append("    }\n\n");
+
+        s.append("    /**\n     * Creates an object with an item for every annotated member of the given instance\n     */\n");
+        s.append("    public static ").append(UTIL).append("YamlObject toYaml(String name, ").append(target).append(" v) {\n");
+        s.append("        return new ").append(UTIL).append("YamlObject(name");
+        for (Member m : members) {
+            if (!m.annotated) continue;
+            s.append(",\n                ");
+            if (!this.write(s, m, record ? "v." + m.name + "()" : "v." + m.name)) return;
+        }
+        s.append(");\n    }\n\n");
+
+        s.append("    /**\n     * Creates an object named <code>").append(type.getSimpleName())
+                .append("</code> with an item for every annotated member of the given instance\n     */\n");
+        s.append("    public static ").append(UTIL).append("YamlObject toYaml(").append(target).append(" v) {\n");
+        s.append("        return toYaml(\"").append(type.getSimpleName()).append("\", v);\n    }\n}\n");
+
+        try (Writer w = this.processingEnv.getFiler()
+                .createSourceFile(pkg.isEmpty() ? binder : pkg + '.' + binder, type).openWriter()) {
+            w.write(s.toString());
+        }
+    }
+
+    private boolean read(StringBuilder s, Member m, String var) {
+        TypeMirror t = m.type;
+        String item = '"' + escape(m.item) + '"';
+        String open = "        {\n            ";
+        String close = "        }\n";
+        switch (unboxed(t)) {
+            case INT, LONG, SHORT, BYTE, FLOAT, DOUBLE -> {
+                // the value of a YamlNumber is a double already, casting it to double is flagged by -Xlint:cast
+                String cast = unboxed(t) == TypeKind.DOUBLE ? ""
+                        : "(" + this.processingEnv.getTypeUtils().getPrimitiveType(unboxed(t)) + ") ";
+                s.append(open).append(UTIL).append("YamlNumber y = o.getNumber(").append(item).append(");\n")
+                        .append("            if (y != null) ").append(var).append(" = ").append(cast).append("y.value;\n")
+                        .append(close);
+                return true;
+            }
+            case BOOLEAN -> {
+                s.append(open).append(UTIL).append("YamlBoolean y = o.getBoolean(").append(item).append(");\n")
+                        .append("            if (y != null) ").append(var).append(" = y.value;\n").append(close);
+                return true;
+            }
+            case CHAR -> {
+                s.append(open).append(UTIL).append("YamlString y = o.getString(").append(item).append(");\n")
+                        .append("            if (y != null && !y.value.isEmpty()) ").append(var)
+                        .append(" = y.value.charAt(0);\n").append(close);
+                return true;
+            }
+            default -> {
+            }
+        }
+
+        TypeElement e = element(t);
+        String name = e == null ? "" : e.getQualifiedName().toString();
+        if (name.equals("java.lang.String")) {
+            s.append(open).append(UTIL).append("YamlString y = o.getString(").append(item).append(");\n")
+                    .append("            if (y != null) ").append(var).append(" = y.value;\n").append(close);
+        } else if (e != null && e.getKind() == ElementKind.ENUM) {
+            s.append(open).append(UTIL).append("YamlString y = o.getString(").append(item).append(");\n")
+                    .append("            if (y != null) ").append(var).append(" = ").append(name)
+                    .append(".valueOf(y.value);\n").append(close);
+        } else if (name.startsWith(UTIL) || name.equals("io.shiromi.yaml.Yaml")) {
+            s.append(open).append("io.shiromi.yaml.Yaml y = o.getByName(").append(item).append(");\n")
+                    .append("            if (y instanceof ").append(name).append(" y1) ").append(var).append(" = y1;\n")
+                    .append(close);
+        } else if (e != null && this.isBound(e)) {
+            s.append(open).append(UTIL).append("YamlObject y = o.getObject(").append(item).append(");\n")
+                    .append("            if (y != null) ").append(var).append(" = ").append(qualifiedBinder(e))
+                    .append(".fromYaml(y);\n").append(close);
+        } else {
+            this.error(m.element, "Type " + t + " cannot be bound to a yaml item");
+            return false;
+        }
+        return true;
+    }
+
+    private boolean write(StringBuilder s, Member m, String value) {
+        TypeMirror t = m.type;
+        String item = '"' + escape(m.item) + '"';
+        boolean primitive = t.getKind().isPrimitive();
+        String prefix = primitive ? "" : value + " == null ? new " + UTIL + "YamlNull(" + item + ") : ";
+        switch (unboxed(t)) {
+            case INT, LONG, SHORT, BYTE, FLOAT, DOUBLE -> {
+                String cast = switch (unboxed(t)) {
+                    case SHORT, BYTE -> "(int) ";
+                    default -> "";
+                };
+                s.append(prefix).append("new ").append(UTIL).append("YamlNumber(").append(item).append(", ")
+                        .append(cast).append(value).append(')');
+                return true;
+            }
+            case BOOLEAN -> {
+                s.append(prefix).append("new ").append(UTIL).append("YamlBoolean(").append(item).append(", ")
+                        .append(value).append(')');
+                return true;
+            }
+            case CHAR -> {
+                s.append(prefix).append("new ").append(UTIL).append("YamlString(").append(item)
+                        .append(", String.valueOf(").append(value).append("))");
+                return true;
+            }
+            default -> {
+            }
+        }
+
+        TypeElement e = element(t);
+        String name = e == null ? "" : e.getQualifiedName().toString();
+        if (name.equals("java.lang.String"))
+            s.append(prefix).append("new ").append(UTIL).append("YamlString(").append(item).append(", ").append(value).append(')');
+        else if (e != null && e.getKind() == ElementKind.ENUM)
+            s.append(prefix).append("new ").append(UTIL).append("YamlString(").append(item).append(", ").append(value)
+                    .append(".name())");
+        else if (name.startsWith(UTIL) || name.equals("io.shiromi.yaml.Yaml"))
+            s.append(prefix).append(value);
+        else if (e != null && this.isBound(e))
+            s.append(prefix).append(qualifiedBinder(e)).append(".toYaml(").append(item).append(", ").append(value).append(')');
+        else {
+            this.error(m.element, "Type " + t + " cannot be bound to a yaml item");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a binder is generated for the given type, which is the case if any of its members is annotated
+     */
+    private boolean isBound(TypeElement e) {
+        for (Element member : e.getEnclosedElements()) if (itemName(member) != null) return true;
+        return false;
+    }
+
+    private static boolean hasAnnotatedField(TypeElement record, Name name) {
+        for (VariableElement f : ElementFilter.fieldsIn(record.getEnclosedElements()))
+            if (f.getSimpleName().equals(name) && itemName(f) != null) return true;
+        return false;
+    }
+
+    /**
+     * Gets the item name given by the annotation of the element
+     *
+     * @return the name of the item, or <code>null</code> if the element is not annotated
+     */
+    private static String itemName(Element e) {
+        for (AnnotationMirror a : e.getAnnotationMirrors()) {
+            if (!((TypeElement) a.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> v : a.getElementValues().entrySet()) {
+                if (!v.getKey().getSimpleName().contentEquals("name")) continue;
+                String name = String.valueOf(v.getValue().getValue());
+                if (!name.equals(DEFAULT_NAME)) return name;
+            }
+            return e.getSimpleName().toString();
+        }
+        return null;
+    }
+
+    private TypeKind unboxed(TypeMirror t) {
+        if (t.getKind().isPrimitive()) return t.getKind();
+        try {
+            return this.processingEnv.getTypeUtils().unboxedType(t).getKind();
+        } catch (IllegalArgumentException e) {
+            return TypeKind.DECLARED;
+        }
+    }
+
+    private static TypeElement element(TypeMirror t) {
+        return t instanceof DeclaredType d && d.asElement() instanceof TypeElement e ? e : null;
+    }
+
+    private static String defaultValue(TypeMirror t) {
+        return switch (t.getKind()) {
+            case BOOLEAN -> "false";
+            case CHAR -> "'\\0'";
+            case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> "0";
+            default -> "null";
+        };
+    }
+
+    private static String binderName(TypeElement type) {
+        StringBuilder s = new StringBuilder(type.getSimpleName());
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement t; e = t.getEnclosingElement())
+            s.insert(0, '_').insert(0, t.getSimpleName());
+        return s.append("YamlBinder").toString();
+    }
+
+    private String qualifiedBinder(TypeElement type) {
+        String pkg = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        return pkg.isEmpty() ? binderName(type) : pkg + '.' + binderName(type);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element e, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, e);
+    }
+}
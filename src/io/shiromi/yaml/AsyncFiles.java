@@ -0,0 +1,119 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Reads and writes whole files with an {@link AsynchronousFileChannel}, without blocking the calling thread while the
+ * file is transferred. The futures are completed on the threads of the channel, anything depending on them should
+ * continue on an executor of its own.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#readAsync(Path, java.util.concurrent.Executor)
+ * @see YamlFile#saveAsync(java.util.concurrent.Executor)
+ * @since 1.8
+ */
+final class AsyncFiles {
+    private AsyncFiles() {
+    }
+
+    /**
+     * Reads all bytes of a file
+     *
+     * @param path the file to read
+     * @return the future completed with the bytes, or exceptionally with an {@link IOException}
+     */
+    static @NotNull CompletableFuture<byte[]> read(@NotNull Path path) {
+        CompletableFuture<byte[]> done = new CompletableFuture<>();
+        AsynchronousFileChannel ch;
+        long size;
+        try {
+            ch = AsynchronousFileChannel.open(path, READ);
+            size = ch.size();
+        } catch (IOException | RuntimeException e) {
+            done.completeExceptionally(e);
+            return done;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            close(ch);
+            done.completeExceptionally(new IOException("File " + path + " is too large to be read: " + size
+                    + " bytes"));
+            return done;
+        }
+        ByteBuffer b = ByteBuffer.allocate((int) size);
+        ch.read(b, 0, null, new CompletionHandler<>() {
+            @Override
+            public void completed(Integer n, Object attachment) {
+                // the file can shrink while it is read, what was read until then is the content
+                if (n < 0 || !b.hasRemaining()) {
+                    close(ch);
+                    byte[] bytes = b.array();
+                    done.complete(b.position() == bytes.length ? bytes : Arrays.copyOf(bytes, b.position()));
+                    return;
+                }
+                ch.read(b, b.position(), null, this);
+            }
+
+            @Override
+            public void failed(Throwable t, Object attachment) {
+                close(ch);
+                done.completeExceptionally(t);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Writes bytes to a file, creating or truncating it
+     *
+     * @param path  the file to write
+     * @param bytes the bytes to write
+     * @return the future completed once all bytes were written, or exceptionally with an {@link IOException}
+     */
+    static @NotNull CompletableFuture<Void> write(@NotNull Path path, byte @NotNull [] bytes) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AsynchronousFileChannel ch;
+        try {
+            ch = AsynchronousFileChannel.open(path, WRITE, CREATE, TRUNCATE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            done.completeExceptionally(e);
+            return done;
+        }
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        ch.write(b, 0, null, new CompletionHandler<>() {
+            @Override
+            public void completed(Integer n, Object attachment) {
+                if (!b.hasRemaining()) {
+                    close(ch);
+                    done.complete(null);
+                } else if (n <= 0) this.failed(new EOFException("Cannot write to " + path), attachment);
+                else ch.write(b, b.position(), null, this);
+            }
+
+            @Override
+            public void failed(Throwable t, Object attachment) {
+                close(ch);
+                done.completeExceptionally(t);
+            }
+        });
+        return done;
+    }
+
+    private static void close(@NotNull AsynchronousFileChannel ch) {
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
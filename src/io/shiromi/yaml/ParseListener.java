@@ -0,0 +1,32 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * Listens to parses, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlFile config = YamlFile.read(new File("config.yaml"), stats -> {
+ *          if (stats.totalNanos() > 50_000_000) System.err.println("Slow config load: " + stats);
+ *      });
+ *     }</pre>
+ * </blockquote>
+ * A parse without a listener is not measured at all.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see Yaml#fromString(String, ParseListener)
+ * @see YamlFile#read(File, ParseListener)
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface ParseListener {
+    /**
+     * Called once a parse is done, on the thread which parsed
+     *
+     * @param stats the measurements of the parse
+     */
+    void parsed(@NotNull ParseStats stats);
+}
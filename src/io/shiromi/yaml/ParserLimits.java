@@ -0,0 +1,242 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.exception.YamlLimitExceededException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * Limits of the documents the parser accepts, guarding against documents which would take the parser too long or too
+ * much memory, e.g. ones uploaded by users
+ * <blockquote>
+ * <pre>{@code
+ *      ParserLimits limits = ParserLimits.UNLIMITED
+ *          .maxDepth(32)
+ *          .maxDocumentLength(1 << 20)
+ *          .maxNodes(100_000)
+ *          .maxScalarLength(4096)
+ *          .maxAliasExpansion(10_000)
+ *          .timeout(Duration.ofMillis(250));
+ *      Yaml[] upload = Yaml.fromString(text, limits, null);
+ *     }</pre>
+ * </blockquote>
+ * Parsing stops with a {@link YamlLimitExceededException} as soon as a limit is exceeded, the objects parsed until then
+ * are dropped. The checks are cheap: the length of each line and the depth of each group are compared when they are
+ * read anyway, and the clock is only looked at once every {@value #CLOCK_INTERVAL} lines.
+ * <p>
+ * Every parse which is not given limits of its own uses the {@link #getDefault() default limits}, which only limit
+ * the depth to {@value #DEFAULT_MAX_DEPTH} and the alias expansion to {@value #DEFAULT_MAX_ALIAS_EXPANSION} objects
+ * unless set otherwise.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see Yaml#fromString(String, ParserLimits, ParseListener)
+ * @since 1.8
+ */
+public final class ParserLimits {
+    /**
+     * The depth the default limits allow
+     */
+    public static final int DEFAULT_MAX_DEPTH = 512;
+
+    /**
+     * The amount of objects the aliases of a document may stand for with the default limits
+     */
+    public static final long DEFAULT_MAX_ALIAS_EXPANSION = 1 << 20;
+
+    /**
+     * The amount of lines read between two looks at the clock
+     */
+    public static final int CLOCK_INTERVAL = 1024;
+
+    /**
+     * Limits which allow everything
+     */
+    public static final ParserLimits UNLIMITED = new ParserLimits(Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE,
+            Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static volatile @NotNull ParserLimits defaultLimits = UNLIMITED.maxDepth(DEFAULT_MAX_DEPTH)
+            .maxAliasExpansion(DEFAULT_MAX_ALIAS_EXPANSION);
+
+    final int maxDepth;
+    final long maxDocumentLength;
+    final long maxNodes;
+    final int maxScalarLength;
+    final long timeoutNanos;
+    final long maxAliasExpansion;
+
+    private ParserLimits(int maxDepth, long maxDocumentLength, long maxNodes, int maxScalarLength, long timeoutNanos,
+                         long maxAliasExpansion) {
+        this.maxDepth = maxDepth;
+        this.maxDocumentLength = maxDocumentLength;
+        this.maxNodes = maxNodes;
+        this.maxScalarLength = maxScalarLength;
+        this.timeoutNanos = timeoutNanos;
+        this.maxAliasExpansion = maxAliasExpansion;
+    }
+
+    /**
+     * Gets the limits used by every parse which is not given limits of its own
+     */
+    public static @NotNull ParserLimits getDefault() {
+        return defaultLimits;
+    }
+
+    /**
+     * Sets the limits used from now on by every parse which is not given limits of its own
+     *
+     * @param limits the limits, {@link #UNLIMITED} to not limit parsing at all
+     */
+    public static void setDefault(@NotNull ParserLimits limits) {
+        if (limits == null) throw new NullPointerException("limits");
+        defaultLimits = limits;
+    }
+
+    /**
+     * Limits how deep groups may be nested, the top level of a document has a depth of <code>1</code>
+     *
+     * @param maxDepth the depth, at least <code>1</code>
+     * @return new limits with the given depth
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits maxDepth(int maxDepth) {
+        if (maxDepth < 1) throw new IllegalArgumentException("Depth has to be at least 1: " + maxDepth);
+        return new ParserLimits(maxDepth, this.maxDocumentLength, this.maxNodes, this.maxScalarLength,
+                this.timeoutNanos, this.maxAliasExpansion);
+    }
+
+    /**
+     * Limits the length of a document in characters, which is its size in bytes for a document of ascii characters
+     *
+     * @param maxDocumentLength the length
+     * @return new limits with the given length
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits maxDocumentLength(long maxDocumentLength) {
+        if (maxDocumentLength < 0) throw new IllegalArgumentException("Negative length: " + maxDocumentLength);
+        return new ParserLimits(this.maxDepth, maxDocumentLength, this.maxNodes, this.maxScalarLength,
+                this.timeoutNanos, this.maxAliasExpansion);
+    }
+
+    /**
+     * Limits the amount of objects in a document, counting objects at any depth
+     *
+     * @param maxNodes the amount
+     * @return new limits with the given amount
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits maxNodes(long maxNodes) {
+        if (maxNodes < 0) throw new IllegalArgumentException("Negative amount: " + maxNodes);
+        return new ParserLimits(this.maxDepth, this.maxDocumentLength, maxNodes, this.maxScalarLength,
+                this.timeoutNanos, this.maxAliasExpansion);
+    }
+
+    /**
+     * Limits the length of a single line in characters, i.e. of a name with its value and indentation. A longer line
+     * is never held by the parser as a whole
+     *
+     * @param maxScalarLength the length
+     * @return new limits with the given length
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits maxScalarLength(int maxScalarLength) {
+        if (maxScalarLength < 0) throw new IllegalArgumentException("Negative length: " + maxScalarLength);
+        return new ParserLimits(this.maxDepth, this.maxDocumentLength, this.maxNodes, maxScalarLength,
+                this.timeoutNanos, this.maxAliasExpansion);
+    }
+
+    /**
+     * Limits the time a single parse may take, measured as the wall-clock time elapsed since the parse started, so
+     * the time the parsing thread waits, e.g. for a streamed document to be read, counts as well
+     *
+     * @param timeout the time
+     * @return new limits with the given time
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits timeout(@NotNull Duration timeout) {
+        if (timeout.isNegative()) throw new IllegalArgumentException("Negative timeout: " + timeout);
+        long nanos;
+        try {
+            nanos = timeout.toNanos();
+        } catch (ArithmeticException e) {
+            nanos = Long.MAX_VALUE;
+        }
+        return new ParserLimits(this.maxDepth, this.maxDocumentLength, this.maxNodes, this.maxScalarLength, nanos,
+                this.maxAliasExpansion);
+    }
+
+    /**
+     * Limits the amount of objects all aliases of a document stand for together, an alias of an object with three
+     * children stands for four objects. Aliases share the objects they refer to, but a document whose aliases refer
+     * to objects holding aliases themselves can stand for exponentially many objects, which anything walking the
+     * whole document would have to visit
+     *
+     * @param maxAliasExpansion the amount
+     * @return new limits with the given amount
+     */
+    @Contract("_ -> new")
+    public @NotNull ParserLimits maxAliasExpansion(long maxAliasExpansion) {
+        if (maxAliasExpansion < 0) throw new IllegalArgumentException("Negative amount: " + maxAliasExpansion);
+        return new ParserLimits(this.maxDepth, this.maxDocumentLength, this.maxNodes, this.maxScalarLength,
+                this.timeoutNanos, maxAliasExpansion);
+    }
+
+    /**
+     * Gets how deep groups may be nested
+     */
+    public int maxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * Gets the length of a document in characters
+     */
+    public long maxDocumentLength() {
+        return this.maxDocumentLength;
+    }
+
+    /**
+     * Gets the amount of objects in a document
+     */
+    public long maxNodes() {
+        return this.maxNodes;
+    }
+
+    /**
+     * Gets the length of a single line in characters
+     */
+    public int maxScalarLength() {
+        return this.maxScalarLength;
+    }
+
+    /**
+     * Gets the time a single parse may take
+     */
+    public @NotNull Duration timeout() {
+        return Duration.ofNanos(this.timeoutNanos);
+    }
+
+    /**
+     * Gets the amount of objects all aliases of a document stand for together
+     */
+    public long maxAliasExpansion() {
+        return this.maxAliasExpansion;
+    }
+
+    boolean isTimed() {
+        return this.timeoutNanos != Long.MAX_VALUE;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "ParserLimits[depth: " + limit(this.maxDepth) + ", length: " + limit(this.maxDocumentLength)
+                + ", nodes: " + limit(this.maxNodes) + ", scalar length: " + limit(this.maxScalarLength)
+                + ", timeout: " + (this.isTimed() ? this.timeout() : "none")
+                + ", alias expansion: " + limit(this.maxAliasExpansion) + "]";
+    }
+
+    private static @NotNull String limit(long n) {
+        return n == Integer.MAX_VALUE || n == Long.MAX_VALUE ? "none" : String.valueOf(n);
+    }
+}
@@ -0,0 +1,356 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.YamlObject;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * The byte spans of the objects of a file, as they were read from or last written to the disk.
+ * <p>
+ * The objects are stored in document order, every object is followed by all of its children, so the children of an
+ * object can be found by skipping over the {@link #size(int) size} of each child. For every object the span starts
+ * at the beginning of its first line, including the indentation, and ends before the line break of its last line.
+ * A hash of each object is kept as well, which is used to find the objects which were changed since.
+ * <p>
+ * An alias spans only its own line, but its object is the anchored one or shares its children, so the children of an
+ * alias are not recorded after it. Instead, the anchored object is kept with the alias.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#create()
+ * @since 1.8
+ */
+final class SourceMap {
+    private Yaml[] nodes = new Yaml[16];
+    private int[] size = new int[16];
+    private long[] start = new long[16];
+    private long[] end = new long[16];
+    private int[] indent = new int[16];
+    private long[] hash = new long[16];
+    private Yaml @Nullable [] targets;
+    private boolean merges;
+    private int count;
+
+    /**
+     * The size of the file in bytes when it was read or written
+     */
+    long fileSize;
+    /**
+     * The last modification time of the file when it was read or written
+     */
+    long fileModified;
+
+    int count() {
+        return this.count;
+    }
+
+    Yaml node(int i) {
+        return this.nodes[i];
+    }
+
+    int size(int i) {
+        return this.size[i];
+    }
+
+    long start(int i) {
+        return this.start[i];
+    }
+
+    long end(int i) {
+        return this.end[i];
+    }
+
+    int indent(int i) {
+        return this.indent[i];
+    }
+
+    /**
+     * Checks whether the object at the given index is still the same as when its span was recorded
+     *
+     * @param i the index of the object
+     * @return whether the name, or for non-objects the string representation, has changed or not
+     */
+    boolean isUnchanged(int i) {
+        return this.hash[i] == hashOf(this.nodes[i]);
+    }
+
+    /**
+     * Checks whether the object at the given index was parsed from an alias
+     */
+    boolean isAlias(int i) {
+        return this.targets != null && i < this.targets.length && this.targets[i] != null;
+    }
+
+    /**
+     * Gets the object the alias at the given index refers to
+     */
+    @NotNull Yaml target(int i) {
+        assert this.targets != null && this.targets[i] != null;
+        return this.targets[i];
+    }
+
+    /**
+     * Checks whether any object was parsed from an alias or merges other objects
+     */
+    boolean hasAliases() {
+        return this.targets != null || this.merges;
+    }
+
+    /**
+     * Checks whether the text holds merge keys
+     */
+    boolean hasMerges() {
+        return this.merges;
+    }
+
+    /**
+     * Marks the text as holding merge keys, whose objects are not recorded
+     */
+    void merged() {
+        this.merges = true;
+    }
+
+    /**
+     * Checks whether the alias at the given index still stands for the object it was anchored to
+     *
+     * @param i the index of the alias
+     * @return whether its name or value and, for {@link YamlObject YamlObjects}, its children are unchanged or not
+     */
+    boolean isAliasUnchanged(int i) {
+        assert this.targets != null;
+        return this.isUnchanged(i) && (!(this.nodes[i] instanceof YamlObject o)
+                || o.values == ((YamlObject) this.targets[i]).values);
+    }
+
+    /**
+     * Gets the top level objects, in the order they were recorded in
+     */
+    Yaml @NotNull [] roots() {
+        int n = 0;
+        for (int i = 0; i < this.count; i += this.size[i]) n++;
+        Yaml[] roots = new Yaml[n];
+        for (int i = 0, j = 0; i < this.count; i += this.size[i]) roots[j++] = this.nodes[i];
+        return roots;
+    }
+
+    private void alias(int i, @NotNull Yaml target) {
+        if (this.targets == null) this.targets = new Yaml[this.nodes.length];
+        else if (this.targets.length <= i) this.targets = Arrays.copyOf(this.targets, this.nodes.length);
+        this.targets[i] = target;
+    }
+
+    void add(Yaml y, int size, long start, long end, int indent, long hash) {
+        if (this.count == this.nodes.length) {
+            int capacity = this.count * 2;
+            this.nodes = Arrays.copyOf(this.nodes, capacity);
+            this.size = Arrays.copyOf(this.size, capacity);
+            this.start = Arrays.copyOf(this.start, capacity);
+            this.end = Arrays.copyOf(this.end, capacity);
+            this.indent = Arrays.copyOf(this.indent, capacity);
+            this.hash = Arrays.copyOf(this.hash, capacity);
+        }
+        int i = this.count++;
+        this.nodes[i] = y;
+        this.size[i] = size;
+        this.start[i] = start;
+        this.end[i] = end;
+        this.indent[i] = indent;
+        this.hash[i] = hash;
+    }
+
+    /**
+     * Copies the entry at the given index of another map, moved by the given amounts, and the object it refers to if
+     * it is an alias
+     */
+    void copy(@NotNull SourceMap from, int i, int sizeDelta, long startShift, long endShift) {
+        this.add(from.nodes[i], from.size[i] + sizeDelta, from.start[i] + startShift, from.end[i] + endShift,
+                from.indent[i], from.hash[i]);
+        if (from.isAlias(i)) this.alias(this.count - 1, from.target(i));
+    }
+
+    /**
+     * Ends the entry of an object at the given position, making all entries added after it its children
+     */
+    void close(int i, long end) {
+        this.size[i] = this.count - i;
+        this.end[i] = end;
+    }
+
+    /**
+     * Writes the spans, without the objects themselves
+     *
+     * @see #read(YamlBinary.Decoder, Yaml[])
+     */
+    void write(YamlBinary.@NotNull Encoder e) {
+        e.u64(this.fileSize);
+        e.u64(this.fileModified);
+        e.varint(this.count);
+        long last = 0;
+        for (int i = 0; i < this.count; i++) {
+            e.varint(this.size[i]);
+            e.varint(this.start[i] - last);
+            e.varint(this.end[i] - this.start[i]);
+            e.varint(this.indent[i]);
+            e.u64(this.hash[i]);
+            last = this.start[i];
+        }
+    }
+
+    /**
+     * Reads spans written by {@link #write(YamlBinary.Encoder)} and assigns them to the given objects and their
+     * children, in document order
+     *
+     * @param d     the decoder to read from
+     * @param roots the top level objects the spans were recorded for
+     * @return the spans of the objects
+     * @throws IOException if the spans do not fit the given objects
+     */
+    static @NotNull SourceMap read(YamlBinary.@NotNull Decoder d, Yaml @NotNull [] roots) throws IOException {
+        SourceMap map = new SourceMap();
+        map.fileSize = d.u64();
+        map.fileModified = d.u64();
+        int count = d.count();
+
+        Deque<Yaml> pending = new ArrayDeque<>();
+        for (int i = roots.length - 1; i >= 0; i--) pending.push(roots[i]);
+        long start = 0;
+        for (int i = 0; i < count; i++) {
+            Yaml y = pending.poll();
+            if (y == null) throw new IOException("More spans than objects");
+            if (y instanceof YamlObject o) for (int j = o.values.length - 1; j >= 0; j--) pending.push(o.values[j]);
+            int size = (int) d.varint();
+            start += d.varint();
+            long end = start + d.varint();
+            map.add(y, size, start, end, (int) d.varint(), d.u64());
+        }
+        if (!pending.isEmpty()) throw new IOException("Less spans than objects");
+        return map;
+    }
+
+    /**
+     * Computes the hash stored for each object, for {@link YamlObject YamlObjects} only the name and the objects
+     * merged into it are hashed since their children are compared one by one
+     */
+    static long hashOf(@NotNull Yaml y) {
+        if (!(y instanceof YamlObject o)) return hash(y.stringify(0));
+        long h = hash(o.name);
+        for (YamlObject p : o.getMerged()) h = (h ^ System.identityHashCode(p)) * 0x100000001b3L;
+        return h;
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the given characters
+     */
+    static long hash(@NotNull CharSequence s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Records the objects by the lines they span while a text is parsed or written, and turns the lines into byte
+     * spans once the encoded text is known.
+     */
+    static final class Builder {
+        private Yaml[] nodes = new Yaml[16];
+        private int[] firstLine = new int[16];
+        private int[] lastLine = new int[16];
+        private int[] indent = new int[16];
+        private Yaml @Nullable [] targets;
+        private boolean merges;
+        private int count;
+
+        /**
+         * Starts recording an object, children have to be recorded before the object is {@link #end ended}
+         *
+         * @param line   the line the object starts at
+         * @param indent the amount of leading whitespace characters
+         * @return the index of the object
+         */
+        int begin(int line, int indent) {
+            if (this.count == this.nodes.length) {
+                int capacity = this.count * 2;
+                this.nodes = Arrays.copyOf(this.nodes, capacity);
+                this.firstLine = Arrays.copyOf(this.firstLine, capacity);
+                this.lastLine = Arrays.copyOf(this.lastLine, capacity);
+                this.indent = Arrays.copyOf(this.indent, capacity);
+            }
+            this.firstLine[this.count] = line;
+            this.indent[this.count] = indent;
+            return this.count++;
+        }
+
+        void end(int index, Yaml y, int lastLine) {
+            this.nodes[index] = y;
+            this.lastLine[index] = lastLine;
+        }
+
+        /**
+         * Marks an ended object as parsed from an alias
+         *
+         * @param index  the index of the object
+         * @param target the object the alias refers to
+         */
+        void alias(int index, @NotNull Yaml target) {
+            if (this.targets == null) this.targets = new Yaml[this.nodes.length];
+            else if (this.targets.length <= index) this.targets = Arrays.copyOf(this.targets, this.nodes.length);
+            this.targets[index] = target;
+        }
+
+        /**
+         * Marks the text as holding merge keys, whose objects are not recorded
+         */
+        void merged() {
+            this.merges = true;
+        }
+
+        /**
+         * Drops the last object begun, used for lines which could not be parsed
+         */
+        void discard(int index) {
+            if (this.targets != null) Arrays.fill(this.targets, index, Math.min(this.count, this.targets.length), null);
+            this.count = index;
+        }
+
+        /**
+         * Turns the recorded lines into byte spans
+         *
+         * @param bytes the text the lines were recorded on, encoded
+         * @param base  the position of the text in the file
+         * @return the spans of all recorded objects
+         */
+        @NotNull SourceMap build(byte @NotNull [] bytes, long base) {
+            int[] lineStarts = new int[16];
+            int lines = 1;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != '\n') continue;
+                if (lines == lineStarts.length) lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+                lineStarts[lines++] = i + 1;
+            }
+
+            SourceMap map = new SourceMap();
+            map.merges = this.merges;
+            for (int i = 0; i < this.count; i++) {
+                int last = this.lastLine[i];
+                int lineEnd = last + 1 < lines ? lineStarts[last + 1] - 1 : bytes.length;
+                if (lineEnd > lineStarts[last] && bytes[lineEnd - 1] == '\r') lineEnd--;
+                int size = 1;
+                while (i + size < this.count && this.firstLine[i + size] <= last) size++;
+                map.add(this.nodes[i], size, base + lineStarts[this.firstLine[i]], base + lineEnd, this.indent[i],
+                        hashOf(this.nodes[i]));
+                if (this.targets != null && i < this.targets.length && this.targets[i] != null)
+                    map.alias(i, this.targets[i]);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.YamlObject;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The changes of a file since its spans were recorded, as the byte spans to replace and the texts to replace them
+ * with.
+ * <p>
+ * The children of each object are matched with the children recorded for it in order. A child which is still the
+ * same instance is compared on its own, a new instance in the place of a child which is gone replaces its span, other
+ * new instances are inserted between the spans of their siblings, and children which are gone are removed together
+ * with their line break. Only an object whose remaining children were reordered is written as a whole, only a file
+ * whose top level objects were reordered is not patched at all. The texts use the line breaks of the file, and the
+ * indentation of their siblings.
+ * <p>
+ * The anchors, aliases and merge keys of the file are kept as they are, so a file is not patched at all if a change
+ * would rewrite or remove any of them, or would write a shared object or one merging others. Such a file is written as
+ * a whole, with the anchors of the objects it shares then.
+ * <p>
+ * Once the texts are written, the spans of the file are made of the recorded spans of the objects which were kept,
+ * moved by the changes before them, and the spans recorded while the texts were rendered.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#create()
+ * @since 1.8
+ */
+final class SourcePatch {
+    private static final byte COPY = 0;
+    private static final byte OPEN = 1;
+    private static final byte CLOSE = 2;
+    private static final byte RENDER = 3;
+
+    private final SourceMap map;
+    private final FileChannel ch;
+    private final String newline;
+    private final String unit;
+    private final List<Change> changes = new ArrayList<>();
+    private final @Nullable YamlAnchors anchors;
+    /**
+     * The recorded objects referred to by aliases or merge keys of the file
+     */
+    private final Set<Yaml> anchored = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean shared;
+
+    /**
+     * What each object of the patched file is taken from, in document order: a recorded object and its children, a
+     * recorded object whose children are taken from the following pieces until it is closed, or the next object
+     * rendered into a change
+     */
+    private byte[] kinds = new byte[16];
+    private int[] indices = new int[16];
+    private int pieces;
+
+    private SourcePatch(@NotNull SourceMap map, @NotNull FileChannel ch, @Nullable YamlAnchors anchors)
+            throws IOException {
+        this.map = map;
+        this.ch = ch;
+        this.anchors = anchors;
+        if (map.hasAliases()) {
+            for (int i = 0; i < map.count(); i++) {
+                if (map.isAlias(i)) this.anchored.add(map.target(i));
+                if (map.node(i) instanceof YamlObject o) Collections.addAll(this.anchored, o.getMerged());
+            }
+        }
+        byte[] after = this.read(map.end(0), 1);
+        this.newline = after.length > 0 && after[0] == '\r' ? "\r\n" : "\n";
+        String unit = "\t";
+        for (int i = 0; i + 1 < map.count(); i++) {
+            if (map.size(i) == 1 || map.indent(i + 1) <= map.indent(i)) continue;
+            unit = readIndent(ch, map.start(i + 1), map.indent(i + 1)).substring(map.indent(i));
+            break;
+        }
+        this.unit = unit;
+    }
+
+    /**
+     * Finds the changes of the given top level objects since their spans were recorded
+     *
+     * @param map   the spans of the file
+     * @param ch    the file
+     * @param roots the top level objects the file is written with
+     * @return the changes, or <code>null</code> if the file has to be written as a whole
+     */
+    static @Nullable SourcePatch of(@NotNull SourceMap map, @NotNull FileChannel ch, Yaml @NotNull [] roots)
+            throws IOException {
+        if (map.count() == 0 || roots.length == 0) return null;
+        SourcePatch p = new SourcePatch(map, ch, YamlAnchors.of(roots));
+        return p.list(-1, roots) && !p.shared ? p : null;
+    }
+
+    /**
+     * Checks whether nothing changed
+     */
+    boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    /**
+     * Gets the starts of the spans to replace, in ascending order
+     */
+    long @NotNull [] starts() {
+        long[] starts = new long[this.changes.size()];
+        for (int k = 0; k < starts.length; k++) starts[k] = this.changes.get(k).start;
+        return starts;
+    }
+
+    /**
+     * Gets the ends of the spans to replace, a span ending where it starts is an insertion
+     */
+    long @NotNull [] ends() {
+        long[] ends = new long[this.changes.size()];
+        for (int k = 0; k < ends.length; k++) ends[k] = this.changes.get(k).end;
+        return ends;
+    }
+
+    /**
+     * Gets the texts to replace the spans with, encoded
+     */
+    byte @NotNull [] @NotNull [] texts() {
+        byte[][] texts = new byte[this.changes.size()][];
+        for (int k = 0; k < texts.length; k++) texts[k] = this.changes.get(k).bytes();
+        return texts;
+    }
+
+    /**
+     * Computes the spans of the file once the texts were written
+     */
+    @NotNull SourceMap spans() throws IOException {
+        int n = this.changes.size();
+        long[] ends = this.ends();
+        long[] shift = new long[n + 1];
+        for (int k = 0; k < n; k++) {
+            Change c = this.changes.get(k);
+            byte[] bytes = c.bytes();
+            c.spans = c.builder.build(bytes, c.start + shift[k]);
+            shift[k + 1] = shift[k] + bytes.length - (c.end - c.start);
+        }
+
+        SourceMap updated = new SourceMap();
+        if (this.map.hasMerges()) updated.merged();
+        Deque<Integer> open = new ArrayDeque<>();
+        long last = 0;
+        for (int p = 0; p < this.pieces; p++) {
+            int i = this.indices[p];
+            switch (this.kinds[p]) {
+                case COPY -> {
+                    long s = shift[before(ends, this.map.start(i))];
+                    for (int j = i; j < i + this.map.size(i); j++) updated.copy(this.map, j, 0, s, s);
+                    last = this.map.end(i) + s;
+                }
+                case OPEN -> {
+                    long s = shift[before(ends, this.map.start(i))];
+                    open.push(updated.count());
+                    updated.copy(this.map, i, 0, s, 0);
+                    last = this.lineEnd(this.map.start(i) + s);
+                }
+                case CLOSE -> updated.close(open.pop(), last);
+                case RENDER -> {
+                    Change c = this.changes.get(i);
+                    SourceMap spans = c.spans;
+                    int j = c.next;
+                    c.next += spans.size(j);
+                    for (int k = j; k < c.next; k++) updated.copy(spans, k, 0, 0, 0);
+                    last = spans.end(j);
+                }
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Matches the given objects with the children recorded for an object
+     *
+     * @param parent the index of the object, <code>-1</code> for the top level
+     * @param values the children the object has now
+     * @return whether the children could be matched, if not the remaining children were reordered
+     */
+    private boolean list(int parent, Yaml @NotNull [] values) throws IOException {
+        SourceMap map = this.map;
+        int from = parent + 1, to = parent < 0 ? map.count() : parent + map.size(parent);
+        Set<Yaml> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(kept, values);
+        Set<Yaml> recorded = Collections.newSetFromMap(new IdentityHashMap<>());
+        int lastChild = -1;
+        for (int i = from; i < to; i += map.size(i)) {
+            recorded.add(map.node(i));
+            lastChild = i;
+        }
+
+        int i = from;
+        Change insert = null;
+        for (int b = 0; b < values.length; ) {
+            Yaml y = values[b];
+            if (i < to && map.node(i) == y) {
+                insert = null;
+                this.node(i);
+                i += map.size(i);
+                b++;
+            } else if (i < to && !kept.contains(map.node(i))) {
+                insert = null;
+                if (recorded.contains(y)) this.remove(i);
+                else {
+                    this.replace(i, y);
+                    b++;
+                }
+                i += map.size(i);
+            } else if (!recorded.contains(y)) {
+                if (this.isShared(y)) this.shared = true;
+                if (insert == null) insert = this.insert(parent, i < to ? i : lastChild, i == to);
+                insert.add(y, this);
+                this.piece(RENDER, this.changes.size() - 1);
+                b++;
+            } else return false;
+        }
+        for (; i < to; i += map.size(i)) {
+            if (kept.contains(map.node(i))) return false;
+            this.remove(i);
+        }
+        return true;
+    }
+
+    /**
+     * Compares a recorded object which was kept
+     */
+    private void node(int i) throws IOException {
+        SourceMap map = this.map;
+        Yaml y = map.node(i);
+        if (map.isAlias(i)) {
+            if (map.isAliasUnchanged(i)) this.piece(COPY, i);
+            else this.replace(i, y);
+            return;
+        }
+        if (!map.isUnchanged(i)) {
+            this.replace(i, y);
+            return;
+        }
+        if (!(y instanceof YamlObject o)) {
+            this.piece(COPY, i);
+            return;
+        }
+
+        int changes = this.changes.size(), pieces = this.pieces;
+        this.piece(OPEN, i);
+        if (!this.list(i, o.values)) {
+            this.changes.subList(changes, this.changes.size()).clear();
+            this.pieces = pieces;
+            this.replace(i, y);
+        } else if (this.changes.size() == changes) {
+            this.pieces = pieces;
+            this.piece(COPY, i);
+        } else this.piece(CLOSE, i);
+    }
+
+    private void replace(int i, @NotNull Yaml y) throws IOException {
+        if (this.isShared(i) || this.isShared(y)) this.shared = true;
+        Change c = new Change(this.map.start(i), this.map.end(i),
+                readIndent(this.ch, this.map.start(i), this.map.indent(i)), 0, false);
+        this.changes.add(c);
+        c.add(y, this);
+        this.piece(RENDER, this.changes.size() - 1);
+    }
+
+    /**
+     * Removes the lines of a recorded object, with the line break following them or, at the end of the file, the
+     * line break before them
+     */
+    private void remove(int i) throws IOException {
+        if (this.isShared(i)) this.shared = true;
+        long start = this.map.start(i), end = this.map.end(i);
+        byte[] after = this.read(end, 2);
+        if (after.length > 0) end += after[0] == '\r' && after.length > 1 ? 2 : 1;
+        else if (start > 0) {
+            byte[] before = this.read(Math.max(0, start - 2), (int) Math.min(2, start));
+            start -= before.length == 2 && before[0] == '\r' ? 2 : 1;
+        }
+        this.changes.add(new Change(start, end, "", 0, false));
+    }
+
+    /**
+     * Starts inserting objects next to a recorded child
+     *
+     * @param parent  the index of the object the objects are inserted into, <code>-1</code> for the top level
+     * @param sibling the index of the child to insert before, or after if appending, <code>-1</code> if the object
+     *                has no children
+     * @param append  whether the objects are appended after the last child
+     */
+    private @NotNull Change insert(int parent, int sibling, boolean append) throws IOException {
+        SourceMap map = this.map;
+        // the top level objects are separated by an empty line, as they are when the whole file is written
+        int breaks = parent < 0 ? 2 : 1;
+        Change c;
+        if (sibling < 0) {
+            long end = this.lineEnd(map.start(parent));
+            c = new Change(end, end, readIndent(this.ch, map.start(parent), map.indent(parent)) + this.unit, breaks,
+                    true);
+        } else {
+            long at = append ? map.end(sibling) : map.start(sibling);
+            c = new Change(at, at, readIndent(this.ch, map.start(sibling), map.indent(sibling)), breaks, append);
+        }
+        this.changes.add(c);
+        return c;
+    }
+
+    /**
+     * Checks whether the lines of a recorded object hold an anchor, an alias or a merge key
+     */
+    private boolean isShared(int i) {
+        SourceMap map = this.map;
+        if (!map.hasAliases()) return false;
+        for (int j = i; j < i + map.size(i); j++) {
+            if (map.isAlias(j) || this.anchored.contains(map.node(j))) return true;
+            if (map.node(j) instanceof YamlObject o && o.getMerged().length > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether an object would be written with an anchor, an alias or a merge key, or holds one which would
+     */
+    private boolean isShared(@NotNull Yaml y) {
+        if (this.anchors != null && this.anchors.isShared(y)) return true;
+        if (!(y instanceof YamlObject o)) return false;
+        if (o.getMerged().length > 0) return true;
+        for (Yaml y1 : o.values) if (this.isShared(y1)) return true;
+        return false;
+    }
+
+    private void piece(byte kind, int index) {
+        if (this.pieces == this.kinds.length) {
+            this.kinds = Arrays.copyOf(this.kinds, this.pieces * 2);
+            this.indices = Arrays.copyOf(this.indices, this.pieces * 2);
+        }
+        this.kinds[this.pieces] = kind;
+        this.indices[this.pieces++] = index;
+    }
+
+    /**
+     * Finds the end of the line starting at the given position, before its line break
+     */
+    private long lineEnd(long start) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(256);
+        for (long pos = start; ; ) {
+            b.clear();
+            int n = this.ch.read(b, pos);
+            if (n < 0) return pos;
+            for (int k = 0; k < n; k++) {
+                if (b.get(k) != '\n') continue;
+                long end = pos + k;
+                return end > start && this.read(end - 1, 1)[0] == '\r' ? end - 1 : end;
+            }
+            pos += n;
+        }
+    }
+
+    /**
+     * Reads up to the given amount of bytes, less only at the end of the file
+     */
+    private byte @NotNull [] read(long pos, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining() && this.ch.read(b, pos + b.position()) >= 0) ;
+        return Arrays.copyOf(b.array(), b.position());
+    }
+
+    static @NotNull String readIndent(@NotNull FileChannel ch, long pos, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) if (ch.read(b, pos + b.position()) < 0) throw new EOFException();
+        return new String(b.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the amount of changes ending at or before the given position
+     */
+    private static int before(long @NotNull [] ends, long pos) {
+        int lo = 0, hi = ends.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] <= pos) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * A span of the file and the objects rendered to replace it
+     */
+    private static final class Change {
+        final long start;
+        final long end;
+        final String indent;
+        final int breaks;
+        final boolean append;
+        final StringBuilder text = new StringBuilder();
+        final SourceMap.Builder builder = new SourceMap.Builder();
+        int line;
+        @Nullable SourceMap spans;
+        int next;
+        private byte @Nullable [] bytes;
+
+        Change(long start, long end, @NotNull String indent, int breaks, boolean append) {
+            this.start = start;
+            this.end = end;
+            this.indent = indent;
+            this.breaks = breaks;
+            this.append = append;
+        }
+
+        /**
+         * Renders an object, separated from the text before it if appending or else from the text after it
+         */
+        void add(@NotNull Yaml y, @NotNull SourcePatch p) {
+            if (this.append) this.lineBreaks(p.newline);
+            this.line = YamlFile.render(y, this.indent, p.unit, p.newline, this.text, this.builder, null,
+                    this.line);
+            if (!this.append) this.lineBreaks(p.newline);
+        }
+
+        private void lineBreaks(@NotNull String newline) {
+            for (int k = 0; k < this.breaks; k++) this.text.append(newline);
+            this.line += this.breaks;
+        }
+
+        byte @NotNull [] bytes() {
+            if (this.bytes == null) this.bytes = this.text.toString().getBytes(StandardCharsets.UTF_8);
+            return this.bytes;
+        }
+    }
+}
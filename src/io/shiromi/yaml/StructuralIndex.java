@@ -0,0 +1,134 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * The positions of all structural characters of a text: line breaks, <code>:</code>, <code>"</code>,
+ * <code>#</code>, <code>[</code> and <code>]</code>, in the order they appear in.
+ * <p>
+ * The index is built in a first pass over the text, which the parser then walks instead of looking at every
+ * character itself. The first pass is done by a {@link Scanner}, which uses the vector api of
+ * <code>jdk.incubator.vector</code> to look at many characters at once if the system property
+ * <code>io.shiromi.yaml.simd</code> is <code>true</code> and the module is available, e.g. with
+ * <blockquote>
+ * <pre>{@code
+ *      java --add-modules jdk.incubator.vector -Dio.shiromi.yaml.simd=true ...
+ *     }</pre>
+ * </blockquote>
+ * Otherwise, nothing is indexed and the parser reads the text one character at a time.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlParser
+ * @since 1.8
+ */
+final class StructuralIndex {
+    static final byte NEWLINE = 1;
+    static final byte COLON = 2;
+    static final byte QUOTE = 4;
+    static final byte HASH = 8;
+    static final byte BRACKET = 16;
+
+    /**
+     * The scanner used, or <code>null</code> if texts are not indexed
+     */
+    static final Scanner SCANNER = scanner();
+
+    /**
+     * The size of the blocks the text is copied into for scanning
+     */
+    static final int BLOCK = 4096;
+
+    int[] positions = new int[64];
+    byte[] kinds = new byte[64];
+    int count;
+
+    private StructuralIndex() {
+    }
+
+    /**
+     * Builds the index of a text, if indexing is enabled
+     *
+     * @param text the text to index
+     * @return the index, or <code>null</code> if texts are not indexed
+     */
+    static StructuralIndex of(@NotNull CharSequence text) {
+        Scanner scanner = SCANNER;
+        if (scanner == null) return null;
+        StructuralIndex index = new StructuralIndex();
+        char[] block = new char[BLOCK];
+        int length = text.length();
+        for (int from = 0; from < length; from += BLOCK) {
+            int n = Math.min(BLOCK, length - from);
+            copy(text, from, block, n);
+            scanner.scan(block, n, from, index);
+        }
+        return index;
+    }
+
+    private static void copy(@NotNull CharSequence text, int from, char @NotNull [] block, int n) {
+        if (text instanceof String s) s.getChars(from, from + n, block, 0);
+        else if (text instanceof StringBuilder s) s.getChars(from, from + n, block, 0);
+        else if (text instanceof CharBuffer b) b.get(b.position() + from, block, 0, n);
+        else for (int i = 0; i < n; i++) block[i] = text.charAt(from + i);
+    }
+
+    /**
+     * Gets the kind of a character
+     *
+     * @return the kind, or <code>0</code> if the character is not structural
+     */
+    static byte kindOf(char c) {
+        return switch (c) {
+            case '\n' -> NEWLINE;
+            case ':' -> COLON;
+            case '"' -> QUOTE;
+            case '#' -> HASH;
+            case '[', ']' -> BRACKET;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Adds a structural character
+     *
+     * @param position the position of the character in the text
+     * @param kind     the kind of the character
+     */
+    void add(int position, byte kind) {
+        if (this.count == this.positions.length) {
+            this.positions = Arrays.copyOf(this.positions, this.count * 2);
+            this.kinds = Arrays.copyOf(this.kinds, this.count * 2);
+        }
+        this.positions[this.count] = position;
+        this.kinds[this.count++] = kind;
+    }
+
+    private static Scanner scanner() {
+        if (!Boolean.getBoolean("io.shiromi.yaml.simd")) return null;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return (Scanner) Class.forName("io.shiromi.yaml.VectorScanner").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the structural characters of a block of text
+     */
+    interface Scanner {
+        /**
+         * Adds the structural characters of a block to an index
+         *
+         * @param block  the characters of the block
+         * @param length the amount of characters in the block
+         * @param offset the position of the block in the text
+         * @param index  the index to add to
+         */
+        void scan(char @NotNull [] block, int length, int offset, @NotNull StructuralIndex index);
+    }
+}
@@ -0,0 +1,43 @@
+package io.shiromi.yaml;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Finds the structural characters of a text with the vector api, comparing as many characters at once as the vector
+ * registers of the machine hold. Only loaded by {@link StructuralIndex} if <code>jdk.incubator.vector</code> is
+ * available.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see StructuralIndex
+ * @since 1.8
+ */
+final class VectorScanner implements StructuralIndex.Scanner {
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public void scan(char @NotNull [] block, int length, int offset, @NotNull StructuralIndex index) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        for (; i < bound; i += SPECIES.length()) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, block, i);
+            VectorMask<Short> m = v.eq((short) '\n')
+                    .or(v.eq((short) ':'))
+                    .or(v.eq((short) '"'))
+                    .or(v.eq((short) '#'))
+                    .or(v.eq((short) '['))
+                    .or(v.eq((short) ']'));
+            for (long bits = m.toLong(); bits != 0; bits &= bits - 1) {
+                int j = i + Long.numberOfTrailingZeros(bits);
+                index.add(offset + j, StructuralIndex.kindOf(block[j]));
+            }
+        }
+        for (; i < length; i++) {
+            byte kind = StructuralIndex.kindOf(block[i]);
+            if (kind != 0) index.add(offset + i, kind);
+        }
+    }
+}
@@ -1,16 +1,25 @@
 package io.shiromi.yaml;
 
 import io.shiromi.yaml.exception.CannotCastToYamlArrayException;
+import io.shiromi.yaml.exception.YamlLimitExceededException;
+import io.shiromi.yaml.jfr.YamlEvent;
+import io.shiromi.yaml.jfr.YamlParseEvent;
+import io.shiromi.yaml.jfr.YamlStringifyEvent;
 import io.shiromi.yaml.util.*;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.util.Arrays;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A <em>Yaml</em> object used for reference and inheritance.
@@ -53,6 +62,74 @@ public abstract class Yaml {
     @Deprecated
     public abstract int size();
 
+    /**
+     * Estimates the heap retained by this object, including its name, its value and all of its children.
+     * <p>
+     * The estimate assumes a 64-bit JVM with compressed references, 12 byte object headers and 8 byte alignment, and
+     * strings of latin-1 characters taking 1 byte per character. Names shared with other objects, e.g. through a
+     * {@link YamlNamePool}, are counted for every object, so the estimate is an upper bound.
+     *
+     * @return the estimated size in bytes
+     * @see #estimateShallowBytes()
+     * @since 1.8
+     */
+    public long estimateRetainedBytes() {
+        return this.estimateShallowBytes();
+    }
+
+    /**
+     * Estimates the heap held by this object alone, which is the object itself, its name and its value, but not its
+     * children
+     *
+     * @return the estimated size in bytes
+     * @see #estimateRetainedBytes()
+     * @since 1.8
+     */
+    protected long estimateShallowBytes() {
+        return estimateObjectBytes(1, 0) + estimateBytes(this.name);
+    }
+
+    /**
+     * Estimates the size of an object
+     *
+     * @param references the amount of fields referring to other objects
+     * @param primitives the amount of bytes taken by primitive fields
+     * @return the estimated size in bytes, aligned to 8 bytes
+     * @since 1.8
+     */
+    protected static long estimateObjectBytes(int references, int primitives) {
+        return align(12L + 4L * references + primitives);
+    }
+
+    /**
+     * Estimates the size of an array of references, not including the objects referred to
+     *
+     * @param length the length of the array
+     * @return the estimated size in bytes, aligned to 8 bytes
+     * @since 1.8
+     */
+    protected static long estimateArrayBytes(int length) {
+        return align(16L + 4L * length);
+    }
+
+    /**
+     * Estimates the size of a string and its characters
+     *
+     * @param s the string, can be <code>null</code>
+     * @return the estimated size in bytes, <code>0</code> for <code>null</code>
+     * @since 1.8
+     */
+    protected static long estimateBytes(String s) {
+        if (s == null) return 0;
+        int perChar = 1;
+        for (int i = 0; i < s.length() && perChar == 1; i++) if (s.charAt(i) > 0xFF) perChar = 2;
+        return 24 + align(16L + (long) perChar * s.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7;
+    }
+
     /**
      * Returns a string representation of the object
      *
@@ -69,7 +146,11 @@ public abstract class Yaml {
      * @see #stringify(int)
      */
     public final @NotNull String stringify() {
-        return this.stringify(0) + '\n';
+        YamlStringifyEvent event = new YamlStringifyEvent();
+        event.begin();
+        String s = this.stringify(0) + '\n';
+        if (event.shouldCommit()) event.commit(null, YamlEvent.utf8Length(s), this);
+        return s;
     }
 
     /**
@@ -80,8 +161,11 @@ public abstract class Yaml {
      * @see #stringify()
      */
     public static @NotNull String stringify(Yaml @NotNull ... y) {
+        YamlStringifyEvent event = new YamlStringifyEvent();
+        event.begin();
         StringBuilder s = new StringBuilder();
-        for (Yaml y1 : y) s.append(y1.stringify());
+        for (Yaml y1 : y) s.append(y1.stringify(0)).append('\n');
+        if (event.shouldCommit()) event.commit(null, YamlEvent.utf8Length(s), y);
         return s.toString();
     }
 
@@ -100,9 +184,12 @@ public abstract class Yaml {
      *      Yaml[] yamlItems = Yaml.fromString(yamlString);
      *     }</pre>
      * </blockquote>
+     * Lines which cannot be parsed are skipped and have no item in the result, e.g. <code>c: 3.25</code>, as numbers
+     * are read with at most one decimal. Before 1.8 such lines resulted in <code>null</code> items. Content written
+     * back as a whole, e.g. by {@link YamlFile#create()}, does not contain these lines anymore.
      *
      * @param s the string to parse
-     * @return an array of the yaml objects created based on the string
+     * @return an array of the yaml objects created based on the string, without the lines which cannot be parsed
      * @see YamlArray#parse(String)
      * @see YamlBoolean#parse(String)
      * @see YamlNull#parse(String)
@@ -111,50 +198,61 @@ public abstract class Yaml {
      * @see YamlString#parse(String)
      */
     public static Yaml[] fromString(@NotNull String s) {
-        String[] lines = s.split("\\n");
-        Yaml[] items = new Yaml[0];
-
-        Pattern leading = Pattern.compile("^(?<leading>\\s*)");
-        Pattern group = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):$");
-
-        while (lines.length > 0) {
-            if (Pattern.matches("^\\s*#.+$", lines[0])) {
-                lines = shrink(lines, 1);
-                continue;
-            }
-            Matcher m1 = group.matcher(lines[0]);
-            if (m1.find()) {
-                Matcher m2 = leading.matcher(lines[0]);
-                int whitespaces = 0;
-                if (m2.find()) whitespaces = m2.group("leading").length();
-
+        return fromString(s, ParserLimits.getDefault(), null);
+    }
 
-                StringBuilder s1 = new StringBuilder(lines[0] + '\n');
+    /**
+     * Turns a string into yaml objects, reporting how the string was parsed to a listener
+     *
+     * @param s        the string to parse
+     * @param listener the listener to report to once the string is parsed, can be <code>null</code>
+     * @return an array of the yaml objects created based on the string
+     * @see #fromString(String)
+     * @see ParseStats
+     * @since 1.8
+     */
+    public static Yaml[] fromString(@NotNull String s, @Nullable ParseListener listener) {
+        return fromString(s, ParserLimits.getDefault(), listener);
+    }
 
-                int currentLevel = whitespaces;
-                for (int i = 1; i < lines.length; i++) {
-                    Matcher m3 = leading.matcher(lines[i]);
-                    if (m3.find()) currentLevel = m3.group("leading").length();
-                    if (currentLevel == whitespaces) break;
-                    s1.append(lines[i]).append('\n');
-                }
-                YamlObject o = YamlObject.parse(s1.substring(0, s1.length() - 1));
-                assert o != null;
-                items = extend(items, o);
-                lines = shrink(lines, o.absoluteSize() + 1);
-
-            } else {
-                String s1 = lines[0].trim();
-                Yaml y = YamlString.parse(s1);
-                if (y == null) y = YamlNumber.parse(s1);
-                if (y == null) y = YamlBoolean.parse(s1);
-                if (y == null) y = YamlNull.parse(s1);
-                if (y == null) y = YamlArray.parse(s1);
-                items = extend(items, y);
-                lines = shrink(lines, 1);
-            }
+    /**
+     * Turns a string into yaml objects, parsing it only within the given limits, e.g. if the string is uploaded by
+     * a user, and reporting how the string was parsed to a listener
+     *
+     * @param s        the string to parse
+     * @param limits   the limits to parse the string within
+     * @param listener the listener to report to once the string is parsed, can be <code>null</code>
+     * @return an array of the yaml objects created based on the string
+     * @throws YamlLimitExceededException if the string exceeds the limits
+     * @see #fromString(String)
+     * @see ParseStats
+     * @since 1.8
+     */
+    public static Yaml[] fromString(@NotNull String s, @NotNull ParserLimits limits,
+                                    @Nullable ParseListener listener) {
+        YamlParseEvent event = new YamlParseEvent();
+        event.begin();
+        ParseStats.Recorder stats = listener == null ? null : new ParseStats.Recorder();
+        Yaml[] y = new YamlParser(s, null).limits(limits).record(stats).parse();
+        if (stats != null) {
+            stats.bytes = YamlEvent.utf8Length(s);
+            stats.finish(listener);
         }
-        return items;
+        if (event.shouldCommit()) event.commit(null, YamlEvent.utf8Length(s), y);
+        return y;
+    }
+
+    /**
+     * Parses the text of a source into yaml objects, the text is parsed without being turned into a string first
+     *
+     * @param source the source to read
+     * @return an array of the yaml objects created based on the text
+     * @throws IOException if the source cannot be read or its text is not valid in its charset
+     * @see #fromString(String)
+     * @since 1.8
+     */
+    public static Yaml[] fromSource(@NotNull YamlSource source) throws IOException {
+        return source.parse(null);
     }
 
     /**
@@ -212,20 +310,6 @@ public abstract class Yaml {
         return toArray(this);
     }
 
-    private static Yaml @NotNull [] extend(Yaml @NotNull [] array, Yaml y) {
-        Yaml[] newArray = new Yaml[array.length + 1];
-        System.arraycopy(array, 0, newArray, 0, array.length);
-        newArray[array.length] = y;
-        return newArray;
-    }
-
-    private static String @NotNull [] shrink(String @NotNull [] array, int amount) {
-        if (amount > array.length) return new String[0];
-        String[] newArray = new String[array.length - amount];
-        System.arraycopy(array, amount, newArray, 0, array.length - amount);
-        return newArray;
-    }
-
     /**
      * Checks if the given object is a {@link YamlString}
      *
@@ -444,34 +528,62 @@ public abstract class Yaml {
         return a.equals(b);
     }
 
-    private static @NotNull String toString(@NotNull Class<? extends Yaml> cls, @NotNull Yaml y) {
-        StringBuilder s = new StringBuilder(cls.getSimpleName() + '[');
-        s.append("name: \"").append(y.name).append("\"");
-        Field[] fields = cls.getFields();
+    /**
+     * The public fields of a yaml type, except for the name, resolved once per class
+     */
+    private static final ClassValue<Accessor[]> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Accessor[] computeValue(@NotNull Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            List<Accessor> accessors = new ArrayList<>();
+            for (Field f : type.getFields()) {
+                if (f.getDeclaringClass() == Yaml.class || Modifier.isStatic(f.getModifiers())) continue;
+                Class<?> t = f.getType();
+                try {
+                    MethodHandle getter = lookup.unreflectGetter(f).asType(MethodType.methodType(Object.class, Yaml.class));
+                    accessors.add(new Accessor(f.getName() + ": ", getter, t.isArray() && !t.getComponentType().isPrimitive(),
+                            t == String.class || t == Character.class || t == char.class));
+                } catch (IllegalAccessException ignored) {
+                }
+            }
+            return accessors.toArray(new Accessor[0]);
+        }
+    };
+
+    /**
+     * The builder {@link #toString()} writes into, reused to not grow a new one for every call
+     */
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
 
-        int iMax = fields.length - 1;
-        if (iMax == 0) return s.append(']').toString();
+    private record Accessor(String label, MethodHandle getter, boolean array, boolean quoted) {
+    }
 
-        s.append(", ");
-        for (int i = 0; ; i++) {
+    private static void toString(@NotNull Yaml y, @NotNull StringBuilder s) {
+        s.append(y.getTypeName()).append("[name: \"").append(y.name).append('"');
+        for (Accessor a : ACCESSORS.get(y.getClass())) {
+            Object o;
             try {
-                Field f = fields[i];
-                Object o = f.get(y);
-                Class<?> type = f.getType();
-
-                s.append(f.getName()).append(": ");
-                if (type.isArray())
-                    s.append(Arrays.toString((Object[]) o));
-                else if (type == String.class || type == Character.class || type == char.class)
-                    s.append('"').append(o).append('"');
-                else
-                    s.append(o);
-            } catch (IllegalAccessException ignored) {
+                o = a.getter.invokeExact(y);
+            } catch (Throwable t) {
+                continue;
             }
-            if (i == iMax - 1)
-                return s.append(']').toString();
-            s.append(", ");
+
+            s.append(", ").append(a.label);
+            if (a.array && o != null) {
+                Object[] values = (Object[]) o;
+                s.append('[');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) s.append(", ");
+                    if (values[i] instanceof Yaml y1) toString(y1, s);
+                    else s.append(values[i]);
+                }
+                s.append(']');
+            } else if (a.quoted)
+                s.append('"').append(o).append('"');
+            else
+                s.append(o);
         }
+        s.append(']');
     }
 
     /**
@@ -481,7 +593,15 @@ public abstract class Yaml {
      */
     @Override
     public final @NotNull String toString() {
-        return toString(this.getClass(), this);
+        StringBuilder s = BUILDER.get();
+        int start = s.length();
+        try {
+            toString(this, s);
+            return s.substring(start);
+        } finally {
+            s.setLength(start);
+            if (start == 0 && s.capacity() > 1 << 16) BUILDER.remove();
+        }
     }
 
     /**
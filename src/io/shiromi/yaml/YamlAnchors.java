@@ -0,0 +1,188 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.YamlObject;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The anchors, aliases and merge keys a document is written with, so that objects shared by the document are read
+ * back as shared objects instead of copies.
+ * <p>
+ * An object is shared if it occurs more than once, a {@link YamlObject} also if it holds the very same children as
+ * another one, like an alias of another name is parsed into. The first occurrence is written with an anchor, e.g.
+ * <code>base: &amp;base</code>, every later one as an alias of it, e.g. <code>copy: *base</code>, as long as the
+ * alias would be parsed into the same object again. The objects a {@link YamlObject} merges are written as a merge
+ * key, e.g. <code>&lt;&lt;: [*base, *defaults]</code>, if all of them are anchored before it, otherwise their items
+ * are written into the object itself.
+ * <p>
+ * The objects have to be {@link #enter entered} and {@link #exit exited} in document order, the same way
+ * {@link #of(Yaml[])} went through them to find the shared ones.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#create()
+ * @since 1.8
+ */
+final class YamlAnchors {
+    private final Map<Object, Anchor> anchors = new IdentityHashMap<>();
+    private final Set<String> labels = new HashSet<>();
+    private boolean writing;
+
+    private YamlAnchors() {
+    }
+
+    /**
+     * Finds the objects of a document which are written as anchors and aliases
+     *
+     * @param roots the top level objects of the document
+     * @return the anchors, or <code>null</code> if the document does not share any object
+     */
+    static @Nullable YamlAnchors of(Yaml @NotNull [] roots) {
+        YamlAnchors a = new YamlAnchors();
+        for (Yaml y : roots) a.find(y);
+        if (a.labels.isEmpty()) return null;
+        for (Anchor x : a.anchors.values()) x.done = false;
+        a.writing = true;
+        return a;
+    }
+
+    private void find(@NotNull Yaml y) {
+        if (this.alias(y) != null) return;
+        this.enter(y);
+        if (y instanceof YamlObject o) for (Yaml y1 : this.children(o)) this.find(y1);
+        this.exit(y);
+    }
+
+    /**
+     * Gets the label of the anchor an object is written as an alias of
+     *
+     * @return the label, or <code>null</code> if the object is written as it is
+     */
+    @Nullable String alias(@NotNull Yaml y) {
+        Object key = key(y);
+        Anchor a = key == null ? null : this.anchors.get(key);
+        if (a == null || !a.done || !this.isAliasOf(y, a.node)) return null;
+        return this.label(a);
+    }
+
+    /**
+     * Gets the object an alias refers to
+     */
+    @NotNull Yaml target(@NotNull Yaml alias) {
+        Anchor a = this.anchors.get(key(alias));
+        assert a != null;
+        return a.node;
+    }
+
+    /**
+     * Checks whether an object is written with an anchor or as an alias
+     */
+    boolean isShared(@NotNull Yaml y) {
+        Object key = key(y);
+        Anchor a = key == null ? null : this.anchors.get(key);
+        return a != null && a.label != null;
+    }
+
+    /**
+     * Starts writing an object which is not an alias
+     *
+     * @return the label of the anchor to write the object with, or <code>null</code> if it is not anchored
+     */
+    @Nullable String enter(@NotNull Yaml y) {
+        Object key = key(y);
+        if (key == null) return null;
+        Anchor a = this.anchors.get(key);
+        if (a == null && !this.writing) this.anchors.put(key, a = new Anchor(y));
+        return a != null && a.node == y && !a.done ? a.label : null;
+    }
+
+    /**
+     * Ends writing an object, it can be referred to from now on
+     */
+    void exit(@NotNull Yaml y) {
+        Object key = key(y);
+        Anchor a = key == null ? null : this.anchors.get(key);
+        if (a != null && a.node == y) a.done = true;
+    }
+
+    /**
+     * Gets the value of the merge key an object is written with
+     *
+     * @return the aliases of the merged objects, or <code>null</code> if the object does not merge any or the items
+     * of the merged objects are written into it
+     */
+    @Nullable String merges(@NotNull YamlObject o) {
+        YamlObject[] merged = o.getMerged();
+        if (merged.length == 0) return null;
+        Anchor[] parents = new Anchor[merged.length];
+        for (int k = 0; k < merged.length; k++) {
+            Object key = key(merged[k]);
+            Anchor a = key == null ? null : this.anchors.get(key);
+            if (a == null || !a.done || a.node != merged[k]) return null;
+            parents[k] = a;
+        }
+        if (parents.length == 1) return "*" + this.label(parents[0]);
+        StringBuilder s = new StringBuilder("[");
+        for (Anchor a : parents) s.append(s.length() > 1 ? ", *" : "*").append(this.label(a));
+        return s.append(']').toString();
+    }
+
+    /**
+     * Gets the items an object is written with, which are only its own if its merged objects are written as a merge
+     * key
+     */
+    Yaml @NotNull [] children(@NotNull YamlObject o) {
+        return this.merges(o) == null ? o.getAll() : o.values;
+    }
+
+    /**
+     * Checks whether an alias of the given anchored object would be parsed into the object
+     */
+    private boolean isAliasOf(@NotNull Yaml y, @NotNull Yaml node) {
+        if (y == node) return true;
+        if (!(y instanceof YamlObject o) || o.getMerged().length > 0) return false;
+        // an alias of the same name is parsed into the anchored object itself
+        return !o.name.equals(node.name) || ((YamlObject) node).getMerged().length == 0;
+    }
+
+    private @Nullable String label(@NotNull Anchor a) {
+        if (a.label != null || this.writing) return a.label;
+        // a scalar is anchored on its own line, so it has to fit onto it
+        if (!(a.node instanceof YamlObject) && a.node.stringify(0).indexOf('\n') >= 0) return null;
+        StringBuilder s = new StringBuilder(a.node.name.length());
+        for (int i = 0; i < a.node.name.length(); i++) {
+            char c = a.node.name.charAt(i);
+            s.append(YamlParser.isLetter(c) || YamlParser.isDigit(c) ? c : '_');
+        }
+        String label = s.toString();
+        for (int n = 2; !this.labels.add(label); n++) label = s + "_" + n;
+        return a.label = label;
+    }
+
+    /**
+     * Gets what makes an object shared, its children for a {@link YamlObject} holding any, otherwise the object
+     * itself
+     *
+     * @return the key, or <code>null</code> if the name of the object cannot be written with an anchor or alias
+     */
+    private static @Nullable Object key(@NotNull Yaml y) {
+        if (y.name == null || !YamlParser.isMarkable(y.name)) return null;
+        return y instanceof YamlObject o && o.values.length > 0 ? o.values : y;
+    }
+
+    private static final class Anchor {
+        final @NotNull Yaml node;
+        @Nullable String label;
+        boolean done;
+
+        Anchor(@NotNull Yaml node) {
+            this.node = node;
+        }
+    }
+}
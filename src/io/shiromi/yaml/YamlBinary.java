@@ -0,0 +1,400 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of {@link Yaml} objects, which can be read without parsing any text.
+ * <p>
+ * The encoding starts with the magic bytes <code>YAMB</code> and a version byte, followed by a table of all names
+ * and the items themselves:
+ * <blockquote>
+ * <pre>{@code
+ *      file   := "YAMB" version:u8 names:varint name* items:varint item*
+ *      name   := length:varint utf8
+ *      item   := tag:u8 nameIndex:varint payload
+ *      tag    := STRING | NUMBER | BOOLEAN | NULL | ARRAY | OBJECT
+ *      STRING  payload := string
+ *      NUMBER  payload := 0 zigzag:varint | 1 floatBits:u32
+ *      BOOLEAN payload := 0 | 1
+ *      NULL    payload := (none)
+ *      ARRAY   payload := count:varint value*
+ *      OBJECT  payload := length:varint count:varint item*
+ *     }</pre>
+ * </blockquote>
+ * A name index of <code>0</code> stands for a <code>null</code> name, any other index <code>i</code> for the name at
+ * <code>i - 1</code> in the table. Strings are prefixed with their length in bytes plus one, <code>0</code> being a
+ * <code>null</code> string. The length of an object is the amount of bytes taken by its count and children, so readers
+ * can skip over it. Array values are tagged the same way as items, values of any other type than <code>String</code>,
+ * <code>Integer</code>, <code>Float</code>, <code>Double</code>, <code>Long</code> and <code>Boolean</code> are stored
+ * by their string representation.
+ * <p>
+ * For every item <code>y</code>, the item decoded from the encoding of <code>y</code> returns the same
+ * {@link Yaml#stringify()} as <code>y</code> does.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#writeBinary(java.io.File)
+ * @see YamlFile#readBinary(java.io.File)
+ * @since 1.8
+ */
+final class YamlBinary {
+    private static final byte[] MAGIC = {'Y', 'A', 'M', 'B'};
+    private static final byte VERSION = 1;
+
+    static final byte STRING = 1;
+    static final byte NUMBER = 2;
+    static final byte BOOLEAN = 3;
+    static final byte NULL = 4;
+    static final byte ARRAY = 5;
+    static final byte OBJECT = 6;
+
+    private static final byte VALUE_NULL = 0;
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_INT = 2;
+    private static final byte VALUE_FLOAT = 3;
+    private static final byte VALUE_DOUBLE = 4;
+    private static final byte VALUE_LONG = 5;
+    private static final byte VALUE_BOOLEAN = 6;
+
+    private YamlBinary() {
+    }
+
+    /**
+     * Encodes the given items
+     *
+     * @param items the items to encode
+     * @return the encoded items, including the name table
+     */
+    static byte @NotNull [] encode(Yaml @NotNull [] items) {
+        Encoder e = new Encoder();
+        e.varint(items.length);
+        for (Yaml y : items) e.item(y);
+
+        Encoder header = new Encoder();
+        header.bytes(MAGIC, 0, MAGIC.length);
+        header.u8(VERSION);
+        header.varint(e.names.size());
+        String[] names = new String[e.names.size()];
+        for (Map.Entry<String, Integer> entry : e.names.entrySet()) names[entry.getValue() - 1] = entry.getKey();
+        for (String name : names) header.string(name, false);
+
+        byte[] out = Arrays.copyOf(header.buf, header.size + e.size);
+        System.arraycopy(e.buf, 0, out, header.size, e.size);
+        return out;
+    }
+
+    /**
+     * Decodes items encoded by {@link #encode(Yaml[])}
+     *
+     * @param b      the bytes to decode
+     * @param offset the index of the first byte
+     * @param length the amount of bytes to decode
+     * @return the decoded items
+     * @throws IOException if the bytes are not a valid encoding
+     */
+    static Yaml @NotNull [] decode(byte @NotNull [] b, int offset, int length) throws IOException {
+        Decoder d = new Decoder(b, offset, offset + length);
+        for (byte m : MAGIC) if (d.u8() != m) throw new IOException("Not a binary yaml encoding");
+        int version = d.u8();
+        if (version != VERSION) throw new IOException("Unsupported binary yaml version: " + version);
+
+        String[] names = new String[d.count()];
+        YamlNamePool pool = YamlNamePool.getDefault();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = d.string(false);
+            if (pool != null) names[i] = pool.intern(names[i]);
+        }
+        d.names = names;
+
+        Yaml[] items = new Yaml[d.count()];
+        for (int i = 0; i < items.length; i++) items[i] = d.item();
+        if (d.pos != d.end) throw new IOException("Unexpected data after the last item");
+        return items;
+    }
+
+    static final class Encoder {
+        private final Map<String, Integer> names = new HashMap<>();
+        private byte[] buf = new byte[256];
+        private int size;
+
+        private void ensure(int n) {
+            if (this.size + n > this.buf.length) this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length * 2, this.size + n));
+        }
+
+        void u8(int b) {
+            this.ensure(1);
+            this.buf[this.size++] = (byte) b;
+        }
+
+        void bytes(byte[] b, int offset, int length) {
+            this.ensure(length);
+            System.arraycopy(b, offset, this.buf, this.size, length);
+            this.size += length;
+        }
+
+        void varint(long v) {
+            this.ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                this.buf[this.size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            this.buf[this.size++] = (byte) v;
+        }
+
+        void zigzag(long v) {
+            this.varint((v << 1) ^ (v >> 63));
+        }
+
+        void u32(int v) {
+            this.ensure(4);
+            this.buf[this.size++] = (byte) (v >>> 24);
+            this.buf[this.size++] = (byte) (v >>> 16);
+            this.buf[this.size++] = (byte) (v >>> 8);
+            this.buf[this.size++] = (byte) v;
+        }
+
+        void u64(long v) {
+            this.u32((int) (v >>> 32));
+            this.u32((int) v);
+        }
+
+        byte @NotNull [] toByteArray() {
+            return Arrays.copyOf(this.buf, this.size);
+        }
+
+        void string(@Nullable String s, boolean nullable) {
+            if (s == null) {
+                this.varint(0);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            this.varint(nullable ? b.length + 1L : b.length);
+            this.bytes(b, 0, b.length);
+        }
+
+        void name(@Nullable String name) {
+            if (name == null) {
+                this.varint(0);
+                return;
+            }
+            Integer i = this.names.get(name);
+            if (i == null) this.names.put(name, i = this.names.size() + 1);
+            this.varint(i);
+        }
+
+        void item(@NotNull Yaml y) {
+            if (y instanceof YamlString s) {
+                this.u8(STRING);
+                this.name(s.name);
+                this.string(s.value, true);
+            } else if (y instanceof YamlNumber n) {
+                this.u8(NUMBER);
+                this.name(n.name);
+                if (n.type.equals("Integer")) {
+                    this.u8(0);
+                    this.zigzag(n.size());
+                } else {
+                    this.u8(1);
+                    this.u32(Float.floatToRawIntBits((float) n.value));
+                }
+            } else if (y instanceof YamlBoolean b) {
+                this.u8(BOOLEAN);
+                this.name(b.name);
+                this.u8(b.value ? 1 : 0);
+            } else if (y instanceof YamlNull) {
+                this.u8(NULL);
+                this.name(y.name);
+            } else if (y instanceof YamlArray a) {
+                this.u8(ARRAY);
+                this.name(a.name);
+                this.varint(a.values.length);
+                for (Object o : a.values) this.value(o);
+            } else if (y instanceof YamlObject o) {
+                this.u8(OBJECT);
+                this.name(o.name);
+                int lengthAt = this.size;
+                this.varint(Integer.MAX_VALUE);
+                int from = this.size;
+                Yaml[] values = o.getAll();
+                this.varint(values.length);
+                for (Yaml y1 : values) this.item(y1);
+                this.fixLength(lengthAt, from);
+            } else throw new IllegalArgumentException("Cannot encode " + y.getTypeName());
+        }
+
+        /**
+         * Overwrites the 5 byte placeholder at <code>at</code> with the amount of bytes written since <code>from</code>
+         */
+        private void fixLength(int at, int from) {
+            int length = this.size - from;
+            for (int i = 0; i < 4; i++) this.buf[at + i] = (byte) (((length >>> (7 * i)) & 0x7F) | 0x80);
+            this.buf[at + 4] = (byte) (length >>> 28);
+        }
+
+        void value(@Nullable Object o) {
+            if (o == null) this.u8(VALUE_NULL);
+            else if (o instanceof String s) {
+                this.u8(VALUE_STRING);
+                this.string(s, false);
+            } else if (o instanceof Integer i) {
+                this.u8(VALUE_INT);
+                this.zigzag(i);
+            } else if (o instanceof Float f) {
+                this.u8(VALUE_FLOAT);
+                this.u32(Float.floatToRawIntBits(f));
+            } else if (o instanceof Double d) {
+                this.u8(VALUE_DOUBLE);
+                this.u64(Double.doubleToRawLongBits(d));
+            } else if (o instanceof Long l) {
+                this.u8(VALUE_LONG);
+                this.zigzag(l);
+            } else if (o instanceof Boolean b) {
+                this.u8(VALUE_BOOLEAN);
+                this.u8(b ? 1 : 0);
+            } else {
+                this.u8(VALUE_STRING);
+                this.string(String.valueOf(o), false);
+            }
+        }
+    }
+
+    static final class Decoder {
+        private final byte[] buf;
+        private final int end;
+        private int pos;
+        private String[] names;
+
+        Decoder(byte[] buf, int pos, int end) {
+            this.buf = buf;
+            this.pos = pos;
+            this.end = end;
+        }
+
+        int u8() throws IOException {
+            if (this.pos >= this.end) throw new IOException("Unexpected end of binary yaml data");
+            return this.buf[this.pos++] & 0xFF;
+        }
+
+        long varint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = this.u8();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Malformed varint at " + this.pos);
+        }
+
+        long zigzag() throws IOException {
+            long v = this.varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        int count() throws IOException {
+            long v = this.varint();
+            if (v < 0 || v > this.end - this.pos) throw new IOException("Invalid count " + v + " at " + this.pos);
+            return (int) v;
+        }
+
+        int u32() throws IOException {
+            return this.u8() << 24 | this.u8() << 16 | this.u8() << 8 | this.u8();
+        }
+
+        long u64() throws IOException {
+            return (long) this.u32() << 32 | (this.u32() & 0xFFFFFFFFL);
+        }
+
+        int position() {
+            return this.pos;
+        }
+
+        void skip(int n) throws IOException {
+            if (n < 0 || n > this.end - this.pos) throw new IOException("Unexpected end of binary yaml data");
+            this.pos += n;
+        }
+
+        @Nullable String string(boolean nullable) throws IOException {
+            // the length of a nullable string is stored plus one, so it can exceed the remaining bytes by one
+            long length = this.varint();
+            if (nullable) {
+                if (length == 0) return null;
+                length--;
+            }
+            if (length < 0 || length > this.end - this.pos) throw new IOException("Invalid string length at " + this.pos);
+            int n = (int) length;
+            String s = new String(this.buf, this.pos, n, StandardCharsets.UTF_8);
+            this.pos += n;
+            return s;
+        }
+
+        @Nullable String name() throws IOException {
+            long i = this.varint();
+            if (i == 0) return null;
+            if (i < 0 || i > this.names.length) throw new IOException("Invalid name index " + i + " at " + this.pos);
+            return this.names[(int) i - 1];
+        }
+
+        @NotNull Yaml item() throws IOException {
+            int tag = this.u8();
+            String name = this.name();
+            switch (tag) {
+                case STRING:
+                    return new YamlString(name, this.string(true));
+                case NUMBER:
+                    return this.u8() == 0
+                            ? new YamlNumber(name, (int) this.zigzag())
+                            : new YamlNumber(name, Float.intBitsToFloat(this.u32()));
+                case BOOLEAN:
+                    return new YamlBoolean(name, this.u8() != 0);
+                case NULL:
+                    return new YamlNull(name);
+                case ARRAY: {
+                    Object[] values = new Object[this.count()];
+                    for (int i = 0; i < values.length; i++) values[i] = this.value();
+                    return new YamlArray(name, values);
+                }
+                case OBJECT: {
+                    long length = this.varint();
+                    int until = this.pos + (int) length;
+                    Yaml[] values = new Yaml[this.count()];
+                    for (int i = 0; i < values.length; i++) values[i] = this.item();
+                    if (this.pos != until) throw new IOException("Object '" + name + "' has an invalid length");
+                    return new YamlObject(name, values);
+                }
+                default:
+                    throw new IOException("Unknown tag " + tag + " at " + (this.pos - 1));
+            }
+        }
+
+        @Nullable Object value() throws IOException {
+            int tag = this.u8();
+            switch (tag) {
+                case VALUE_NULL:
+                    return null;
+                case VALUE_STRING:
+                    return this.string(false);
+                case VALUE_INT:
+                    return (int) this.zigzag();
+                case VALUE_FLOAT:
+                    return Float.intBitsToFloat(this.u32());
+                case VALUE_DOUBLE:
+                    return Double.longBitsToDouble(this.u64());
+                case VALUE_LONG:
+                    return this.zigzag();
+                case VALUE_BOOLEAN:
+                    return this.u8() != 0;
+                default:
+                    throw new IOException("Unknown value tag " + tag + " at " + (this.pos - 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshots of parsed files, stored next to the source or in a cache directory.
+ * <p>
+ * A snapshot holds the {@link YamlBinary binary encoding} of the content and the spans of its objects. It is keyed
+ * by the size, the last modification time and a CRC32C checksum of the source, a snapshot whose key does not match
+ * the source anymore is ignored and written again after the source was parsed.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#readCached(File, File)
+ * @since 1.8
+ */
+final class YamlCache {
+    private static final byte[] MAGIC = {'Y', 'A', 'M', 'C'};
+    private static final byte VERSION = 1;
+
+    private YamlCache() {
+    }
+
+    /**
+     * Gets the snapshot file of a source file
+     *
+     * @param source    the source file
+     * @param directory the cache directory, if <code>null</code> the snapshot is stored next to the source
+     * @return the snapshot file
+     */
+    static @NotNull File snapshotOf(@NotNull File source, @Nullable File directory) {
+        if (directory == null)
+            return new File(source.getAbsoluteFile().getParentFile(), '.' + source.getName() + ".cache");
+        String id = Long.toHexString(SourceMap.hash(source.getAbsolutePath()));
+        return new File(directory, source.getName() + '.' + id + ".cache");
+    }
+
+    /**
+     * Computes the checksum the snapshots are keyed by
+     */
+    static long checksum(byte @NotNull [] bytes) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Loads a snapshot, if it matches the source
+     *
+     * @param snapshot the snapshot file
+     * @param size     the size of the source
+     * @param modified the last modification time of the source
+     * @param checksum the checksum of the source
+     * @return the content and spans of the source, or <code>null</code> if there is no matching snapshot
+     */
+    static @Nullable SourceMap load(@NotNull File snapshot, long size, long modified, long checksum) {
+        byte[] b;
+        try {
+            b = Files.readAllBytes(snapshot.toPath());
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            YamlBinary.Decoder d = new YamlBinary.Decoder(b, 0, b.length);
+            for (byte m : MAGIC) if (d.u8() != m) return null;
+            if (d.u8() != VERSION) return null;
+            if (d.u64() != size || d.u64() != modified || d.u64() != checksum) return null;
+
+            int length = d.count();
+            int from = d.position();
+            d.skip(length);
+            Yaml[] content = YamlBinary.decode(b, from, length);
+            return SourceMap.read(d, content);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot, any errors are ignored as the snapshot is only an optimization
+     *
+     * @param snapshot the snapshot file
+     * @param content  the parsed content of the source
+     * @param spans    the spans of the content
+     * @param size     the size of the source
+     * @param modified the last modification time of the source
+     * @param checksum the checksum of the source
+     */
+    static void store(@NotNull File snapshot, Yaml @NotNull [] content, @NotNull SourceMap spans, long size,
+                      long modified, long checksum) {
+        YamlBinary.Encoder e = new YamlBinary.Encoder();
+        e.bytes(MAGIC, 0, MAGIC.length);
+        e.u8(VERSION);
+        e.u64(size);
+        e.u64(modified);
+        e.u64(checksum);
+        byte[] encoded = YamlBinary.encode(content);
+        e.varint(encoded.length);
+        e.bytes(encoded, 0, encoded.length);
+        spans.write(e);
+
+        try {
+            Path target = snapshot.toPath();
+            if (target.getParent() != null) Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), snapshot.getName(), ".tmp");
+            try {
+                Files.write(tmp, e.toByteArray());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e1) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package io.shiromi.yaml;
 
+import io.shiromi.yaml.exception.YamlHeapBudgetExceededException;
+import io.shiromi.yaml.jfr.YamlFileReadEvent;
+import io.shiromi.yaml.jfr.YamlFileWriteEvent;
 import io.shiromi.yaml.util.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * A file object containing Yaml objects
@@ -19,6 +34,11 @@ public final class YamlFile {
     private final String name;
 
     private Yaml[] content = new Yaml[0];
+    private @Nullable SourceMap sourceMap;
+    private boolean lazy;
+
+    @Nullable YamlHeapBudget budget;
+    long charged;
 
     /**
      * Creates a new instance from a file
@@ -64,6 +84,7 @@ public final class YamlFile {
      * @see #write(String)
      */
     public YamlFile write(Yaml item) {
+        this.load();
         Yaml[] newContent = new Yaml[this.itemCount() + 1];
         System.arraycopy(this.content, 0, newContent, 0, this.itemCount());
         newContent[this.itemCount()] = item;
@@ -107,27 +128,246 @@ public final class YamlFile {
 
     private @NotNull String createStringContent() {
         StringBuilder s = new StringBuilder();
-        for (Yaml y : this.content) s.append(y.stringify()).append('\n');
+        for (Yaml y : this.content()) s.append(y.stringify()).append('\n');
         return s.toString();
     }
 
     /**
-     * Creates a new file and writes the content to it
+     * Gets the content, parsing the file again if the content is not kept
+     */
+    private Yaml @NotNull [] content() {
+        if (!this.lazy) return this.content;
+        Path p = this.file.toPath();
+        try {
+            YamlSource s = YamlSource.of(Files.newInputStream(p));
+            return (YamlSource.isGzip(p) ? YamlSource.gzip(s) : s).parse(null);
+        } catch (IOException e) {
+            System.err.printf("File %s either does not exist or cannot be opened\n", this.file);
+            return new Yaml[0];
+        }
+    }
+
+    /**
+     * Keeps the content from now on, if it is not kept yet
+     */
+    private void load() {
+        if (!this.lazy) return;
+        this.content = this.content();
+        this.lazy = false;
+    }
+
+    /**
+     * Creates a new file and writes the content to it.
+     * <p>
+     * If the file was read or written by this instance before and has not been modified by anything else since, only
+     * the objects which were changed are written. An object whose text keeps its length is overwritten in place,
+     * otherwise the rest of the file after it is moved by channel transfers, without being encoded again.
+     * Objects keep the indentation and line breaks of the file. Children which were replaced, added or removed are
+     * written on their own, and so are items replaced in, added to or removed from the file itself. Only a
+     * {@link YamlObject} whose remaining children were reordered is written as a whole, and the whole file is written
+     * if its remaining items were reordered.
+     * Objects shared by the file are written with anchors and aliases, e.g. <code>base: &amp;base</code> and
+     * <code>copy: *base</code>, and merged objects with merge keys, e.g. <code>&lt;&lt;: *base</code>, as far as
+     * they are anchored before. A file is written as a whole if a change would rewrite or remove any anchor, alias or
+     * merge key of it.
+     * <p>
+     * Lines of the file which could not be parsed are not part of the content, see {@link Yaml#fromString(String)}.
+     * They are kept as long as the object holding them is not written as a whole, and are removed when the whole
+     * file is.
+     * <p>
+     * A file whose name ends with <code>.gz</code> is always written as a whole, compressed with <code>gzip</code>
+     * while each item is written, without the text of the whole file being held in memory.
      *
      * @return whether the file could be created or written to
      */
     public boolean create() {
+        long start = System.nanoTime();
+        YamlFileWriteEvent event = new YamlFileWriteEvent();
+        event.begin();
+        boolean created = this.createFile();
+        if (!created) return false;
+        if (event.shouldCommit()) event.commit(this.file.getPath(), this.file.length(), this.content);
+        YamlMetrics metrics = YamlMetrics.get();
+        if (metrics != null) metrics.written(System.nanoTime() - start);
+        return true;
+    }
+
+    private boolean createFile() {
+        this.load();
         try {
+            if (this.sourceMap != null && this.patch()) return true;
             if (!this.file.exists()) Files.createDirectories(Paths.get(this.getPath()));
-            BufferedWriter writer = new BufferedWriter(new FileWriter(this.file));
-            writer.write(this.createStringContent());
-            writer.close();
+            if (YamlSource.isGzip(this.file.toPath())) {
+                this.createGzip();
+                return true;
+            }
+
+            SourceMap.Builder spans = new SourceMap.Builder();
+            byte[] bytes = this.render(spans);
+            Files.write(this.file.toPath(), bytes);
+            this.record(spans.build(bytes, 0));
         } catch (IOException e) {
             return false;
         }
         return true;
     }
 
+    private void createGzip() throws IOException {
+        this.writeGzip(Files.newOutputStream(this.file.toPath()));
+        this.sourceMap = null;
+    }
+
+    /**
+     * Writes the content compressed with <code>gzip</code> one item at a time, closing the stream
+     */
+    private void writeGzip(@NotNull OutputStream out) throws IOException {
+        YamlAnchors anchors = YamlAnchors.of(this.content);
+        StringBuilder s = new StringBuilder();
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(out, 65536), StandardCharsets.UTF_8)) {
+            for (Yaml y : this.content) {
+                s.setLength(0);
+                render(y, "", "\t", "\n", s, null, anchors, 0);
+                w.append(s).write("\n\n");
+            }
+        }
+    }
+
+    /**
+     * Writes only the changed objects to the file
+     *
+     * @return whether the file could be patched, if not the whole file has to be written
+     */
+    private boolean patch() throws IOException {
+        SourceMap map = this.sourceMap;
+        assert map != null;
+        Path path = this.file.toPath();
+        if (!Files.isRegularFile(path) || Files.size(path) != map.fileSize || this.file.lastModified() != map.fileModified)
+            return false;
+
+        SourceMap updated;
+        try (FileChannel ch = FileChannel.open(path, READ, WRITE)) {
+            SourcePatch changes = SourcePatch.of(map, ch, this.content);
+            if (changes == null) return false;
+            if (changes.isEmpty()) return true;
+            this.apply(ch, changes.starts(), changes.ends(), changes.texts());
+            updated = changes.spans();
+        }
+        this.record(updated);
+        return true;
+    }
+
+    /**
+     * Writes the texts over the given spans, the spans have to be sorted and must not overlap
+     */
+    private void apply(FileChannel ch, long[] starts, long[] ends, byte[][] texts) throws IOException {
+        int n = texts.length, k = 0;
+        while (k < n && texts[k].length == ends[k] - starts[k]) {
+            write(ch, texts[k], starts[k]);
+            k++;
+        }
+        if (k == n) return;
+
+        long size = ch.size(), tail = ends[k];
+        Path tmp = Files.createTempFile(this.file.getAbsoluteFile().getParentFile().toPath(), this.name, ".tmp");
+        try (FileChannel t = FileChannel.open(tmp, READ, WRITE, DELETE_ON_CLOSE)) {
+            for (long done = 0; done < size - tail; ) {
+                long moved = ch.transferTo(tail + done, size - tail - done, t);
+                if (moved <= 0) throw new EOFException();
+                done += moved;
+            }
+
+            long pos = starts[k] + write(ch, texts[k], starts[k]);
+            long cursor = tail;
+            for (int j = k + 1; j <= n; j++) {
+                long count = (j < n ? starts[j] : size) - cursor;
+                t.position(cursor - tail);
+                for (long done = 0; done < count; ) {
+                    long moved = ch.transferFrom(t, pos + done, count - done);
+                    if (moved <= 0) throw new EOFException();
+                    done += moved;
+                }
+                pos += count;
+                if (j < n) {
+                    pos += write(ch, texts[j], pos);
+                    cursor = ends[j];
+                }
+            }
+            ch.truncate(pos);
+        }
+    }
+
+    private static int write(FileChannel ch, byte[] bytes, long pos) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        while (b.hasRemaining()) ch.write(b, pos + b.position());
+        return bytes.length;
+    }
+
+    /**
+     * Renders the whole content, recording the span of each object
+     */
+    private byte @NotNull [] render(SourceMap.@NotNull Builder spans) {
+        StringBuilder s = new StringBuilder();
+        YamlAnchors anchors = YamlAnchors.of(this.content);
+        int line = 0;
+        for (Yaml y : this.content) {
+            line = render(y, "", "\t", "\n", s, spans, anchors, line) + 2;
+            s.append("\n\n");
+        }
+        return s.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an object the same way {@link Yaml#stringify(int)} does, but with the given indentation and line breaks,
+     * and with the anchors, aliases and merge keys of shared objects
+     *
+     * @param anchors the anchors of the document, <code>null</code> to write shared objects as copies
+     * @return the last line written
+     */
+    static int render(Yaml y, String indent, String unit, String newline, @NotNull StringBuilder s,
+                      SourceMap.@Nullable Builder spans, @Nullable YamlAnchors anchors, int line) {
+        int index = spans == null ? -1 : spans.begin(line, indent.length());
+        s.append(indent);
+        String alias = anchors == null ? null : anchors.alias(y);
+        if (alias != null) {
+            s.append(y.name).append(": *").append(alias);
+            if (spans != null) {
+                spans.end(index, y, line);
+                spans.alias(index, anchors.target(y));
+            }
+            return line;
+        }
+        String anchor = anchors == null ? null : anchors.enter(y);
+        if (y instanceof YamlObject o) {
+            s.append(o.name).append(':');
+            if (anchor != null) s.append(" &").append(anchor);
+            String inner = indent + unit;
+            String merges = anchors == null ? null : anchors.merges(o);
+            if (merges != null) {
+                s.append(newline).append(inner).append("<<: ").append(merges);
+                if (spans != null) spans.merged();
+                line++;
+            }
+            for (Yaml y1 : anchors == null ? o.getAll() : anchors.children(o)) {
+                s.append(newline);
+                line = render(y1, inner, unit, newline, s, spans, anchors, line + 1);
+            }
+        } else {
+            String s1 = y.stringify(0);
+            if (anchor != null) s1 = y.name + ": &" + anchor + s1.substring(y.name.length() + 1);
+            for (int i = 0; i < s1.length(); i++) if (s1.charAt(i) == '\n') line++;
+            s.append(newline.equals("\n") ? s1 : s1.replace("\n", newline));
+        }
+        if (anchors != null) anchors.exit(y);
+        if (spans != null) spans.end(index, y, line);
+        return line;
+    }
+
+    private void record(@NotNull SourceMap map) {
+        map.fileSize = this.file.length();
+        map.fileModified = this.file.lastModified();
+        this.sourceMap = map;
+    }
+
     /**
      * Reads the file given and parses it into a YamlFile
      *
@@ -141,24 +381,486 @@ public final class YamlFile {
     }
 
     /**
-     * Reads the file passed in as an argument and parsed it into a YamlFile
+     * Reads the file passed in as an argument and parsed it into a YamlFile, the position of each object in the file
+     * is remembered for {@link #create()}. A file ending with <code>.yaml.gz</code> is decompressed and parsed while
+     * it is read
      *
      * @param f the file to read from
      * @return a new YamlFile with the contents parsed to a Yaml[]
+     * @see YamlSource#gzip(YamlSource)
      */
     public static @Nullable YamlFile read(@NotNull File f) {
+        if (!f.getName().endsWith(".yaml") && !f.getName().endsWith(".yaml.gz")) return null;
+        try {
+            return timed(f, () -> parse(f.toPath()));
+        } catch (IOException e) {
+            System.err.printf("File %s either does not exist or cannot be opened\n", f);
+            return null;
+        }
+    }
+
+    /**
+     * Reads and parses a file, decompressing it while it is parsed if its name ends with <code>.gz</code>
+     */
+    private static @NotNull YamlFile parse(@NotNull Path p) throws IOException {
+        YamlFile file = new YamlFile(p.toFile());
+        if (YamlSource.isGzip(p)) file.content = YamlSource.of(p).parse(null);
+        else file.parse(Files.readAllBytes(p));
+        return file;
+    }
+
+    /**
+     * Reads a file like {@link #read(File)}, reporting how the file was read and parsed to a listener
+     *
+     * @param f        the file to read from
+     * @param listener the listener to report to once the file is parsed, can be <code>null</code>
+     * @return a new YamlFile with the contents parsed to a Yaml[], or <code>null</code> if the file cannot be read
+     * @see ParseStats
+     * @since 1.8
+     */
+    public static @Nullable YamlFile read(@NotNull File f, @Nullable ParseListener listener) {
+        if (listener == null) return read(f);
+        boolean gzip = f.getName().endsWith(".yaml.gz");
+        if (!gzip && !f.getName().endsWith(".yaml")) return null;
+        ParseStats.Recorder stats = new ParseStats.Recorder();
+        YamlFile file;
+        try {
+            file = timed(f, () -> {
+                YamlFile read = new YamlFile(f);
+                if (gzip) {
+                    try (Reader r = YamlSource.of(f.toPath()).reader()) {
+                        read.content = new YamlParser(r, null).record(stats).parse();
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                    stats.bytes = Files.size(f.toPath());
+                } else {
+                    long t = System.nanoTime();
+                    byte[] bytes = Files.readAllBytes(f.toPath());
+                    stats.add(ParseStats.Phase.READ, t);
+                    stats.bytes = bytes.length;
+                    read.parse(bytes, null, stats);
+                }
+                return read;
+            });
+        } catch (IOException e) {
+            System.err.printf("File %s either does not exist or cannot be opened\n", f);
+            return null;
+        }
+        stats.finish(listener);
+        return file;
+    }
+
+    /**
+     * Reads the file passed in as an argument, using a snapshot of the parsed content if there is one.
+     * <p>
+     * The snapshot is stored in the cache directory, or next to the file as <code>.&lt;name&gt;.yaml.cache</code> if
+     * no directory is given. It is used only if the size, the last modification time and the checksum of the file are
+     * still the same as when the snapshot was taken, otherwise the file is parsed and the snapshot is replaced.
+     *
+     * @param f              the file to read from
+     * @param cacheDirectory the directory to store the snapshot in, can be <code>null</code>
+     * @return a new YamlFile with the contents parsed to a Yaml[]
+     * @see #read(File)
+     * @since 1.8
+     */
+    public static @Nullable YamlFile readCached(@NotNull File f, @Nullable File cacheDirectory) {
+        if (f.getName().endsWith(".yaml.gz")) return read(f);
         if (!f.getName().endsWith(".yaml")) return null;
-        StringBuilder s = new StringBuilder();
         try {
-            BufferedReader r = new BufferedReader(new FileReader(f));
-            String s1;
-            while ((s1 = r.readLine()) != null) s.append(s1).append('\n');
-            r.close();
+            return timed(f, () -> {
+                long modified = f.lastModified();
+                byte[] bytes = Files.readAllBytes(f.toPath());
+                File snapshot = YamlCache.snapshotOf(f, cacheDirectory);
+                long checksum = YamlCache.checksum(bytes);
+
+                YamlFile file = new YamlFile(f);
+                SourceMap cached = YamlCache.load(snapshot, bytes.length, modified, checksum);
+                YamlMetrics metrics = YamlMetrics.get();
+                if (metrics != null) metrics.cache(cached != null);
+                if (cached != null) {
+                    file.content = cached.roots();
+                    file.sourceMap = cached;
+                    return file;
+                }
+                file.parse(bytes);
+                if (file.sourceMap != null && file.sourceMap.fileModified == modified
+                        && file.sourceMap.fileSize == bytes.length && !file.sourceMap.hasAliases())
+                    YamlCache.store(snapshot, file.content, file.sourceMap, bytes.length, modified, checksum);
+                return file;
+            });
+        } catch (IOException e) {
+            System.err.printf("File %s either does not exist or cannot be opened\n", f);
+            return null;
+        }
+    }
+
+    /**
+     * Reads all files of a directory matching a glob pattern, stopping at the first file which cannot be read
+     *
+     * @param dir  the directory to read from
+     * @param glob the pattern the paths of the files relative to the directory have to match
+     * @return the files read, by their path
+     * @throws IOException if the directory or any of the files cannot be read
+     * @see #readAll(Path, String, int, Map)
+     * @since 1.8
+     */
+    public static @NotNull Map<Path, YamlFile> readAll(@NotNull Path dir, @NotNull String glob) throws IOException {
+        return readAll(dir, glob, Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * Reads all files of a directory and its subdirectories matching a glob pattern, e.g.
+     * <blockquote>
+     * <pre>{@code
+     *      Map<Path, IOException> errors = new HashMap<>();
+     *      Map<Path, YamlFile> files = YamlFile.readAll(Path.of("config"), "**.yaml", 16, errors);
+     *     }</pre>
+     * </blockquote>
+     * The pattern is matched against the path relative to the directory, so <code>*.yaml</code> only matches the files
+     * of the directory itself while <code>**.yaml</code> matches those of all subdirectories as well. The files are read
+     * and parsed on a pool of at most <code>concurrency</code> threads, which is shut down before this returns. Files
+     * whose name ends with <code>.gz</code> are decompressed while they are parsed, like {@link #read(File)} does.
+     * <p>
+     * If no map for errors is given, reading stops at the first file which cannot be read or parsed, and the error is
+     * thrown. Otherwise the errors are put into the map and all other files are still read.
+     *
+     * @param dir         the directory to read from
+     * @param glob        the pattern the paths of the files relative to the directory have to match
+     * @param concurrency the maximum number of files read at the same time
+     * @param errors      the map to put the errors of files which cannot be read into, can be <code>null</code>
+     * @return the files read, ordered by their path
+     * @throws IOException if the directory cannot be read, or if no map for errors is given and any of the files
+     *                     cannot be read
+     * @see #readAll(Path, String)
+     * @since 1.8
+     */
+    public static @NotNull Map<Path, YamlFile> readAll(@NotNull Path dir, @NotNull String glob, int concurrency,
+                                                       @Nullable Map<Path, IOException> errors) throws IOException {
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency has to be at least 1: " + concurrency);
+        PathMatcher matcher = dir.getFileSystem().getPathMatcher("glob:" + glob);
+        List<Path> paths;
+        try (Stream<Path> s = Files.walk(dir)) {
+            paths = s.filter(p -> Files.isRegularFile(p) && matcher.matches(dir.relativize(p))).toList();
+        }
+
+        Map<Path, YamlFile> files = new TreeMap<>();
+        if (paths.isEmpty()) return files;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(concurrency, paths.size()), r -> {
+            Thread t = new Thread(r, "YamlFile reader");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            CompletionService<YamlFile> reads = new ExecutorCompletionService<>(pool);
+            Map<Future<YamlFile>, Path> pending = new HashMap<>();
+            for (Path p : paths) pending.put(reads.submit(() -> load(p)), p);
+
+            for (int i = 0; i < paths.size(); i++) {
+                Future<YamlFile> f;
+                try {
+                    f = reads.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading " + dir);
+                }
+                Path p = pending.get(f);
+                try {
+                    files.put(p, f.get());
+                } catch (ExecutionException | InterruptedException e) {
+                    IOException error = e.getCause() instanceof IOException io ? io
+                            : new IOException("Cannot parse " + p, e.getCause());
+                    if (errors == null) throw error;
+                    errors.put(p, error);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return files;
+    }
+
+    /**
+     * Reads and parses a file like {@link #read(File)}, throwing any errors instead of printing them
+     */
+    private static @NotNull YamlFile load(@NotNull Path p) throws IOException {
+        return timed(p.toFile(), () -> parse(p));
+    }
+
+    /**
+     * Reads a file, charging the size of its content to a budget. If the content does not fit into the budget, the
+     * file either cannot be read or its content is not kept, depending on the {@link YamlHeapBudget.Mode mode} of the
+     * budget. A file whose content is kept is charged to the budget until it is
+     * {@link YamlHeapBudget#release(YamlFile) released}
+     *
+     * @param f      the file to read from
+     * @param budget the budget to charge the content to
+     * @return a new YamlFile with the contents parsed to a Yaml[], or <code>null</code> if the file cannot be read
+     * @throws YamlHeapBudgetExceededException if the content does not fit into the budget and its mode is
+     *                                         {@link YamlHeapBudget.Mode#ABORT}
+     * @see #isLazy()
+     * @since 1.8
+     */
+    public static @Nullable YamlFile readWithin(@NotNull File f, @NotNull YamlHeapBudget budget)
+            throws YamlHeapBudgetExceededException {
+        boolean gzip = f.getName().endsWith(".yaml.gz");
+        if (!gzip && !f.getName().endsWith(".yaml")) return null;
+        try {
+            return timed(f, () -> {
+                YamlFile file = new YamlFile(f);
+                try {
+                    if (gzip) {
+                        try (Reader r = YamlSource.of(f.toPath()).reader()) {
+                            YamlParser parser = new YamlParser(r, null).budget(budget);
+                            file.content = parser.parse();
+                            file.charged = parser.charged();
+                        } catch (UncheckedIOException e) {
+                            throw e.getCause();
+                        }
+                    } else file.parse(Files.readAllBytes(f.toPath()), budget);
+                } catch (YamlHeapBudget.Exceeded e) {
+                    if (budget.mode == YamlHeapBudget.Mode.ABORT) throw e;
+                    file.content = new Yaml[0];
+                    file.sourceMap = null;
+                    file.lazy = true;
+                    return file;
+                }
+                file.budget = budget;
+                return file;
+            });
         } catch (IOException e) {
             System.err.printf("File %s either does not exist or cannot be opened\n", f);
             return null;
+        } catch (YamlHeapBudget.Exceeded e) {
+            throw new YamlHeapBudgetExceededException("The content of " + f + " does not fit into " + budget);
         }
-        return new YamlFile(f).write(s.toString());
+    }
+
+    /**
+     * Reads a file with the given loader, the only place a read is recorded: the event of the read is committed if
+     * it is recorded, and the file is counted if metrics are collected. A read which fails is neither recorded nor
+     * counted
+     *
+     * @param f      the file which is read
+     * @param loader reads and parses the file
+     * @return the file returned by the loader
+     * @throws IOException if the loader cannot read the file
+     */
+    private static @NotNull YamlFile timed(@NotNull File f, @NotNull Loader loader) throws IOException {
+        long start = System.nanoTime();
+        YamlFileReadEvent event = new YamlFileReadEvent();
+        event.begin();
+        YamlFile file = loader.load();
+        if (event.shouldCommit()) event.commit(f.getPath(), f.length(), file.lazy ? null : file.content);
+        YamlMetrics metrics = YamlMetrics.get();
+        if (metrics != null) metrics.read(f, file, System.nanoTime() - start);
+        return file;
+    }
+
+    /**
+     * Reads and parses a file for {@link #timed(File, Loader)}
+     */
+    @FunctionalInterface
+    private interface Loader {
+        @NotNull YamlFile load() throws IOException;
+    }
+
+    private void parse(byte @NotNull [] bytes) {
+        this.parse(bytes, null);
+    }
+
+    private void parse(byte @NotNull [] bytes, @Nullable YamlHeapBudget budget) {
+        this.parse(bytes, budget, null);
+    }
+
+    private void parse(byte @NotNull [] bytes, @Nullable YamlHeapBudget budget, @Nullable ParseStats.Recorder stats) {
+        SourceMap.Builder spans = new SourceMap.Builder();
+        long t = stats == null ? 0 : System.nanoTime();
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (stats != null) stats.add(ParseStats.Phase.READ, t);
+        YamlParser parser = new YamlParser(text, spans).budget(budget).record(stats);
+        this.content = parser.parse();
+        this.charged = parser.charged();
+        this.record(spans.build(bytes, 0));
+    }
+
+    /**
+     * Watches this file for changes, with a debounce delay of 100 milliseconds
+     *
+     * @param listener the listener to notify with the newly parsed file
+     * @return the watch, which stops watching when closed
+     * @throws IOException if the directory of this file cannot be watched
+     * @see #watch(long, ChangeListener)
+     * @since 1.8
+     */
+    public @NotNull Watch watch(@NotNull ChangeListener listener) throws IOException {
+        return this.watch(100, listener);
+    }
+
+    /**
+     * Watches this file for changes, e.g.
+     * <blockquote>
+     * <pre>{@code
+     *      YamlFile.Watch w = file.watch(250, f -> config = f.getObject("config"));
+     *      ...
+     *      w.close();
+     *     }</pre>
+     * </blockquote>
+     * Bursts of changes, like an editor writing a file in several steps, are merged: the file is parsed again once it
+     * was not changed for the debounce delay. Parsing and notifying the listener happens on a shared background
+     * thread, the listener is given a new instance and this instance stays unchanged. Changes which leave the size and
+     * the last modification time of the file the same are not reported, neither is deleting the file.
+     * <p>
+     * All files are watched by one shared thread, so watching thousands of files needs no more threads.
+     *
+     * @param debounce the delay in milliseconds without any further change before the file is parsed again
+     * @param listener the listener to notify with the newly parsed file
+     * @return the watch, which stops watching when closed
+     * @throws IOException if the directory of this file cannot be watched
+     * @see #watch(ChangeListener)
+     * @since 1.8
+     */
+    public @NotNull Watch watch(long debounce, @NotNull ChangeListener listener) throws IOException {
+        if (debounce < 0) throw new IllegalArgumentException("Negative debounce delay: " + debounce);
+        return YamlWatcher.get().watch(this.file, debounce, listener);
+    }
+
+    /**
+     * Reads a file without blocking the calling thread, parsing it on the common pool
+     *
+     * @param path the file to read from
+     * @return the future completed with the file, or exceptionally if it cannot be read
+     * @see #readAsync(Path, Executor)
+     * @since 1.8
+     */
+    public static @NotNull CompletableFuture<YamlFile> readAsync(@NotNull Path path) {
+        return readAsync(path, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Reads a file without blocking the calling thread, e.g.
+     * <blockquote>
+     * <pre>{@code
+     *      YamlFile.readAsync(Path.of("config.yaml"), executor)
+     *          .thenApply(f -> f.getObject("config"))
+     *          .thenAccept(config -> ...);
+     *     }</pre>
+     * </blockquote>
+     * The file is read by an {@link AsynchronousFileChannel} and parsed on the given executor, the position of each
+     * object in the file is remembered for {@link #create()} like {@link #read(File)} does. A file whose name ends
+     * with <code>.gz</code> is decompressed while it is parsed.
+     *
+     * @param path     the file to read from
+     * @param executor the executor to parse the file on
+     * @return the future completed with the file, or exceptionally with an {@link IOException} if it cannot be read
+     * @see #readAsync(Path)
+     * @see #saveAsync(Executor)
+     * @since 1.8
+     */
+    public static @NotNull CompletableFuture<YamlFile> readAsync(@NotNull Path path, @NotNull Executor executor) {
+        boolean gzip = YamlSource.isGzip(path);
+        return AsyncFiles.read(path).thenApplyAsync(bytes -> {
+            try {
+                return timed(path.toFile(), () -> {
+                    YamlFile file = new YamlFile(path.toFile());
+                    if (gzip) file.content = YamlSource.gzip(YamlSource.of(bytes)).parse(null);
+                    else file.parse(bytes);
+                    return file;
+                });
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Writes the content of this file without blocking the calling thread, rendering it on the common pool
+     *
+     * @return the future completed once the file was written, or exceptionally if it cannot be written
+     * @see #saveAsync(Executor)
+     * @since 1.8
+     */
+    public @NotNull CompletableFuture<Void> saveAsync() {
+        return this.saveAsync(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Writes the content of this file without blocking the calling thread. The content is rendered on the given
+     * executor and written by an {@link AsynchronousFileChannel}. Unlike {@link #create()}, the file is always
+     * written as a whole, compressed with <code>gzip</code> if its name ends with <code>.gz</code>. The content must
+     * not be changed until the future is completed.
+     *
+     * @param executor the executor to render the content on
+     * @return the future completed once the file was written, or exceptionally with an {@link IOException} if it
+     * cannot be written
+     * @see #create()
+     * @see #readAsync(Path, Executor)
+     * @since 1.8
+     */
+    public @NotNull CompletableFuture<Void> saveAsync(@NotNull Executor executor) {
+        long start = System.nanoTime();
+        YamlFileWriteEvent event = new YamlFileWriteEvent();
+        event.begin();
+        boolean gzip = YamlSource.isGzip(this.file.toPath());
+        SourceMap.Builder spans = new SourceMap.Builder();
+        return CompletableFuture.supplyAsync(() -> {
+            this.load();
+            try {
+                if (!this.file.exists()) Files.createDirectories(Paths.get(this.getPath()));
+                if (!gzip) return this.render(spans);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                this.writeGzip(out);
+                return out.toByteArray();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(bytes -> AsyncFiles.write(this.file.toPath(), bytes).thenRun(() -> {
+            if (gzip) this.sourceMap = null;
+            else this.record(spans.build(bytes, 0));
+            if (event.shouldCommit()) event.commit(this.file.getPath(), bytes.length, this.content);
+            YamlMetrics metrics = YamlMetrics.get();
+            if (metrics != null) metrics.written(System.nanoTime() - start);
+        }));
+    }
+
+    /**
+     * Writes the content of this file to the given file in a compact binary form, which can be loaded again with
+     * {@link #readBinary(File)} without parsing any text. Loading the binary form results in the same
+     * {@link #getContent() content} as this file has.
+     *
+     * @param f the file to write the binary form to
+     * @return whether the file could be written to
+     * @see #readBinary(File)
+     * @since 1.8
+     */
+    public boolean writeBinary(@NotNull File f) {
+        try {
+            Files.write(f.toPath(), YamlBinary.encode(this.content()));
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the content of this file with the content of a file written by {@link #writeBinary(File)}
+     *
+     * @param f the binary file to read from
+     * @return the same instance if the file could be read, otherwise returns <code>null</code>
+     * @see #writeBinary(File)
+     * @since 1.8
+     */
+    public @Nullable YamlFile readBinary(@NotNull File f) {
+        try {
+            byte[] bytes = Files.readAllBytes(f.toPath());
+            this.content = YamlBinary.decode(bytes, 0, bytes.length);
+            this.lazy = false;
+        } catch (IOException e) {
+            System.err.printf("File %s either does not exist or cannot be opened: %s\n", f, e.getMessage());
+            return null;
+        }
+        this.sourceMap = null;
+        return this;
     }
 
     /**
@@ -172,7 +874,7 @@ public final class YamlFile {
      * Gets the amount of items in this file
      */
     public int itemCount() {
-        return this.content.length;
+        return this.content().length;
     }
 
     /**
@@ -190,10 +892,39 @@ public final class YamlFile {
     }
 
     /**
-     * Gets the content
+     * Gets the content, which is parsed again for every call if the content is not kept
+     *
+     * @see #isLazy()
      */
     public Yaml[] get() {
-        return this.content;
+        return this.content();
+    }
+
+    /**
+     * Checks if the content of this file is kept, or parsed again whenever it is asked for, because it did not fit
+     * into the {@link YamlHeapBudget budget} it was read with. The content is kept from then on once this file is
+     * written to
+     *
+     * @return whether the content is not kept
+     * @see #readWithin(File, YamlHeapBudget)
+     * @since 1.8
+     */
+    public boolean isLazy() {
+        return this.lazy;
+    }
+
+    /**
+     * Estimates the heap retained by the content of this file
+     *
+     * @return the estimated size in bytes, <code>0</code> if the content is not kept
+     * @see Yaml#estimateRetainedBytes()
+     * @since 1.8
+     */
+    public long estimateRetainedBytes() {
+        if (this.lazy) return 0;
+        long n = 0;
+        for (Yaml y : this.content) n += y.estimateRetainedBytes();
+        return n;
     }
 
     /**
@@ -324,4 +1055,33 @@ public final class YamlFile {
                 "has content:\n" +
                 this.getContent();
     }
+
+    /**
+     * Notified with the newly parsed file after a watched file was changed
+     *
+     * @see #watch(ChangeListener)
+     * @since 1.8
+     */
+    public interface ChangeListener {
+        void changed(YamlFile file);
+    }
+
+    /**
+     * A file being watched for changes
+     *
+     * @see #watch(ChangeListener)
+     * @since 1.8
+     */
+    public interface Watch extends AutoCloseable {
+        /**
+         * Checks whether the file is still watched
+         */
+        boolean isWatching();
+
+        /**
+         * Stops watching the file, a change which is still debounced is not reported anymore
+         */
+        @Override
+        void close();
+    }
 }
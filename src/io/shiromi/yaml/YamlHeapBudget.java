@@ -0,0 +1,126 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A limit of the heap the content of loaded files may take, shared by all files loaded with it, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlHeapBudget tenant = new YamlHeapBudget(64 << 20, YamlHeapBudget.Mode.LAZY);
+ *      YamlFile config = YamlFile.readWithin(new File("tenant/config.yaml"), tenant);
+ *      ...
+ *      tenant.release(config);
+ *     }</pre>
+ * </blockquote>
+ * While a file is parsed, the {@link Yaml#estimateRetainedBytes() estimated size} of every object is charged to the
+ * budget. Once the budget would be exceeded, loading the file stops at once and its charges are returned. What happens
+ * then is decided by the {@link Mode mode} of the budget.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#readWithin(File, YamlHeapBudget)
+ * @since 1.8
+ */
+public final class YamlHeapBudget {
+    /**
+     * What happens to a file which does not fit into the budget
+     */
+    public enum Mode {
+        /**
+         * Loading the file fails
+         */
+        ABORT,
+        /**
+         * The file is loaded without keeping its content, which is parsed again whenever it is asked for
+         */
+        LAZY
+    }
+
+    /**
+     * What happens to a file which does not fit into this budget
+     */
+    public final Mode mode;
+
+    private final long limit;
+    private final AtomicLong used = new AtomicLong();
+
+    /**
+     * Creates a new budget
+     *
+     * @param limit the amount of bytes the content of all files loaded with this budget may take
+     * @param mode  what happens to a file which does not fit into this budget
+     */
+    public YamlHeapBudget(long limit, @NotNull Mode mode) {
+        if (limit < 0) throw new IllegalArgumentException("Negative limit: " + limit);
+        this.limit = limit;
+        this.mode = Objects.requireNonNull(mode);
+    }
+
+    /**
+     * Gets the amount of bytes the content of all files loaded with this budget may take
+     */
+    public long limit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the amount of bytes taken by the files loaded with this budget and not released yet
+     */
+    public long used() {
+        return this.used.get();
+    }
+
+    /**
+     * Gets the amount of bytes left
+     */
+    public long remaining() {
+        return this.limit - this.used.get();
+    }
+
+    /**
+     * Returns the bytes charged for a file to this budget, to be called once the file is not used anymore
+     *
+     * @param file the file loaded with this budget
+     */
+    public void release(@NotNull YamlFile file) {
+        if (file.budget != this) return;
+        this.release(file.charged);
+        file.budget = null;
+        file.charged = 0;
+    }
+
+    /**
+     * Charges an amount of bytes, if they fit into this budget
+     *
+     * @return whether the bytes were charged
+     */
+    boolean charge(long bytes) {
+        while (true) {
+            long used = this.used.get();
+            if (used + bytes > this.limit) return false;
+            if (this.used.compareAndSet(used, used + bytes)) return true;
+        }
+    }
+
+    void release(long bytes) {
+        this.used.addAndGet(-bytes);
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "YamlHeapBudget[" + this.mode + ", used: " + this.used() + " of " + this.limit + " bytes]";
+    }
+
+    /**
+     * Thrown by the parser when an object does not fit into the budget anymore
+     */
+    static final class Exceeded extends RuntimeException {
+        Exceeded() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,525 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.annotations.SerializedItem;
+import io.shiromi.yaml.exception.YamlMappingException;
+import io.shiromi.yaml.util.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds {@link YamlObject YamlObjects} to instances of Java classes and records, and back, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      record Size(int w, int h) {}
+ *      record Label(String text, Size size) {}
+ *
+ *      Label label = YamlMapper.fromYaml(file.getObject("Label"), Label.class);
+ *      YamlObject o = YamlMapper.toYaml("Label", label);
+ *     }</pre>
+ * </blockquote>
+ * Each field of a class, or component of a record, is bound to the item with the same name, or the name given by its
+ * {@link SerializedItem} annotation. Supported are primitive types and their wrappers, <code>String</code>, enums,
+ * arrays and <code>Lists</code> of those, other classes and records as nested objects, and {@link Yaml} types, which
+ * are bound as they are. Items without a field are ignored, fields without an item keep their default value.
+ * <p>
+ * The fields, accessors and constructors of a class are looked up once, on its first use, and kept as
+ * {@link MethodHandle MethodHandles}. Classes have to have a constructor without parameters, records are created with
+ * their canonical constructor.
+ * <p>
+ * An instance which refers back to itself, directly or through other instances, cannot be written and is refused
+ * with a {@link YamlMappingException}. Instances shared without a cycle are written once for every reference.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+public final class YamlMapper {
+    private static final ClassValue<Binding> BINDINGS = new ClassValue<>() {
+        @Override
+        protected Binding computeValue(Class<?> type) {
+            return new Binding(type);
+        }
+    };
+
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private YamlMapper() {
+    }
+
+    /**
+     * Creates an instance of the given class from the items of the object
+     *
+     * @param o    the object to read the values from
+     * @param type the class or record to create
+     * @param <T>  the type to create
+     * @return a new instance with its fields set to the values of the object
+     * @throws YamlMappingException if the class cannot be created, or an item does not fit the type of its field
+     * @see #toYaml(String, Object)
+     */
+    public static <T> @NotNull T fromYaml(@NotNull YamlObject o, @NotNull Class<T> type) throws YamlMappingException {
+        return type.cast(BINDINGS.get(type).read(o));
+    }
+
+    /**
+     * Creates an object with an item for every field of the given instance
+     *
+     * @param name the name of the object
+     * @param o    the instance to read the fields of
+     * @return a new object containing the values of the instance
+     * @throws YamlMappingException if a field is of a type which cannot be turned into an item, or the instance
+     *                              refers back to itself
+     * @see #fromYaml(YamlObject, Class)
+     */
+    public static @NotNull YamlObject toYaml(String name, @NotNull Object o) throws YamlMappingException {
+        return BINDINGS.get(o.getClass()).write(name, o, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /**
+     * The constructor, accessors and codecs of a class, looked up once per class
+     */
+    private static final class Binding {
+        private final Class<?> type;
+        private final String[] names;
+        private final Codec[] codecs;
+        private final Map<String, Integer> index = new HashMap<>();
+        private MethodHandle[] getters;
+        private MethodHandle[] setters;
+        private MethodHandle constructor;
+        private Object[] defaults;
+        private Exception error;
+
+        Binding(Class<?> type) {
+            this.type = type;
+            List<String> names = new ArrayList<>();
+            List<Codec> codecs = new ArrayList<>();
+            List<MethodHandle> getters = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                if (type.isRecord()) {
+                    RecordComponent[] components = type.getRecordComponents();
+                    Class<?>[] types = new Class<?>[components.length];
+                    this.defaults = new Object[components.length];
+                    for (int i = 0; i < components.length; i++) {
+                        RecordComponent c = components[i];
+                        types[i] = c.getType();
+                        if (types[i].isPrimitive()) this.defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+                        names.add(itemName(c.getName(), c.getAnnotation(SerializedItem.class)));
+                        codecs.add(codec(c.getType(), c.getGenericType()));
+                        getters.add(lookup.unreflect(c.getAccessor()).asType(GETTER));
+                    }
+                    this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class, types))
+                            .asSpreader(Object[].class, components.length)
+                            .asType(MethodType.methodType(Object.class, Object[].class));
+                } else {
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        for (Field f : c.getDeclaredFields()) {
+                            int modifiers = f.getModifiers();
+                            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || f.isSynthetic())
+                                continue;
+                            f.setAccessible(true);
+                            names.add(itemName(f.getName(), f.getAnnotation(SerializedItem.class)));
+                            codecs.add(codec(f.getType(), f.getGenericType()));
+                            getters.add(lookup.unreflectGetter(f).asType(GETTER));
+                            setters.add(lookup.unreflectSetter(f).asType(SETTER));
+                        }
+                    }
+                    this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                            .asType(MethodType.methodType(Object.class));
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                this.error = e;
+            }
+            this.names = names.toArray(new String[0]);
+            this.codecs = codecs.toArray(new Codec[0]);
+            this.getters = getters.toArray(new MethodHandle[0]);
+            this.setters = setters.toArray(new MethodHandle[0]);
+            for (int i = 0; i < this.names.length; i++) this.index.put(this.names[i], i);
+        }
+
+        private void check() throws YamlMappingException {
+            if (this.error != null) throw new YamlMappingException("Cannot bind " + this.type.getName(), this.error);
+        }
+
+        Object read(@NotNull YamlObject o) throws YamlMappingException {
+            this.check();
+            try {
+                if (this.defaults != null) {
+                    Object[] args = this.defaults.clone();
+                    for (Yaml y : o.getAll()) {
+                        Integer i = this.index.get(y.name);
+                        if (i == null) continue;
+                        Object v = this.codecs[i].fromYaml(y);
+                        if (v != null || !this.codecs[i].primitive) args[i] = v;
+                    }
+                    return (Object) this.constructor.invokeExact(args);
+                }
+                Object t = (Object) this.constructor.invokeExact();
+                for (Yaml y : o.getAll()) {
+                    Integer i = this.index.get(y.name);
+                    if (i == null) continue;
+                    Object v = this.codecs[i].fromYaml(y);
+                    if (v != null || !this.codecs[i].primitive) this.setters[i].invokeExact(t, v);
+                }
+                return t;
+            } catch (YamlMappingException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new YamlMappingException("Cannot create " + this.type.getName() + " from '" + o.name + "'", t);
+            }
+        }
+
+        /**
+         * Writes an instance, <code>path</code> holds the instances currently being written by identity
+         */
+        @NotNull YamlObject write(String name, @NotNull Object o, @NotNull Set<Object> path) throws YamlMappingException {
+            this.check();
+            if (!path.add(o))
+                throw new YamlMappingException("Cannot write '" + name + "', the " + this.type.getName() + " refers back to itself");
+            Yaml[] values = new Yaml[this.names.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    Object v = (Object) this.getters[i].invokeExact(o);
+                    values[i] = v == null ? new YamlNull(this.names[i]) : this.codecs[i].toYaml(this.names[i], v, path);
+                }
+            } catch (YamlMappingException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new YamlMappingException("Cannot read the fields of " + this.type.getName(), t);
+            }
+            path.remove(o);
+            return new YamlObject(name, values);
+        }
+    }
+
+    private static String itemName(String name, @Nullable SerializedItem item) {
+        return item == null || item.name().equals(SerializedItem.DEFAULT_NAME) ? name : item.name();
+    }
+
+    private static @NotNull Codec codec(@NotNull Class<?> type, @NotNull Type generic) {
+        Scalar scalar = Scalar.of(type);
+        if (scalar != null) return new ScalarCodec(scalar, type.isPrimitive());
+        if (type.isEnum()) return new EnumCodec(type);
+        if (Yaml.class.isAssignableFrom(type)) return new YamlCodec(type);
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            return new ArrayCodec(component, codec(component, component));
+        }
+        if (type == List.class) {
+            Type element = generic instanceof ParameterizedType p ? p.getActualTypeArguments()[0] : Object.class;
+            Class<?> raw = element instanceof Class<?> c ? c : Object.class;
+            return new ListCodec(codec(raw, raw));
+        }
+        if (type == Object.class) return new AnyCodec();
+        return new ObjectCodec(type);
+    }
+
+    /**
+     * Turns items into values and values into items, for array and list elements the raw values of a
+     * {@link YamlArray} are used instead
+     */
+    private abstract static class Codec {
+        final boolean primitive;
+
+        Codec(boolean primitive) {
+            this.primitive = primitive;
+        }
+
+        abstract @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException;
+
+        abstract @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) throws YamlMappingException;
+
+        @Nullable Object fromValue(@Nullable Object v) throws YamlMappingException {
+            throw new YamlMappingException("Arrays cannot contain " + this.getClass().getSimpleName());
+        }
+
+        @Nullable Object toValue(@Nullable Object v) throws YamlMappingException {
+            throw new YamlMappingException("Arrays cannot contain " + this.getClass().getSimpleName());
+        }
+
+        static YamlMappingException mismatch(@NotNull Yaml y, String expected) {
+            return new YamlMappingException("Item '" + y.name + "' is a " + y.getTypeName() + ", expected " + expected);
+        }
+    }
+
+    private enum Scalar {
+        INT, LONG, SHORT, BYTE, FLOAT, DOUBLE, BOOLEAN, CHAR, STRING;
+
+        static @Nullable Scalar of(Class<?> type) {
+            if (type == int.class || type == Integer.class) return INT;
+            if (type == long.class || type == Long.class) return LONG;
+            if (type == short.class || type == Short.class) return SHORT;
+            if (type == byte.class || type == Byte.class) return BYTE;
+            if (type == float.class || type == Float.class) return FLOAT;
+            if (type == double.class || type == Double.class) return DOUBLE;
+            if (type == boolean.class || type == Boolean.class) return BOOLEAN;
+            if (type == char.class || type == Character.class) return CHAR;
+            if (type == String.class) return STRING;
+            return null;
+        }
+    }
+
+    private static final class ScalarCodec extends Codec {
+        private final Scalar scalar;
+
+        ScalarCodec(Scalar scalar, boolean primitive) {
+            super(primitive);
+            this.scalar = scalar;
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (y instanceof YamlNull) return null;
+            if (y.isObject() || y.isArray()) throw mismatch(y, this.scalar.name().toLowerCase());
+            Object v = this.fromValue(y.get());
+            if (v == null) throw mismatch(y, this.scalar.name().toLowerCase());
+            return v;
+        }
+
+        @Override
+        @Nullable Object fromValue(@Nullable Object v) {
+            if (v instanceof Number n) {
+                switch (this.scalar) {
+                    case INT:
+                        return n.intValue();
+                    case LONG:
+                        return n.longValue();
+                    case SHORT:
+                        return n.shortValue();
+                    case BYTE:
+                        return n.byteValue();
+                    case FLOAT:
+                        return n.floatValue();
+                    case DOUBLE:
+                        return n.doubleValue();
+                    default:
+                        return null;
+                }
+            }
+            if (v instanceof Boolean b) return this.scalar == Scalar.BOOLEAN ? b : null;
+            if (v instanceof String s) {
+                s = unquote(s);
+                if (this.scalar == Scalar.STRING) return s;
+                if (this.scalar == Scalar.CHAR) return s.isEmpty() ? null : s.charAt(0);
+            }
+            return null;
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) {
+            switch (this.scalar) {
+                case INT:
+                case SHORT:
+                case BYTE:
+                    return new YamlNumber(name, ((Number) v).intValue());
+                case LONG: {
+                    long l = (Long) v;
+                    return l == (int) l ? new YamlNumber(name, (int) l) : new YamlNumber(name, l);
+                }
+                case FLOAT:
+                case DOUBLE:
+                    return new YamlNumber(name, ((Number) v).floatValue());
+                case BOOLEAN:
+                    return new YamlBoolean(name, (Boolean) v);
+                default:
+                    return new YamlString(name, v.toString());
+            }
+        }
+
+        @Override
+        @Nullable Object toValue(@Nullable Object v) {
+            if (v == null) return null;
+            switch (this.scalar) {
+                case INT:
+                case SHORT:
+                case BYTE:
+                    return ((Number) v).intValue();
+                case FLOAT:
+                case DOUBLE:
+                    return ((Number) v).floatValue();
+                case LONG:
+                case BOOLEAN:
+                    return v;
+                default:
+                    return '"' + v.toString() + '"';
+            }
+        }
+    }
+
+    private static @NotNull String unquote(@NotNull String s) {
+        return s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"' ? s.substring(1, s.length() - 1) : s;
+    }
+
+    private static final class EnumCodec extends Codec {
+        private final Map<String, Object> constants = new HashMap<>();
+
+        EnumCodec(Class<?> type) {
+            super(false);
+            for (Object o : type.getEnumConstants()) this.constants.put(((Enum<?>) o).name(), o);
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (y instanceof YamlNull) return null;
+            if (!(y instanceof YamlString s)) throw mismatch(y, "string");
+            return this.fromValue(s.value);
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) {
+            return new YamlString(name, ((Enum<?>) v).name());
+        }
+
+        @Override
+        @Nullable Object fromValue(@Nullable Object v) throws YamlMappingException {
+            if (v == null) return null;
+            Object o = this.constants.get(unquote(v.toString()));
+            if (o == null) throw new YamlMappingException("Unknown constant '" + v + "', expected one of " + this.constants.keySet());
+            return o;
+        }
+
+        @Override
+        @Nullable Object toValue(@Nullable Object v) {
+            return v == null ? null : '"' + ((Enum<?>) v).name() + '"';
+        }
+    }
+
+    private static final class YamlCodec extends Codec {
+        private final Class<?> type;
+
+        YamlCodec(Class<?> type) {
+            super(false);
+            this.type = type;
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (!this.type.isInstance(y)) throw mismatch(y, this.type.getSimpleName());
+            return y;
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) {
+            return (Yaml) v;
+        }
+    }
+
+    private static final class AnyCodec extends Codec {
+        AnyCodec() {
+            super(false);
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) {
+            return y.get();
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) throws YamlMappingException {
+            Scalar scalar = Scalar.of(v.getClass());
+            if (scalar != null) return new ScalarCodec(scalar, false).toYaml(name, v, path);
+            return codec(v.getClass(), v.getClass()).toYaml(name, v, path);
+        }
+
+        @Override
+        @Nullable Object fromValue(@Nullable Object v) {
+            return v;
+        }
+
+        @Override
+        @Nullable Object toValue(@Nullable Object v) {
+            return v instanceof String s ? '"' + s + '"' : v;
+        }
+    }
+
+    private static final class ObjectCodec extends Codec {
+        private final Class<?> type;
+
+        ObjectCodec(Class<?> type) {
+            super(false);
+            this.type = type;
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (y instanceof YamlNull) return null;
+            if (!(y instanceof YamlObject o)) throw mismatch(y, "YamlObject");
+            return BINDINGS.get(this.type).read(o);
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) throws YamlMappingException {
+            return BINDINGS.get(v.getClass()).write(name, v, path);
+        }
+    }
+
+    private static final class ArrayCodec extends Codec {
+        private final Class<?> component;
+        private final Codec codec;
+
+        ArrayCodec(Class<?> component, Codec codec) {
+            super(false);
+            this.component = component;
+            this.codec = codec;
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (y instanceof YamlNull) return null;
+            if (!(y instanceof YamlArray a)) throw mismatch(y, "YamlArray");
+            Object array = Array.newInstance(this.component, a.values.length);
+            for (int i = 0; i < a.values.length; i++) {
+                Object v = this.codec.fromValue(a.values[i]);
+                if (v != null || !this.component.isPrimitive()) Array.set(array, i, v);
+            }
+            return array;
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) throws YamlMappingException {
+            Object[] values = new Object[Array.getLength(v)];
+            for (int i = 0; i < values.length; i++) values[i] = this.codec.toValue(Array.get(v, i));
+            return new YamlArray(name, values);
+        }
+    }
+
+    private static final class ListCodec extends Codec {
+        private final Codec codec;
+
+        ListCodec(Codec codec) {
+            super(false);
+            this.codec = codec;
+        }
+
+        @Override
+        @Nullable Object fromYaml(@NotNull Yaml y) throws YamlMappingException {
+            if (y instanceof YamlNull) return null;
+            if (!(y instanceof YamlArray a)) throw mismatch(y, "YamlArray");
+            List<Object> list = new ArrayList<>(a.values.length);
+            for (Object o : a.values) list.add(this.codec.fromValue(o));
+            return list;
+        }
+
+        @Override
+        @NotNull Yaml toYaml(String name, @NotNull Object v, @NotNull Set<Object> path) throws YamlMappingException {
+            List<?> list = (List<?>) v;
+            Object[] values = new Object[list.size()];
+            for (int i = 0; i < values.length; i++) values[i] = this.codec.toValue(list.get(i));
+            return new YamlArray(name, values);
+        }
+    }
+}
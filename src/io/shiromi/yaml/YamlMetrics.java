@@ -0,0 +1,251 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.jfr.YamlEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the yaml files of an application, collected only while registered, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlMetrics metrics = YamlMetrics.register();
+ *      ...
+ *      System.out.println(metrics.getMeanReadMillis());
+ *     }</pre>
+ * </blockquote>
+ * Registering makes the metrics available to jmx clients as <code>io.shiromi.yaml:type=YamlMetrics</code>. Every
+ * count is a {@link LongAdder}, so threads reading files at the same time do not contend on the counts. While the
+ * metrics are not registered, nothing is counted.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlMetricsMXBean
+ * @since 1.8
+ */
+public final class YamlMetrics implements YamlMetricsMXBean {
+    /**
+     * The name the metrics are registered under
+     */
+    public static final @NotNull ObjectName NAME = name();
+
+    private static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private static volatile @Nullable YamlMetrics active;
+
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder nodesRead = new LongAdder();
+    private final LongAdder retainedBytes = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder[] readLatency = adders(BOUNDS_MILLIS.length + 1);
+    private final LongAdder[] writeLatency = adders(BOUNDS_MILLIS.length + 1);
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    private YamlMetrics() {
+    }
+
+    /**
+     * Starts collecting the metrics and registers them with the platform mbean server, if not done already
+     *
+     * @return the registered metrics
+     * @throws JMException if the metrics cannot be registered, e.g. because metrics of another class loader are
+     *                     registered already
+     */
+    public static synchronized @NotNull YamlMetrics register() throws JMException {
+        YamlMetrics m = active;
+        if (m != null) return m;
+        m = new YamlMetrics();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(m, NAME);
+        active = m;
+        return m;
+    }
+
+    /**
+     * Stops collecting the metrics and unregisters them, if they are registered
+     *
+     * @throws JMException if the metrics cannot be unregistered
+     */
+    public static synchronized void unregister() throws JMException {
+        if (active == null) return;
+        active = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(NAME);
+        } catch (InstanceNotFoundException ignored) {
+        }
+    }
+
+    /**
+     * Gets the metrics being collected
+     *
+     * @return the metrics, or <code>null</code> if they are not registered
+     */
+    public static @Nullable YamlMetrics get() {
+        return active;
+    }
+
+    /**
+     * Counts a file which was read
+     *
+     * @param f     the file
+     * @param file  the file as read
+     * @param nanos the time it took to read the file
+     */
+    void read(@NotNull File f, @NotNull YamlFile file, long nanos) {
+        this.filesRead.increment();
+        this.bytesRead.add(f.length());
+        Yaml[] content = file.isLazy() ? new Yaml[0] : file.get();
+        this.nodesRead.add(YamlEvent.count(content));
+        this.retainedBytes.add(file.estimateRetainedBytes());
+        this.readNanos.add(nanos);
+        this.readLatency[bucket(nanos)].increment();
+    }
+
+    /**
+     * Counts a file which was written
+     *
+     * @param nanos the time it took to write the file
+     */
+    void written(long nanos) {
+        this.filesWritten.increment();
+        this.writeNanos.add(nanos);
+        this.writeLatency[bucket(nanos)].increment();
+    }
+
+    /**
+     * Counts a read of a snapshot
+     *
+     * @param hit whether there was a valid snapshot
+     */
+    void cache(boolean hit) {
+        (hit ? this.cacheHits : this.cacheMisses).increment();
+    }
+
+    /**
+     * Counts a watched file which was read again
+     */
+    void reloaded() {
+        this.reloads.increment();
+    }
+
+    @Override
+    public long getFilesRead() {
+        return this.filesRead.sum();
+    }
+
+    @Override
+    public long getFilesWritten() {
+        return this.filesWritten.sum();
+    }
+
+    @Override
+    public long getNodesRead() {
+        return this.nodesRead.sum();
+    }
+
+    @Override
+    public long getEstimatedRetainedBytes() {
+        return this.retainedBytes.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return this.bytesRead.sum();
+    }
+
+    @Override
+    public long[] getLatencyBucketBoundsMillis() {
+        return BOUNDS_MILLIS.clone();
+    }
+
+    @Override
+    public long[] getReadLatencyHistogram() {
+        return sums(this.readLatency);
+    }
+
+    @Override
+    public long[] getWriteLatencyHistogram() {
+        return sums(this.writeLatency);
+    }
+
+    @Override
+    public double getMeanReadMillis() {
+        long n = this.filesRead.sum();
+        return n == 0 ? 0 : this.readNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMeanWriteMillis() {
+        long n = this.filesWritten.sum();
+        return n == 0 ? 0 : this.writeNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public long getCacheHits() {
+        return this.cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return this.cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = this.cacheHits.sum();
+        long all = hits + this.cacheMisses.sum();
+        return all == 0 ? 0 : (double) hits / all;
+    }
+
+    @Override
+    public long getReloads() {
+        return this.reloads.sum();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder a : new LongAdder[]{this.filesRead, this.filesWritten, this.nodesRead, this.retainedBytes,
+                this.bytesRead, this.readNanos, this.writeNanos, this.cacheHits, this.cacheMisses, this.reloads})
+            a.reset();
+        for (LongAdder a : this.readLatency) a.reset();
+        for (LongAdder a : this.writeLatency) a.reset();
+    }
+
+    private static int bucket(long nanos) {
+        long millis = nanos / 1_000_000;
+        int i = 0;
+        while (i < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[i]) i++;
+        return i;
+    }
+
+    private static LongAdder @NotNull [] adders(int n) {
+        LongAdder[] a = new LongAdder[n];
+        for (int i = 0; i < n; i++) a[i] = new LongAdder();
+        return a;
+    }
+
+    private static long @NotNull [] sums(LongAdder @NotNull [] adders) {
+        long[] s = new long[adders.length];
+        for (int i = 0; i < s.length; i++) s[i] = adders[i].sum();
+        return s;
+    }
+
+    private static @NotNull ObjectName name() {
+        try {
+            return new ObjectName("io.shiromi.yaml:type=YamlMetrics");
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
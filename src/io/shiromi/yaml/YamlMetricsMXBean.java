@@ -0,0 +1,94 @@
+package io.shiromi.yaml;
+
+/**
+ * The metrics of the yaml files of an application, as shown by jmx clients under
+ * <code>io.shiromi.yaml:type=YamlMetrics</code> once {@link YamlMetrics#register() registered}.
+ * <p>
+ * Counts are totals since the metrics were registered or last {@link #reset() reset}. Latencies are counted in
+ * histograms, whose buckets are bounded by {@link #getLatencyBucketBoundsMillis()}.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlMetrics
+ * @since 1.8
+ */
+public interface YamlMetricsMXBean {
+    /**
+     * Gets the amount of files read by any of the <code>read</code> methods of {@link YamlFile}
+     */
+    long getFilesRead();
+
+    /**
+     * Gets the amount of files written by {@link YamlFile#create()}
+     */
+    long getFilesWritten();
+
+    /**
+     * Gets the amount of yaml objects of all files read, including the nested ones
+     */
+    long getNodesRead();
+
+    /**
+     * Gets the {@link YamlFile#estimateRetainedBytes() estimated heap} taken by the content of all files read
+     */
+    long getEstimatedRetainedBytes();
+
+    /**
+     * Gets the amount of bytes of all files read
+     */
+    long getBytesRead();
+
+    /**
+     * Gets the upper bounds of the latency buckets in milliseconds, the last bucket has no upper bound and is not
+     * listed
+     */
+    long[] getLatencyBucketBoundsMillis();
+
+    /**
+     * Gets the amount of files read, per latency bucket
+     */
+    long[] getReadLatencyHistogram();
+
+    /**
+     * Gets the amount of files written, per latency bucket
+     */
+    long[] getWriteLatencyHistogram();
+
+    /**
+     * Gets the mean time of reading a file, in milliseconds
+     */
+    double getMeanReadMillis();
+
+    /**
+     * Gets the mean time of writing a file, in milliseconds
+     */
+    double getMeanWriteMillis();
+
+    /**
+     * Gets the amount of files whose content was taken from a snapshot by
+     * {@link YamlFile#readCached(java.io.File, java.io.File)}
+     */
+    long getCacheHits();
+
+    /**
+     * Gets the amount of files parsed by {@link YamlFile#readCached(java.io.File, java.io.File)} because there was
+     * no valid snapshot
+     */
+    long getCacheMisses();
+
+    /**
+     * Gets the share of snapshot reads which were hits, between <code>0</code> and <code>1</code>, or
+     * <code>0</code> if there were none
+     */
+    double getCacheHitRate();
+
+    /**
+     * Gets the amount of watched files which were read again after being changed
+     */
+    long getReloads();
+
+    /**
+     * Sets all counts back to <code>0</code>
+     */
+    void reset();
+}
@@ -0,0 +1,233 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of names, used by the parser to share the names of objects instead of giving every object its own copy.
+ * <p>
+ * The same few names, like <code>size</code>, <code>text</code> or <code>w</code>, are used by objects of many files,
+ * and each parsed object would otherwise hold a string of its own. A pool never holds on to names forever, it is
+ * either
+ * <ul>
+ *     <li>{@link #bounded(int) bounded}, holding at most a fixed number of names, where a name replaces the one it
+ *     collides with, or</li>
+ *     <li>{@link #weak() weak}, holding names only as long as any object still uses them.</li>
+ * </ul>
+ * The pool used by the parser is the {@link #getDefault() default pool}, which is bounded to 4096 names unless set
+ * otherwise, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlNamePool.setDefault(YamlNamePool.weak());
+ *      ...
+ *      System.out.println(YamlNamePool.getDefault());
+ *     }</pre>
+ * </blockquote>
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+public abstract class YamlNamePool {
+    private static volatile @Nullable YamlNamePool defaultPool = bounded(4096);
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    private YamlNamePool() {
+    }
+
+    /**
+     * Creates a pool holding at most a fixed number of names, a name replaces the one with the same slot in the pool.
+     * Looking up a name never blocks
+     *
+     * @param capacity the number of names, rounded up to a power of two
+     * @return the pool
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlNamePool bounded(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity has to be between 1 and 2^30: " + capacity);
+        int n = 1;
+        while (n < capacity) n <<= 1;
+        return new Bounded(n);
+    }
+
+    /**
+     * Creates a pool holding names only as long as they are used anywhere else
+     *
+     * @return the pool
+     */
+    @Contract("-> new")
+    public static @NotNull YamlNamePool weak() {
+        return new Weak();
+    }
+
+    /**
+     * Gets the pool used by the parser
+     *
+     * @return the pool, or <code>null</code> if names are not pooled
+     */
+    public static @Nullable YamlNamePool getDefault() {
+        return defaultPool;
+    }
+
+    /**
+     * Sets the pool used by the parser from now on
+     *
+     * @param pool the pool, or <code>null</code> to not pool names
+     */
+    public static void setDefault(@Nullable YamlNamePool pool) {
+        defaultPool = pool;
+    }
+
+    /**
+     * Gets the pooled instance of a name, adding it to the pool if needed
+     *
+     * @param name the name
+     * @return the pooled instance, equal to the name
+     */
+    public final @NotNull String intern(@NotNull String name) {
+        String pooled = this.lookup(name);
+        if (pooled != name) this.found(pooled);
+        else this.lookups.increment();
+        return pooled;
+    }
+
+    /**
+     * Gets the pooled instance of a part of a text, without creating a string if the name is pooled already
+     *
+     * @param text  the text holding the name
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     * @return the pooled instance
+     */
+    @NotNull String intern(@NotNull CharSequence text, int start, int end) {
+        return this.intern(text.subSequence(start, end).toString());
+    }
+
+    abstract @NotNull String lookup(@NotNull String name);
+
+    /**
+     * Counts a lookup of a name which was pooled already
+     */
+    final void found(@NotNull String pooled) {
+        this.lookups.increment();
+        this.hits.increment();
+        // the string and its array of latin-1 bytes, as laid out with compressed references
+        this.savedBytes.add(24 + ((16 + pooled.length() + 7) & ~7));
+    }
+
+    /**
+     * Gets the amount of names looked up
+     */
+    public final long lookups() {
+        return this.lookups.sum();
+    }
+
+    /**
+     * Gets the amount of names which were pooled already when looked up
+     */
+    public final long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets an estimate of the heap saved by sharing names, in bytes. This counts every copy of a name which was not
+     * kept, assuming a name of latin-1 characters
+     */
+    public final long savedBytes() {
+        return this.savedBytes.sum();
+    }
+
+    /**
+     * Gets the amount of names held by this pool
+     */
+    public abstract int size();
+
+    /**
+     * Gets a report of this pool, e.g.
+     * <code>YamlNamePool[bounded, names: 312, lookups: 48210, hits: 47898, saved: 2.1 MiB]</code>
+     */
+    @Override
+    public @NotNull String toString() {
+        return String.format("YamlNamePool[%s, names: %d, lookups: %d, hits: %d, saved: %.1f MiB]",
+                this instanceof Bounded ? "bounded" : "weak", this.size(), this.lookups(), this.hits(),
+                this.savedBytes() / (1024.0 * 1024.0));
+    }
+
+    /**
+     * A direct mapped table of names, names racing for the same slot may both be kept in use
+     */
+    private static final class Bounded extends YamlNamePool {
+        private final String[] slots;
+
+        Bounded(int capacity) {
+            this.slots = new String[capacity];
+        }
+
+        @Override
+        @NotNull String lookup(@NotNull String name) {
+            int i = slot(name.hashCode(), this.slots.length);
+            String s = this.slots[i];
+            if (name.equals(s)) return s;
+            this.slots[i] = name;
+            return name;
+        }
+
+        @Override
+        @NotNull String intern(@NotNull CharSequence text, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) h = 31 * h + text.charAt(i);
+            String s = this.slots[slot(h, this.slots.length)];
+            if (s != null && s.length() == end - start) {
+                int i = 0;
+                while (i < s.length() && s.charAt(i) == text.charAt(start + i)) i++;
+                if (i == s.length()) {
+                    this.found(s);
+                    return s;
+                }
+            }
+            return this.intern(text.subSequence(start, end).toString());
+        }
+
+        private static int slot(int hash, int length) {
+            return (hash ^ hash >>> 16) & (length - 1);
+        }
+
+        @Override
+        public int size() {
+            int n = 0;
+            for (String s : this.slots) if (s != null) n++;
+            return n;
+        }
+    }
+
+    /**
+     * A map of names, only weakly referring to both its keys and values
+     */
+    private static final class Weak extends YamlNamePool {
+        private final Map<String, WeakReference<String>> names = new WeakHashMap<>();
+
+        @Override
+        synchronized @NotNull String lookup(@NotNull String name) {
+            WeakReference<String> r = this.names.get(name);
+            String s = r == null ? null : r.get();
+            if (s != null) return s;
+            this.names.put(name, new WeakReference<>(name));
+            return name;
+        }
+
+        @Override
+        public synchronized int size() {
+            return this.names.size();
+        }
+    }
+}
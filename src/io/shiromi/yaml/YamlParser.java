@@ -0,0 +1,846 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.exception.YamlElementAlreadyPresentException;
+import io.shiromi.yaml.exception.YamlLimitExceededException;
+import io.shiromi.yaml.exception.YamlLimitExceededException.Limit;
+import io.shiromi.yaml.util.*;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A line based parser turning text into {@link Yaml} objects.
+ * <p>
+ * The text is walked once, line by line, without splitting it into an array of lines first. Nesting is decided by
+ * the indentation of each line, a line belongs to the last group header with a smaller indentation. Blank lines,
+ * comments and lines which cannot be parsed into any of the yaml types are skipped.
+ * <p>
+ * Only the current line is ever looked at, so the text can also be streamed from a reader, holding no more than one
+ * line of it at a time. A text which is held as a whole can be {@link StructuralIndex indexed} first, the lines and
+ * the structural characters of each line are then taken from the index.
+ * <p>
+ * The value of a line is classified by its first character and parsed straight from the text, the way
+ * {@link YamlString#parse(String)}, {@link YamlNumber#parse(String)}, {@link YamlBoolean#parse(String)},
+ * {@link YamlNull#parse(String)} and {@link YamlArray#parse(String)} would parse the line, e.g. a line without a quote
+ * is never parsed as a {@link YamlString}, and a line without a colon is skipped without being parsed at all.
+ * <p>
+ * A value can be marked as an anchor, e.g. <code>size: &amp;size</code>, and later be referred to by an alias, e.g.
+ * <code>size: *size</code>. An alias does not copy the object anchored, it is the very same instance if it has the
+ * same name, otherwise a new object of its own name sharing the children or value of the anchored one. An alias of
+ * an anchor which is not defined before it, including one inside the anchored object itself, is skipped like any
+ * other line which cannot be parsed.
+ * <p>
+ * A group can merge anchored groups with the merge key, e.g. <code>&lt;&lt;: *base</code> or
+ * <code>&lt;&lt;: [*base, *defaults]</code>. Their children are not copied, the group only
+ * {@link YamlObject#merge(YamlObject...) looks them up} if it does not hold a child of the same name itself.
+ * <p>
+ * Every parse is bounded by {@link ParserLimits}, groups are only nested as deep as the limits allow, so the
+ * recursion of the parser cannot overflow the stack.
+ * <p>
+ * The parsed objects can also be {@link #emit(Sink) emitted} to a {@link Sink} in document order instead of being
+ * collected, so a document of any size can be read without holding all of it.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see Yaml#fromString(String)
+ * @since 1.8
+ */
+final class YamlParser {
+    private final CharSequence text;
+    private int length;
+    private final @Nullable SourceMap.Builder spans;
+    private final @Nullable YamlNamePool pool = YamlNamePool.getDefault();
+    private @Nullable YamlHeapBudget budget;
+    private long charged;
+    private @Nullable ParseStats.Recorder stats;
+    private @NotNull ParserLimits limits = ParserLimits.getDefault();
+    private long nodes;
+    private long consumed;
+    private long deadline;
+    private long expanded;
+    private @Nullable Map<String, Anchor> anchors;
+    private @Nullable Sink sink;
+
+    /**
+     * The amount of objects and the height of the last parsed object or block, aliases counted as what they stand for
+     */
+    private long size;
+    private int height;
+    /**
+     * The amount of objects emitted as items of the last parsed block
+     */
+    private int emitted;
+    /**
+     * The objects merged into the last parsed block, or <code>null</code> if there are none
+     */
+    private @Nullable List<YamlObject> parents;
+
+    private @Nullable StructuralIndex index;
+    private int cursor;
+    private int flags;
+    private int colon;
+
+    private final @Nullable Reader reader;
+    private final char[] buffer;
+    private int position;
+    private int limit;
+
+    private boolean hasLine;
+    private int line = -1;
+    private int lastLine = -1;
+    private int lineStart;
+    private int lineEnd;
+    private int next;
+    private int indent;
+
+    /**
+     * Creates a new parser for the given text
+     *
+     * @param text  the text to parse
+     * @param spans the builder to record the line span of each parsed object in, can be <code>null</code>
+     */
+    YamlParser(@NotNull CharSequence text, @Nullable SourceMap.Builder spans) {
+        this.text = text;
+        this.length = text.length();
+        this.spans = spans;
+        this.reader = null;
+        this.buffer = null;
+    }
+
+    /**
+     * Creates a new parser streaming the text from a reader, which is not closed
+     *
+     * @param reader the reader to parse the text of
+     * @param spans  the builder to record the line span of each parsed object in, can be <code>null</code>
+     */
+    YamlParser(@NotNull Reader reader, @Nullable SourceMap.Builder spans) {
+        this.text = new StringBuilder(128);
+        this.spans = spans;
+        this.reader = reader;
+        this.buffer = new char[8192];
+    }
+
+    /**
+     * Charges the size of every parsed object to a budget
+     *
+     * @param budget the budget, can be <code>null</code>
+     * @return this parser
+     */
+    @NotNull YamlParser budget(@Nullable YamlHeapBudget budget) {
+        this.budget = budget;
+        return this;
+    }
+
+    /**
+     * Measures the parse, nothing is measured without a recorder
+     *
+     * @param stats the recorder to count and time the parse in, can be <code>null</code>
+     * @return this parser
+     */
+    @NotNull YamlParser record(@Nullable ParseStats.Recorder stats) {
+        this.stats = stats;
+        return this;
+    }
+
+    /**
+     * Bounds the parse, the {@link ParserLimits#getDefault() default limits} are used otherwise
+     *
+     * @param limits the limits to parse within
+     * @return this parser
+     */
+    @NotNull YamlParser limits(@NotNull ParserLimits limits) {
+        this.limits = limits;
+        return this;
+    }
+
+    /**
+     * Emits the parsed objects to a sink instead of collecting them, {@link #parse()} returns no objects then
+     *
+     * @param sink the sink to emit to
+     * @return this parser
+     */
+    @NotNull YamlParser emit(@NotNull Sink sink) {
+        this.sink = sink;
+        return this;
+    }
+
+    /**
+     * Parses the whole text
+     *
+     * @return the top level objects in the order they appear in
+     * @throws UncheckedIOException        if the text is streamed and the reader fails
+     * @throws YamlHeapBudget.Exceeded     if the objects do not fit into the budget, nothing is charged to it then
+     * @throws YamlLimitExceededException if the text exceeds the limits, nothing is charged to the budget then
+     */
+    Yaml @NotNull [] parse() {
+        ParserLimits limits = this.limits;
+        if (limits.isTimed()) this.deadline = System.nanoTime() + limits.timeoutNanos;
+        if (this.reader == null && this.length > limits.maxDocumentLength)
+            throw new YamlLimitExceededException(Limit.DOCUMENT_LENGTH, limits.maxDocumentLength, 0);
+        try {
+            return this.parseDocument();
+        } catch (YamlLimitExceededException e) {
+            if (this.budget != null) this.refund();
+            throw e;
+        }
+    }
+
+    private Yaml @NotNull [] parseDocument() {
+        ParseStats.Recorder stats = this.stats;
+        if (this.reader == null) {
+            long t = stats == null ? 0 : System.nanoTime();
+            this.index = StructuralIndex.of(this.text);
+            if (stats != null) stats.add(ParseStats.Phase.SPLIT, t);
+        }
+        this.advance();
+        List<Yaml> items = new ArrayList<>();
+        this.parseBlock(-1, items, 1);
+        if (stats != null) stats.lines = this.line + 1;
+        return items.toArray(new Yaml[0]);
+    }
+
+    private void parseBlock(int parentIndent, List<Yaml> out, int depth) {
+        Set<String> names = parentIndent < 0 ? null : new HashSet<>();
+        ParseStats.Recorder stats = this.stats;
+        long blockSize = 0;
+        int blockHeight = 0;
+        int emitted = 0;
+        List<YamlObject> parents = null;
+        while (this.hasLine && this.indent > parentIndent) {
+            if (depth > this.limits.maxDepth) throw this.exceeded(Limit.DEPTH, this.limits.maxDepth);
+            int ownIndent = this.indent;
+            if (this.isMergeKey()) {
+                for (Anchor a : this.mergeKey(depth)) {
+                    if (parents == null) parents = new ArrayList<>();
+                    parents.add((YamlObject) a.node);
+                    blockSize += a.size - 1;
+                    blockHeight = Math.max(blockHeight, a.height - 1);
+                }
+                if (this.spans != null) this.spans.merged();
+                this.advance();
+                continue;
+            }
+            int index = this.spans == null ? -1 : this.spans.begin(this.line, ownIndent);
+
+            Yaml y;
+            Anchor alias = null;
+            int marker = this.marker();
+            String name = marker < 0 ? this.groupName() : null;
+            if (marker >= 0) {
+                if (this.text.charAt(marker) == '*') {
+                    alias = this.alias(marker, depth);
+                    if (alias != null) y = this.aliasNode(alias);
+                    else {
+                        this.advance();
+                        y = null;
+                    }
+                } else y = this.anchor(marker, ownIndent, depth);
+                if (y == null) {
+                    if (this.spans != null) this.spans.discard(index);
+                    continue;
+                }
+            } else if (name != null) {
+                this.advance();
+                if (this.sink != null) this.sink.begin(name);
+                List<Yaml> children = new ArrayList<>();
+                this.parseBlock(ownIndent, children, depth + 1);
+                if (this.sink != null) this.sink.end(this.emitted);
+                y = this.group(name, children);
+            } else {
+                long t = stats == null ? 0 : System.nanoTime();
+                y = this.scalar();
+                if (stats != null) stats.add(ParseStats.Phase.CLASSIFY, t);
+                this.advance();
+                if (y == null) {
+                    if (this.spans != null) this.spans.discard(index);
+                    continue;
+                }
+                this.size = 1;
+                this.height = 1;
+            }
+            blockSize += this.size;
+            blockHeight = Math.max(blockHeight, this.height);
+            boolean shared = alias != null && y == alias.node;
+
+            if (++this.nodes > this.limits.maxNodes) throw this.exceeded(Limit.NODES, this.limits.maxNodes);
+            if (this.spans != null) {
+                this.spans.end(index, y, this.lastLine);
+                if (alias != null) this.spans.alias(index, alias.node);
+            }
+            if (this.budget != null && !shared) this.charge(y);
+            if (stats != null) stats.node(y, depth);
+
+            if (names != null && !names.add(y.name)) {
+                for (Yaml y1 : out)
+                    if (y1.equals(y)) throw new RuntimeException(new YamlElementAlreadyPresentException(
+                            "Element " + y + " already exists in this object"));
+            }
+            if (this.sink == null) out.add(y);
+            else if (marker >= 0 || name == null) this.sink.item(y);
+            emitted++;
+        }
+        if (this.sink != null && parents != null && names != null) {
+            // the items of the merged objects the group does not shadow, as YamlObject.getAll() reads them
+            for (YamlObject o : parents) {
+                for (Yaml y : o.getAll()) {
+                    if (!names.add(y.name)) continue;
+                    this.sink.item(y);
+                    emitted++;
+                }
+            }
+        }
+        this.size = blockSize;
+        this.height = blockHeight;
+        this.emitted = emitted;
+        this.parents = parents;
+    }
+
+    /**
+     * Creates the object of a group right after its children were parsed
+     */
+    private @NotNull YamlObject group(@NotNull String name, @NotNull List<Yaml> children) {
+        List<YamlObject> parents = this.parents;
+        YamlObject o = new YamlObject(name, children.toArray(new Yaml[0]));
+        if (parents != null) o.merge(parents.toArray(new YamlObject[0]));
+        this.size++;
+        this.height++;
+        return o;
+    }
+
+    /**
+     * Checks whether the current line is a merge key, e.g. <code>&lt;&lt;: *base</code>
+     */
+    private boolean isMergeKey() {
+        int start = this.lineStart + this.indent;
+        return this.lineEnd - start >= 3 && this.text.charAt(start) == '<' && this.text.charAt(start + 1) == '<'
+                && this.text.charAt(start + 2) == ':';
+    }
+
+    /**
+     * Looks up the anchored groups merged by the merge key of the current line, counting what they stand for.
+     * Aliases of undefined anchors or of anchors which are not groups are skipped
+     *
+     * @return the anchors of the groups
+     * @throws YamlLimitExceededException if the aliases expand the document beyond its limits
+     */
+    private @NotNull List<Anchor> mergeKey(int depth) {
+        String value = this.text.subSequence(this.lineStart + this.indent + 3, this.lineEnd).toString();
+        int comment = value.indexOf(" #");
+        value = (comment < 0 ? value : value.substring(0, comment)).trim();
+        if (value.length() > 1 && value.charAt(0) == '[' && value.charAt(value.length() - 1) == ']')
+            value = value.substring(1, value.length() - 1);
+
+        List<Anchor> merged = new ArrayList<>();
+        for (String alias : value.split(",")) {
+            alias = alias.trim();
+            Anchor a = alias.length() > 1 && alias.charAt(0) == '*' && this.anchors != null
+                    ? this.anchors.get(alias.substring(1)) : null;
+            if (a == null || !(a.node instanceof YamlObject)) continue;
+            this.expanded += a.size - 1;
+            if (this.expanded > this.limits.maxAliasExpansion)
+                throw this.exceeded(Limit.ALIAS_EXPANSION, this.limits.maxAliasExpansion);
+            if (depth + a.height - 2 > this.limits.maxDepth) throw this.exceeded(Limit.DEPTH, this.limits.maxDepth);
+            merged.add(a);
+        }
+        return merged;
+    }
+
+    /**
+     * Finds the anchor or alias marker following the name of the current line, e.g. the <code>&amp;</code> of
+     * <code>size: &amp;size</code>
+     *
+     * @return the index of the marker, or <code>-1</code> if the current line does not hold a marker
+     */
+    private int marker() {
+        int start = this.lineStart + this.indent;
+        int end = this.lineEnd;
+        if (end - start < 4 || this.text.charAt(end - 1) == ':' || !isLetter(this.text.charAt(start))) return -1;
+        int i = start + 1;
+        for (char c; i < end && (c = this.text.charAt(i)) != ':'; i++)
+            if (c != ' ' && c != '_' && !isLetter(c) && !isDigit(c)) return -1;
+        if (i + 3 > end || this.text.charAt(i + 1) != ' ') return -1;
+        i += 2;
+        while (i < end && this.text.charAt(i) == ' ') i++;
+        if (i + 1 >= end) return -1;
+        char c = this.text.charAt(i), first = this.text.charAt(i + 1);
+        return (c == '&' || c == '*') && (isLetter(first) || isDigit(first) || first == '_') ? i : -1;
+    }
+
+    /**
+     * Gets the name of the current line, which holds a marker
+     */
+    private @NotNull String markedName() {
+        int start = this.lineStart + this.indent;
+        int end = start;
+        while (this.text.charAt(end) != ':') end++;
+        if (this.pool != null) return this.pool.intern(this.text, start, end);
+        return this.text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Gets the index after the name of the anchor or alias starting at the given marker
+     */
+    private int labelEnd(int marker) {
+        int i = marker + 1;
+        while (i < this.lineEnd && !Character.isWhitespace(this.text.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Parses the anchored object of the current line, including its children if it is a group, and moves past it
+     *
+     * @param marker the index of the <code>&amp;</code>
+     * @return the object, or <code>null</code> if its value cannot be parsed
+     */
+    private @Nullable Yaml anchor(int marker, int ownIndent, int depth) {
+        int labelEnd = this.labelEnd(marker);
+        String label = this.text.subSequence(marker + 1, labelEnd).toString();
+        String name = this.markedName();
+        String value = this.text.subSequence(labelEnd, this.lineEnd).toString().trim();
+
+        Yaml y;
+        if (value.isEmpty() || value.charAt(0) == '#') {
+            this.advance();
+            // the anchored object is kept for its aliases, so it is built and emitted as a whole
+            Sink sink = this.sink;
+            this.sink = null;
+            List<Yaml> children = new ArrayList<>();
+            this.parseBlock(ownIndent, children, depth + 1);
+            this.sink = sink;
+            y = this.group(name, children);
+            value = null;
+        } else {
+            y = this.scalar(name, value);
+            this.advance();
+            if (y == null) return null;
+            this.size = 1;
+            this.height = 1;
+        }
+        // defined only now, so an object cannot hold an alias of itself
+        if (this.anchors == null) this.anchors = new HashMap<>();
+        this.anchors.put(label, new Anchor(y, this.size, this.height, value));
+        return y;
+    }
+
+    /**
+     * Looks up the anchor referred to by the alias of the current line, counting what it stands for
+     *
+     * @param marker the index of the <code>*</code>
+     * @return the anchor, or <code>null</code> if it is not defined
+     * @throws YamlLimitExceededException if the alias expands the document beyond its limits
+     */
+    private @Nullable Anchor alias(int marker, int depth) {
+        int labelEnd = this.labelEnd(marker);
+        Anchor a = null;
+        int i = labelEnd;
+        while (i < this.lineEnd && this.text.charAt(i) == ' ') i++;
+        if ((i == this.lineEnd || this.text.charAt(i) == '#') && this.anchors != null)
+            a = this.anchors.get(this.text.subSequence(marker + 1, labelEnd).toString());
+        if (a != null) {
+            this.expanded += a.size;
+            if (this.expanded > this.limits.maxAliasExpansion)
+                throw this.exceeded(Limit.ALIAS_EXPANSION, this.limits.maxAliasExpansion);
+            if (depth + a.height - 1 > this.limits.maxDepth) throw this.exceeded(Limit.DEPTH, this.limits.maxDepth);
+            this.size = a.size;
+            this.height = a.height;
+        }
+        return a;
+    }
+
+    /**
+     * Gets the object of the alias of the current line and moves past it
+     *
+     * @param a the anchor referred to
+     * @return the anchored object itself if it has the same name, otherwise an object of the name of the alias
+     * sharing the children or value of the anchored one
+     */
+    private @Nullable Yaml aliasNode(@NotNull Anchor a) {
+        String name = this.markedName();
+        Yaml y;
+        if (name.equals(a.node.name)) y = a.node;
+        else if (a.node instanceof YamlObject o) y = new YamlObject(name, o.values);
+        else y = this.scalar(name, a.value);
+        this.advance();
+        return y;
+    }
+
+    /**
+     * Parses the value of an anchor or alias into an object of the given name
+     */
+    private @Nullable Yaml scalar(@NotNull String name, @NotNull String value) {
+        String s = name + ": " + value;
+        return this.scalar(s, 0, s.length(), StructuralIndex.QUOTE | StructuralIndex.BRACKET, -1);
+    }
+
+    private void charge(@NotNull Yaml y) {
+        assert this.budget != null;
+        long bytes = y.estimateShallowBytes();
+        if (!this.budget.charge(bytes)) {
+            this.refund();
+            throw new YamlHeapBudget.Exceeded();
+        }
+        this.charged += bytes;
+    }
+
+    /**
+     * Gets the amount of bytes charged to the budget, which is what has to be released once the parsed objects are
+     * not used anymore. An object shared by several aliases is only charged once
+     */
+    long charged() {
+        return this.charged;
+    }
+
+    /**
+     * Returns everything charged to the budget so far
+     */
+    private void refund() {
+        assert this.budget != null;
+        this.budget.release(this.charged);
+        this.charged = 0;
+    }
+
+    /**
+     * Creates the exception thrown when the current line exceeds a limit
+     */
+    private @NotNull YamlLimitExceededException exceeded(@NotNull Limit limit, long allowed) {
+        return new YamlLimitExceededException(limit, allowed, this.line + 1);
+    }
+
+    /**
+     * Gets the name of the group started by the current line, e.g. <code>size:</code>
+     *
+     * @return the name, or <code>null</code> if the current line does not start a group
+     */
+    private @Nullable String groupName() {
+        int start = this.lineStart + this.indent;
+        int end = this.lineEnd - 1;
+        if (end <= start || this.text.charAt(end) != ':' || !isLetter(this.text.charAt(start))) return null;
+        for (int i = start + 1; i < end; i++) {
+            char c = this.text.charAt(i);
+            if (c != ' ' && c != '_' && !isLetter(c) && !isDigit(c)) return null;
+        }
+        if (this.pool != null) return this.pool.intern(this.text, start, end);
+        return this.text.subSequence(start, end).toString();
+    }
+
+    private @Nullable Yaml scalar() {
+        int flags = this.flags >= 0 ? this.flags : this.flagsOfLine();
+        if ((flags & StructuralIndex.COLON) == 0) return null;
+        int start = this.lineStart + this.indent;
+        int end = this.lineEnd;
+        while (end > start && this.text.charAt(end - 1) <= ' ') end--;
+        return this.scalar(this.text, start, end, flags, this.colon);
+    }
+
+    /**
+     * Parses a line holding a name and a value, e.g. <code>size: 2</code>, the name is only taken from the text if
+     * the value can be parsed
+     *
+     * @param s     the text holding the line
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the value, which is not whitespace
+     * @param flags the kinds of structural characters in the line
+     * @param colon the index of the first colon of the line, or <code>-1</code> if it is not known yet
+     * @return the object, or <code>null</code> if the line cannot be parsed into any of the yaml types
+     */
+    private @Nullable Yaml scalar(@NotNull CharSequence s, int start, int end, int flags, int colon) {
+        if (colon < 0) {
+            colon = start;
+            while (colon < end && s.charAt(colon) != ':') colon++;
+        }
+        if (colon == end || !isLetter(s.charAt(start))) return null;
+        for (int i = start + 1; i < colon; i++) {
+            char c = s.charAt(i);
+            if (c != ' ' && c != '_' && !isLetter(c) && !isDigit(c)) return null;
+        }
+        int v = colon + 1;
+        if (v < end && isSpace(s.charAt(v))) v++;
+        if (v == end) return null;
+        // booleans and nulls are only parsed with names starting in lower case
+        boolean lower = s.charAt(start) >= 'a';
+
+        char c = s.charAt(v);
+        if (c == '"') {
+            if ((flags & StructuralIndex.QUOTE) == 0 || end - v < 2 || s.charAt(end - 1) != '"'
+                    || indexOf(s, '"', v + 1, end - 1) >= 0) return null;
+            return new YamlString(this.name(s, start, colon), s.subSequence(v + 1, end - 1).toString());
+        }
+        if (c == '[') {
+            if ((flags & StructuralIndex.BRACKET) == 0 || end - v < 3 || s.charAt(end - 1) != ']'
+                    || indexOf(s, ']', v + 1, end - 1) >= 0) return null;
+            String[] items = s.subSequence(v + 1, end - 1).toString().split(",");
+            Object[] values = new Object[items.length];
+            for (int i = 0; i < items.length; i++) values[i] = arrayItem(items[i].trim());
+            return new YamlArray(this.name(s, start, colon), values);
+        }
+        if (c == '+' || c == '-' || isDigit(c)) {
+            if (isInteger(s, v, end))
+                return new YamlNumber(this.name(s, start, colon), Integer.parseInt(s, v, end, 10));
+            int decimals = decimals(s, v, end);
+            if (decimals < 0 || decimals > 1) return null;
+            return new YamlNumber(this.name(s, start, colon), Float.parseFloat(s.subSequence(v, end).toString()));
+        }
+        if (!lower) return null;
+        if (c == 't' || c == 'f') {
+            String value = c == 't' ? "true" : "false";
+            return end - v == value.length() && regionMatches(s, v, value)
+                    ? new YamlBoolean(this.name(s, start, colon), c == 't') : null;
+        }
+        if (c == 'n' && v == colon + 2 && s.charAt(colon + 1) == ' ' && end - v == 4 && regionMatches(s, v, "null"))
+            return new YamlNull(this.name(s, start, colon));
+        return null;
+    }
+
+    private @NotNull String name(@NotNull CharSequence s, int start, int end) {
+        if (this.pool != null) return this.pool.intern(s, start, end);
+        return s.subSequence(start, end).toString();
+    }
+
+    /**
+     * Parses an item of an array, a quoted string keeps its quotes
+     *
+     * @return the item, or <code>null</code> if it is neither a quoted string nor a number
+     */
+    private static @Nullable Object arrayItem(@NotNull String s) {
+        int n = s.length();
+        if (n > 2 && s.charAt(0) == '"' && s.charAt(n - 1) == '"' && s.indexOf('"', 1) == n - 1) return s;
+        if (isInteger(s, 0, n)) return Integer.parseInt(s);
+        if (decimals(s, 0, n) >= 0) return Float.parseFloat(s);
+        return null;
+    }
+
+    /**
+     * Checks whether a part of a text is an integer, e.g. <code>-12</code>
+     */
+    private static boolean isInteger(@NotNull CharSequence s, int from, int to) {
+        int i = from < to && (s.charAt(from) == '+' || s.charAt(from) == '-') ? from + 1 : from;
+        if (i == to) return false;
+        for (; i < to; i++) if (!isDigit(s.charAt(i))) return false;
+        return true;
+    }
+
+    /**
+     * Checks whether a part of a text is a number, e.g. <code>-1.25e+3</code>, an exponent has to be signed
+     *
+     * @return the amount of digits after the decimal point, or <code>-1</code> if the part is not a number
+     */
+    private static int decimals(@NotNull CharSequence s, int from, int to) {
+        int i = from < to && (s.charAt(from) == '+' || s.charAt(from) == '-') ? from + 1 : from;
+        int digits = i;
+        while (i < to && isDigit(s.charAt(i))) i++;
+        if (i == digits) return -1;
+        int decimals = 0;
+        if (i < to && s.charAt(i) == '.') {
+            int point = ++i;
+            while (i < to && isDigit(s.charAt(i))) i++;
+            decimals = i - point;
+            if (decimals == 0) return -1;
+        }
+        if (i < to && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            if (++i == to || (s.charAt(i) != '+' && s.charAt(i) != '-')) return -1;
+            int exponent = ++i;
+            while (i < to && isDigit(s.charAt(i))) i++;
+            if (i == exponent) return -1;
+        }
+        return i == to ? decimals : -1;
+    }
+
+    private static int indexOf(@NotNull CharSequence s, char c, int from, int to) {
+        for (int i = from; i < to; i++) if (s.charAt(i) == c) return i;
+        return -1;
+    }
+
+    private static boolean regionMatches(@NotNull CharSequence s, int from, @NotNull String value) {
+        for (int i = 0; i < value.length(); i++) if (s.charAt(from + i) != value.charAt(i)) return false;
+        return true;
+    }
+
+    /**
+     * Gets the kinds of structural characters in the current line and the index of its first colon, if there is no
+     * index to take them from
+     */
+    private int flagsOfLine() {
+        int flags = 0;
+        this.colon = -1;
+        for (int i = this.lineStart + this.indent; i < this.lineEnd; i++) {
+            byte kind = StructuralIndex.kindOf(this.text.charAt(i));
+            if (kind == StructuralIndex.COLON && this.colon < 0) this.colon = i;
+            flags |= kind;
+        }
+        return flags;
+    }
+
+    /**
+     * Moves to the next line which is neither blank nor a comment
+     */
+    private void advance() {
+        long t = this.stats == null ? 0 : System.nanoTime();
+        this.nextLine();
+        if (this.stats != null) this.stats.add(ParseStats.Phase.SPLIT, t);
+    }
+
+    private void nextLine() {
+        if (this.hasLine) this.lastLine = this.line;
+        while (this.reader == null ? this.next < this.length : this.readLine()) {
+            this.line++;
+            if ((this.line & (ParserLimits.CLOCK_INTERVAL - 1)) == 0 && this.limits.isTimed()
+                    && System.nanoTime() - this.deadline > 0)
+                throw this.exceeded(Limit.TIME, this.limits.timeoutNanos);
+            int end;
+            this.flags = -1;
+            if (this.index != null) {
+                StructuralIndex x = this.index;
+                int flags = 0;
+                int colon = -1;
+                int k = this.cursor;
+                for (byte kind; k < x.count && (kind = x.kinds[k]) != StructuralIndex.NEWLINE; k++) {
+                    if (kind == StructuralIndex.COLON && colon < 0) colon = x.positions[k];
+                    flags |= kind;
+                }
+                this.lineStart = this.next;
+                end = k < x.count ? x.positions[k++] : this.length;
+                this.next = end + 1;
+                this.cursor = k;
+                this.flags = flags;
+                this.colon = colon;
+            } else if (this.reader == null) {
+                this.lineStart = this.next;
+                end = this.lineStart;
+                while (end < this.length && this.text.charAt(end) != '\n') end++;
+                this.next = end + 1;
+            } else {
+                this.lineStart = 0;
+                end = this.length;
+            }
+            if (end > this.lineStart && this.text.charAt(end - 1) == '\r') end--;
+            this.lineEnd = end;
+            if (end - this.lineStart > this.limits.maxScalarLength)
+                throw this.exceeded(Limit.SCALAR_LENGTH, this.limits.maxScalarLength);
+
+            int i = this.lineStart;
+            while (i < end && Character.isWhitespace(this.text.charAt(i))) i++;
+            if (i == end) continue;
+            if (this.text.charAt(i) == '#' && i + 1 < end) continue;
+
+            this.indent = i - this.lineStart;
+            this.hasLine = true;
+            return;
+        }
+        this.hasLine = false;
+    }
+
+    /**
+     * Reads the next line from the reader, without its line break
+     *
+     * @return whether there was another line
+     */
+    private boolean readLine() {
+        assert this.reader != null;
+        StringBuilder line = (StringBuilder) this.text;
+        line.setLength(0);
+        try {
+            while (true) {
+                if (this.position == this.limit) {
+                    long t = this.stats == null ? 0 : System.nanoTime();
+                    int n = this.reader.read(this.buffer);
+                    if (this.stats != null) this.stats.read(t);
+                    if (n <= 0) {
+                        this.length = line.length();
+                        return this.length > 0;
+                    }
+                    this.position = 0;
+                    this.limit = n;
+                    this.consumed += n;
+                    if (this.consumed > this.limits.maxDocumentLength)
+                        throw new YamlLimitExceededException(Limit.DOCUMENT_LENGTH, this.limits.maxDocumentLength,
+                                this.line + 2);
+                }
+                int from = this.position;
+                while (this.position < this.limit && this.buffer[this.position] != '\n') this.position++;
+                line.append(this.buffer, from, this.position - from);
+                // never hold more of a line than the limits allow
+                if (line.length() - 1 > this.limits.maxScalarLength)
+                    throw new YamlLimitExceededException(Limit.SCALAR_LENGTH, this.limits.maxScalarLength,
+                            this.line + 2);
+                if (this.position < this.limit) {
+                    this.position++;
+                    this.length = line.length();
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Receives the objects of a parse in document order. A group is emitted as its beginning, its items and its end,
+     * except for an anchored group and an alias, which are emitted as a whole by {@link #item(Yaml)}
+     */
+    interface Sink {
+        /**
+         * Begins a group, its items are emitted until it {@link #end(int) ends}
+         *
+         * @param name the name of the group
+         */
+        void begin(@NotNull String name);
+
+        /**
+         * Emits an object which is not a group begun by {@link #begin(String)}
+         *
+         * @param y the object
+         */
+        void item(@NotNull Yaml y);
+
+        /**
+         * Ends the group begun last
+         *
+         * @param items the amount of items emitted into the group
+         */
+        void end(int items);
+    }
+
+    /**
+     * An anchored object, with the amount of objects and the height it stands for, and the value it was parsed from if
+     * it is not a group
+     */
+    private record Anchor(@NotNull Yaml node, long size, int height, @Nullable String value) {
+    }
+
+    /**
+     * Checks whether an object of the given name can be marked as an anchor or alias, see {@link #marker()}
+     */
+    static boolean isMarkable(@NotNull String name) {
+        if (name.isEmpty() || !isLetter(name.charAt(0))) return false;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != ' ' && c != '_' && !isLetter(c) && !isDigit(c)) return false;
+        }
+        return true;
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Checks whether a character is whitespace the way <code>\s</code> of a regular expression matches it
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,188 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the documents of a stream one at a time, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      try (YamlReader documents = YamlReader.documents(YamlSource.of(Path.of("events.yaml")))) {
+ *          while (documents.hasNext()) {
+ *              Yaml[] event = documents.next();
+ *              ...
+ *          }
+ *      }
+ *     }</pre>
+ * </blockquote>
+ * Documents are separated by lines starting with <code>---</code>, anything following the marker on the same line is
+ * the first line of the next document. A stream without any marker is a single document, blank lines and comments
+ * before the first marker are ignored.
+ * <p>
+ * A document is only read from the source when it is asked for, and the text of one document is dropped before the
+ * next is read, so the memory needed is bounded by the largest document instead of the whole stream. The source is
+ * closed once the last document was read, or when this reader is closed.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlSource
+ * @since 1.8
+ */
+public final class YamlReader implements Iterator<Yaml[]>, Closeable {
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    private final StringBuilder document = new StringBuilder();
+    private @Nullable String carry;
+    private boolean inDocument;
+    private boolean end;
+    private Yaml @Nullable [] next;
+
+    private YamlReader(@NotNull Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Creates a reader iterating over the documents of a source, no document is read before it is asked for
+     *
+     * @param source the source to read
+     * @return the reader, which should be closed if not all documents are read
+     * @throws IOException if the source cannot be opened
+     */
+    public static @NotNull YamlReader documents(@NotNull YamlSource source) throws IOException {
+        return new YamlReader(source.reader());
+    }
+
+    /**
+     * Checks if there is another document, reading it from the source if needed
+     *
+     * @return whether there is another document
+     * @throws UncheckedIOException if the source cannot be read
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.next == null && !this.end) {
+            try {
+                this.next = this.read();
+            } catch (IOException e) {
+                this.close();
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this.next != null;
+    }
+
+    /**
+     * Gets the next document
+     *
+     * @return the top level objects of the document
+     * @throws NoSuchElementException if there are no more documents
+     * @throws UncheckedIOException   if the source cannot be read
+     */
+    @Override
+    public Yaml @NotNull [] next() {
+        if (!this.hasNext()) throw new NoSuchElementException();
+        Yaml[] y = this.next;
+        this.next = null;
+        return y;
+    }
+
+    /**
+     * Closes the source, no further documents are read
+     */
+    @Override
+    public void close() {
+        this.end = true;
+        try {
+            this.in.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private Yaml @Nullable [] read() throws IOException {
+        StringBuilder d = this.document;
+        d.setLength(0);
+        if (this.carry != null) d.append(this.carry).append('\n');
+        this.carry = null;
+
+        while (true) {
+            int start = d.length();
+            if (!this.readLine()) {
+                this.close();
+                if (!this.inDocument) return null;
+                this.inDocument = false;
+                return this.parse();
+            }
+            if (this.isMarker(start)) {
+                String rest = d.substring(start + 3).trim();
+                d.setLength(start);
+                if (this.inDocument) {
+                    if (!rest.isEmpty()) this.carry = rest;
+                    return this.parse();
+                }
+                // the first marker, anything before it is blank
+                d.setLength(0);
+                if (!rest.isEmpty()) d.append(rest).append('\n');
+                this.inDocument = true;
+            } else if (!this.inDocument && !isBlank(d, start)) this.inDocument = true;
+        }
+    }
+
+    private Yaml @NotNull [] parse() {
+        Yaml[] y = new YamlParser(this.document, null).parse();
+        // keep the buffer of a single huge document from being held on to
+        if (this.document.capacity() > 1 << 20) this.document.trimToSize();
+        return y;
+    }
+
+    /**
+     * Appends the next line of the source to the document, including its line break
+     *
+     * @return whether a line could be read
+     */
+    private boolean readLine() throws IOException {
+        boolean any = false;
+        while (true) {
+            if (this.position == this.limit) {
+                int n = this.in.read(this.buffer);
+                if (n <= 0) return any;
+                this.position = 0;
+                this.limit = n;
+            }
+            int from = this.position;
+            while (this.position < this.limit && this.buffer[this.position] != '\n') this.position++;
+            boolean lineEnd = this.position < this.limit;
+            if (lineEnd) this.position++;
+            this.document.append(this.buffer, from, this.position - from);
+            any = true;
+            if (lineEnd) return true;
+        }
+    }
+
+    private boolean isMarker(int start) {
+        StringBuilder d = this.document;
+        if (d.length() < start + 3 || d.charAt(start) != '-' || d.charAt(start + 1) != '-' || d.charAt(start + 2) != '-')
+            return false;
+        if (d.length() == start + 3) return true;
+        char c = d.charAt(start + 3);
+        return c == '\n' || c == '\r' || c == ' ' || c == '\t';
+    }
+
+    private static boolean isBlank(@NotNull StringBuilder d, int start) {
+        for (int i = start; i < d.length(); i++) {
+            char c = d.charAt(i);
+            if (c == '#') return true;
+            if (!Character.isWhitespace(c)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,332 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A source of yaml text with a known charset, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      Yaml[] items = Yaml.fromSource(YamlSource.of(Path.of("config.yaml")));
+ *      Yaml[] defaults = Yaml.fromSource(YamlSource.resource("defaults.yaml"));
+ *     }</pre>
+ * </blockquote>
+ * The text of a source is decoded straight into the buffer the parser reads from, without building a
+ * <code>String</code> or splitting it into lines first. Files are mapped into memory instead of being read into an
+ * array, arrays and buffers are decoded without being copied, streams are parsed line by line while they are read.
+ * A source over an <code>InputStream</code> can only be read once, all other sources can be read any number of times.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see Yaml#fromSource(YamlSource)
+ * @since 1.8
+ */
+public abstract class YamlSource {
+    /**
+     * The charset the text of this source is encoded in
+     */
+    public final Charset charset;
+
+    private YamlSource(@NotNull Charset charset) {
+        this.charset = Objects.requireNonNull(charset);
+    }
+
+    /**
+     * Creates a source reading a file encoded in <code>UTF-8</code>
+     *
+     * @param p the path of the file
+     * @return the source
+     * @see #of(Path, Charset)
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlSource of(@NotNull Path p) {
+        return of(p, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a source reading a file, which is mapped into memory when read as a whole. A file whose name ends with
+     * <code>.gz</code> is decompressed while it is read instead
+     *
+     * @param p       the path of the file
+     * @param charset the charset of the file
+     * @return the source
+     * @see #of(Path)
+     * @see #gzip(YamlSource)
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull YamlSource of(@NotNull Path p, @NotNull Charset charset) {
+        Objects.requireNonNull(p);
+        YamlSource file = new YamlSource(charset) {
+            @Override
+            @NotNull InputStream open() throws IOException {
+                return Files.newInputStream(p);
+            }
+
+            @Override
+            Yaml @NotNull [] parse(@Nullable YamlHeapBudget budget) throws IOException {
+                CharBuffer text;
+                try (FileChannel ch = FileChannel.open(p)) {
+                    text = this.decode(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+                }
+                return new YamlParser(text, null).budget(budget).parse();
+            }
+
+            @Override
+            public @NotNull String toString() {
+                return p.toString();
+            }
+        };
+        return isGzip(p) ? gzip(file) : file;
+    }
+
+    /**
+     * Creates a source reading a stream encoded in <code>UTF-8</code>, the stream is closed once it was read
+     *
+     * @param in the stream to read
+     * @return the source, which can only be read once
+     * @see #of(InputStream, Charset)
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlSource of(@NotNull InputStream in) {
+        return of(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a source reading a stream, the stream is closed once it was read
+     *
+     * @param in      the stream to read
+     * @param charset the charset of the stream
+     * @return the source, which can only be read once
+     * @see #of(InputStream)
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull YamlSource of(@NotNull InputStream in, @NotNull Charset charset) {
+        Objects.requireNonNull(in);
+        return new YamlSource(charset) {
+            private boolean read;
+
+            @Override
+            synchronized @NotNull InputStream open() throws IOException {
+                if (this.read) throw new IOException("The stream of this source was already read");
+                this.read = true;
+                return in;
+            }
+
+            @Override
+            public @NotNull String toString() {
+                return in.toString();
+            }
+        };
+    }
+
+    /**
+     * Creates a source reading an array encoded in <code>UTF-8</code>
+     *
+     * @param bytes the encoded text, which is not copied
+     * @return the source
+     * @see #of(byte[], Charset)
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlSource of(byte @NotNull [] bytes) {
+        return of(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a source reading an array
+     *
+     * @param bytes   the encoded text, which is not copied
+     * @param charset the charset of the text
+     * @return the source
+     * @see #of(byte[])
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull YamlSource of(byte @NotNull [] bytes, @NotNull Charset charset) {
+        return of(ByteBuffer.wrap(bytes), charset);
+    }
+
+    /**
+     * Creates a source reading the remaining bytes of a buffer, the position of the buffer is not changed
+     *
+     * @param buffer  the encoded text, which is not copied and can be a direct buffer
+     * @param charset the charset of the text
+     * @return the source
+     */
+    @Contract("_, _ -> new")
+    public static @NotNull YamlSource of(@NotNull ByteBuffer buffer, @NotNull Charset charset) {
+        ByteBuffer b = buffer.asReadOnlyBuffer();
+        return new YamlSource(charset) {
+            @Override
+            @NotNull InputStream open() {
+                ByteBuffer in = b.duplicate();
+                return new InputStream() {
+                    @Override
+                    public int read() {
+                        return in.hasRemaining() ? in.get() & 0xFF : -1;
+                    }
+
+                    @Override
+                    public int read(byte @NotNull [] bytes, int off, int len) {
+                        if (!in.hasRemaining()) return len == 0 ? 0 : -1;
+                        len = Math.min(len, in.remaining());
+                        in.get(bytes, off, len);
+                        return len;
+                    }
+                };
+            }
+
+            @Override
+            Yaml @NotNull [] parse(@Nullable YamlHeapBudget budget) throws IOException {
+                return new YamlParser(this.decode(b.duplicate()), null).budget(budget).parse();
+            }
+
+            @Override
+            public @NotNull String toString() {
+                return b.toString();
+            }
+        };
+    }
+
+    /**
+     * Creates a source reading a resource encoded in <code>UTF-8</code> from the class path
+     *
+     * @param name the name of the resource, e.g. <code>assets/yaml/ui.yaml</code>
+     * @return the source
+     * @see #resource(ClassLoader, String, Charset)
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlSource resource(@NotNull String name) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return resource(loader == null ? YamlSource.class.getClassLoader() : loader, name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a source reading a resource from the class path
+     *
+     * @param loader  the class loader to find the resource with
+     * @param name    the name of the resource, e.g. <code>assets/yaml/ui.yaml</code>
+     * @param charset the charset of the resource
+     * @return the source
+     * @see #resource(String)
+     */
+    @Contract("_, _, _ -> new")
+    public static @NotNull YamlSource resource(@NotNull ClassLoader loader, @NotNull String name,
+                                               @NotNull Charset charset) {
+        Objects.requireNonNull(loader);
+        Objects.requireNonNull(name);
+        return new YamlSource(charset) {
+            @Override
+            @NotNull InputStream open() throws IOException {
+                InputStream in = loader.getResourceAsStream(name);
+                if (in == null) throw new NoSuchFileException(name, null, "No such resource");
+                return in;
+            }
+
+            @Override
+            public @NotNull String toString() {
+                return "resource " + name;
+            }
+        };
+    }
+
+    /**
+     * Creates a source decompressing the <code>gzip</code> data of another source, e.g.
+     * <blockquote>
+     * <pre>{@code
+     *      Yaml[] items = Yaml.fromSource(YamlSource.gzip(YamlSource.resource("archive/config.yaml.gz")));
+     *     }</pre>
+     * </blockquote>
+     * The data is decompressed and parsed while it is read, so the decompressed text is never held in memory as a
+     * whole. Files ending with <code>.gz</code> are decompressed by {@link #of(Path, Charset)} already.
+     *
+     * @param compressed the source of the compressed data
+     * @return the source, using the charset of the compressed source
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlSource gzip(@NotNull YamlSource compressed) {
+        return new YamlSource(compressed.charset) {
+            @Override
+            @NotNull InputStream open() throws IOException {
+                InputStream in = compressed.open();
+                try {
+                    return new GZIPInputStream(in, 65536);
+                } catch (IOException e) {
+                    in.close();
+                    throw e;
+                }
+            }
+
+            @Override
+            public @NotNull String toString() {
+                return "gzip " + compressed;
+            }
+        };
+    }
+
+    /**
+     * Checks if a file holds <code>gzip</code> data, based on its name
+     */
+    static boolean isGzip(@NotNull Path p) {
+        Path name = p.getFileName();
+        return name != null && name.toString().endsWith(".gz");
+    }
+
+    /**
+     * Opens the encoded text of this source
+     *
+     * @return a new stream, to be closed by the caller
+     * @throws IOException if this source cannot be read
+     */
+    abstract @NotNull InputStream open() throws IOException;
+
+    /**
+     * Opens the decoded text of this source
+     *
+     * @return a new reader, to be closed by the caller
+     * @throws IOException if this source cannot be read
+     */
+    @NotNull Reader reader() throws IOException {
+        return new InputStreamReader(this.open(), this.decoder());
+    }
+
+    /**
+     * Parses the text of this source, streaming it line by line unless the source holds all of it already
+     *
+     * @param budget the budget to charge the parsed objects to, can be <code>null</code>
+     * @return the top level objects of the text
+     * @throws IOException             if this source cannot be read or the text is not valid in the charset of this
+     *                                 source
+     * @throws YamlHeapBudget.Exceeded if the objects do not fit into the budget
+     */
+    Yaml @NotNull [] parse(@Nullable YamlHeapBudget budget) throws IOException {
+        try (Reader r = this.reader()) {
+            return new YamlParser(r, null).budget(budget).parse();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Decodes all remaining bytes of a buffer at once
+     */
+    final @NotNull CharBuffer decode(@NotNull ByteBuffer bytes) throws CharacterCodingException {
+        return this.decoder().decode(bytes);
+    }
+
+    private @NotNull CharsetDecoder decoder() {
+        return this.charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+}
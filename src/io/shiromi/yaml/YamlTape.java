@@ -0,0 +1,665 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A read only document stored as a flat tape outside the heap, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlTape tape = YamlTape.of(Yaml.fromSource(YamlSource.of(Path.of("big.yaml"))));
+ *      tape.save(Path.of("big.tape"));
+ *      ...
+ *      YamlTape mapped = YamlTape.map(Path.of("big.tape"));
+ *      int w = (int) mapped.get("size").get("w").getNumber();
+ *     }</pre>
+ * </blockquote>
+ * The tape holds one fixed size entry per object in document order, each with its type, the offset of its name, its
+ * value and the amount of entries of its subtree, so looking up a child skips over the subtrees of its siblings.
+ * Names are stored once each after the entries, followed by the strings and arrays, and are compared without being
+ * decoded. The tape lives in a direct buffer, or in a file mapped into memory, so it puts no load on the garbage
+ * collector no matter how large it is.
+ * <p>
+ * A document which is too large to be parsed into the heap as a whole is written onto a tape while it is parsed, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      YamlTape tape = YamlTape.of(YamlSource.of(Path.of("huge.yaml.gz")), Path.of("huge.tape"));
+ *     }</pre>
+ * </blockquote>
+ * Only the line being parsed, the names and the anchored objects are held in the heap then, see
+ * {@link #of(YamlSource, Path)}.
+ * <p>
+ * The entries and the data are addressed by 32 bit offsets, so a tape holds at most 2 GiB, header, entries and data
+ * together. Creating a larger tape fails with an <code>IllegalArgumentException</code>.
+ * <p>
+ * Objects on the tape are accessed through {@link Node nodes}, small views which are only created when asked for.
+ * {@link Node#toYaml()} creates the regular yaml object of a node if needed.
+ * <pre>
+ *      tape    := "YAMT" version:u8 pad:u24 roots:i32 entries:i32 strings:i32 entry* data
+ *      entry   := type:u8 float:u8 pad:u16 name:i32 subtree:i32 value:i64
+ *      data    := (length:i32 byte*)*
+ * </pre>
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlBinary
+ * @since 1.8
+ */
+public final class YamlTape {
+    private static final byte[] MAGIC = {'Y', 'A', 'M', 'T'};
+    private static final byte VERSION = 1;
+    private static final int HEADER = 20;
+    private static final int ENTRY = 20;
+
+    /**
+     * The header and the entries
+     */
+    private final ByteBuffer tape;
+    /**
+     * The names, strings and arrays the entries refer to
+     */
+    private final ByteBuffer data;
+    private final int roots;
+    private final int entries;
+
+    private YamlTape(@NotNull ByteBuffer tape) throws IOException {
+        if (tape.limit() < HEADER) throw new IOException("Not a yaml tape");
+        for (int i = 0; i < MAGIC.length; i++) if (tape.get(i) != MAGIC[i]) throw new IOException("Not a yaml tape");
+        if (tape.get(4) != VERSION) throw new IOException("Unknown yaml tape version " + tape.get(4));
+        this.roots = tape.getInt(8);
+        this.entries = tape.getInt(12);
+        int strings = tape.getInt(16);
+        if (this.roots < 0 || this.entries < this.roots || strings != HEADER + (long) this.entries * ENTRY
+                || strings > tape.limit())
+            throw new IOException("Corrupt yaml tape header");
+        this.tape = tape.slice(0, strings);
+        this.data = tape.slice(strings, tape.limit() - strings);
+    }
+
+    private YamlTape(@NotNull ByteBuffer tape, @NotNull ByteBuffer data, int roots, int entries) {
+        this.tape = tape;
+        this.data = data;
+        this.roots = roots;
+        this.entries = entries;
+    }
+
+    /**
+     * Creates a tape of the given objects in a direct buffer, including the items of the objects they
+     * {@link YamlObject#merge(YamlObject...) merge}
+     *
+     * @param items the top level objects
+     * @return the tape
+     * @throws IllegalArgumentException if the objects take more than 2 GiB on a tape
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlTape of(Yaml @NotNull ... items) {
+        Writer w = new Writer(new Region(null, HEADER), new Region(null, 0));
+        try {
+            for (Yaml y : items) w.item(y);
+            return w.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a tape of the text of a source in a direct buffer, the entries are written while the text is streamed
+     * through the parser, without the document being built in the heap first. The buffer counts against the direct
+     * memory of the jvm, see <code>-XX:MaxDirectMemorySize</code>
+     *
+     * @param source the source to read
+     * @return the tape
+     * @throws IOException              if the source cannot be read or its text is not valid in its charset
+     * @throws IllegalArgumentException if the document takes more than 2 GiB on a tape
+     * @see #of(YamlSource, Path)
+     */
+    @Contract("_ -> new")
+    public static @NotNull YamlTape of(@NotNull YamlSource source) throws IOException {
+        Writer w = new Writer(new Region(null, HEADER), new Region(null, 0));
+        w.parse(source);
+        return w.finish();
+    }
+
+    /**
+     * Creates a tape of the text of a source in a file and {@link #map(Path) maps} it, the entries are written to the
+     * file while the text is streamed through the parser. Neither the text, the document nor the tape is held in the
+     * heap, only the line being parsed, the names and the anchored objects. The data is collected in a temporary
+     * file next to the tape until the entries are written.
+     * <p>
+     * Unlike {@link Yaml#fromSource(YamlSource)}, an item repeated in an object with the same name and value is not
+     * refused, as the items parsed before are not kept to compare it with.
+     *
+     * @param source the source to read
+     * @param p      the path to write the tape to, the file is replaced if it exists
+     * @return the tape
+     * @throws IOException              if the source cannot be read, its text is not valid in its charset or the tape
+     *                                  cannot be written, the file is deleted then
+     * @throws IllegalArgumentException if the document takes more than 2 GiB on a tape, the file is deleted then
+     */
+    public static @NotNull YamlTape of(@NotNull YamlSource source, @NotNull Path p) throws IOException {
+        Path dir = p.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, p.getFileName().toString(), ".data");
+        boolean written = false;
+        try (FileChannel ch = FileChannel.open(p, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+             FileChannel data = FileChannel.open(temp, READ, WRITE, DELETE_ON_CLOSE)) {
+            Writer w = new Writer(new Region(ch, HEADER), new Region(data, 0));
+            w.parse(source);
+            w.finish();
+            written = true;
+            return new YamlTape(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } finally {
+            Files.deleteIfExists(temp);
+            if (!written) Files.deleteIfExists(p);
+        }
+    }
+
+    /**
+     * Maps a tape written by {@link #save(Path)} into memory, nothing of it is read into the heap
+     *
+     * @param p the path of the tape
+     * @return the tape
+     * @throws IOException if the file cannot be mapped or is not a tape
+     */
+    public static @NotNull YamlTape map(@NotNull Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, READ)) {
+            return new YamlTape(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /**
+     * Writes this tape to a file, to be {@link #map(Path) mapped} again later
+     *
+     * @param p the path to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void save(@NotNull Path p) throws IOException {
+        try (FileChannel ch = FileChannel.open(p, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            for (ByteBuffer b : new ByteBuffer[]{this.tape.duplicate().rewind(), this.data.duplicate().rewind()})
+                while (b.hasRemaining()) ch.write(b);
+        }
+    }
+
+    /**
+     * Gets the size of this tape in bytes
+     */
+    public long sizeInBytes() {
+        return (long) this.tape.limit() + this.data.limit();
+    }
+
+    /**
+     * Gets the amount of top level objects
+     */
+    public int length() {
+        return this.roots;
+    }
+
+    /**
+     * Gets a top level object by its index
+     *
+     * @param index the index of the object
+     * @return the object, or <code>null</code> if there is none at that index
+     */
+    public @Nullable Node get(int index) {
+        return this.child(0, this.entries, index);
+    }
+
+    /**
+     * Gets a top level object by its name
+     *
+     * @param name the name of the object
+     * @return the object, or <code>null</code> if there is none with that name
+     */
+    public @Nullable Node get(@NotNull String name) {
+        return this.child(0, this.entries, name);
+    }
+
+    /**
+     * Creates the regular yaml objects of all top level objects
+     *
+     * @return the objects
+     */
+    public Yaml @NotNull [] toYaml() {
+        Yaml[] y = new Yaml[this.roots];
+        int e = 0;
+        for (int i = 0; i < y.length; i++) {
+            Node n = new Node(e);
+            y[i] = n.toYaml();
+            e += n.subtree();
+        }
+        return y;
+    }
+
+    private @Nullable Node child(int from, int to, int index) {
+        if (index < 0) return null;
+        for (int e = from; e < to; e += this.subtree(e)) if (index-- == 0) return new Node(e);
+        return null;
+    }
+
+    private @Nullable Node child(int from, int to, @NotNull String name) {
+        byte[] b = name.getBytes(StandardCharsets.UTF_8);
+        for (int e = from; e < to; e += this.subtree(e)) if (this.equals(this.nameOf(e), b)) return new Node(e);
+        return null;
+    }
+
+    private int at(int entry) {
+        return HEADER + entry * ENTRY;
+    }
+
+    private int subtree(int entry) {
+        return this.tape.getInt(this.at(entry) + 8);
+    }
+
+    private int nameOf(int entry) {
+        return this.tape.getInt(this.at(entry) + 4);
+    }
+
+    private boolean equals(int string, byte @NotNull [] b) {
+        if (this.data.getInt(string) != b.length) return false;
+        for (int i = 0; i < b.length; i++) if (this.data.get(string + 4 + i) != b[i]) return false;
+        return true;
+    }
+
+    private byte @NotNull [] bytes(int string) {
+        byte[] b = new byte[this.data.getInt(string)];
+        this.data.get(string + 4, b);
+        return b;
+    }
+
+    private @NotNull String string(int string) {
+        return new String(this.bytes(string), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A view of an object on the tape, holding nothing but its position
+     */
+    public final class Node {
+        private final int entry;
+
+        private Node(int entry) {
+            this.entry = entry;
+        }
+
+        private int at() {
+            return YamlTape.this.at(this.entry);
+        }
+
+        private int subtree() {
+            return YamlTape.this.subtree(this.entry);
+        }
+
+        private long value() {
+            return YamlTape.this.tape.getLong(this.at() + 12);
+        }
+
+        /**
+         * Gets the type of the regular yaml object of this node
+         */
+        public @NotNull Class<? extends Yaml> getType() {
+            return switch (YamlTape.this.tape.get(this.at())) {
+                case YamlBinary.STRING -> YamlString.class;
+                case YamlBinary.NUMBER -> YamlNumber.class;
+                case YamlBinary.BOOLEAN -> YamlBoolean.class;
+                case YamlBinary.ARRAY -> YamlArray.class;
+                case YamlBinary.OBJECT -> YamlObject.class;
+                default -> YamlNull.class;
+            };
+        }
+
+        /**
+         * Gets the name of this node
+         */
+        public @NotNull String getName() {
+            return YamlTape.this.string(YamlTape.this.nameOf(this.entry));
+        }
+
+        /**
+         * Gets the amount of children, if this node is an object
+         *
+         * @return the amount of children, <code>0</code> if this node is no object
+         */
+        public int length() {
+            return this.getType() == YamlObject.class ? (int) this.value() : 0;
+        }
+
+        /**
+         * Gets a child by its index
+         *
+         * @param index the index of the child
+         * @return the child, or <code>null</code> if this node is no object or has no child at that index
+         */
+        public @Nullable Node get(int index) {
+            if (this.getType() != YamlObject.class) return null;
+            return YamlTape.this.child(this.entry + 1, this.entry + this.subtree(), index);
+        }
+
+        /**
+         * Gets a child by its name, skipping over the subtrees of all children before it
+         *
+         * @param name the name of the child
+         * @return the child, or <code>null</code> if this node is no object or has no child with that name
+         */
+        public @Nullable Node get(@NotNull String name) {
+            if (this.getType() != YamlObject.class) return null;
+            return YamlTape.this.child(this.entry + 1, this.entry + this.subtree(), name);
+        }
+
+        /**
+         * Gets the value of a string node
+         *
+         * @return the value, or <code>null</code> if this node is no string
+         */
+        public @Nullable String getString() {
+            return this.getType() == YamlString.class ? YamlTape.this.string((int) this.value()) : null;
+        }
+
+        /**
+         * Gets the value of a number node
+         *
+         * @return the value, or <code>NaN</code> if this node is no number
+         */
+        public double getNumber() {
+            if (this.getType() != YamlNumber.class) return Double.NaN;
+            return YamlTape.this.tape.get(this.at() + 1) == 0 ? this.value()
+                    : Float.intBitsToFloat((int) this.value());
+        }
+
+        /**
+         * Gets the value of a boolean node
+         *
+         * @return the value, <code>false</code> if this node is no boolean
+         */
+        public boolean getBoolean() {
+            return this.getType() == YamlBoolean.class && this.value() != 0;
+        }
+
+        /**
+         * Creates the regular yaml object of this node, including all of its children
+         *
+         * @return the object
+         */
+        public @NotNull Yaml toYaml() {
+            String name = this.getName();
+            long v = this.value();
+            switch (YamlTape.this.tape.get(this.at())) {
+                case YamlBinary.STRING:
+                    return new YamlString(name, YamlTape.this.string((int) v));
+                case YamlBinary.NUMBER:
+                    return YamlTape.this.tape.get(this.at() + 1) == 0
+                            ? new YamlNumber(name, (int) v) : new YamlNumber(name, Float.intBitsToFloat((int) v));
+                case YamlBinary.BOOLEAN:
+                    return new YamlBoolean(name, v != 0);
+                case YamlBinary.ARRAY: {
+                    byte[] b = YamlTape.this.bytes((int) v);
+                    YamlBinary.Decoder d = new YamlBinary.Decoder(b, 0, b.length);
+                    try {
+                        Object[] values = new Object[d.count()];
+                        for (int i = 0; i < values.length; i++) values[i] = d.value();
+                        return new YamlArray(name, values);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                case YamlBinary.OBJECT: {
+                    Yaml[] values = new Yaml[(int) v];
+                    int e = this.entry + 1;
+                    for (int i = 0; i < values.length; i++) {
+                        Node n = new Node(e);
+                        values[i] = n.toYaml();
+                        e += n.subtree();
+                    }
+                    return new YamlObject(name, values);
+                }
+                default:
+                    return new YamlNull(name);
+            }
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return this.toYaml().toString();
+        }
+    }
+
+    /**
+     * Writes the entries of a tape and the data they refer to, as the objects are given to it
+     */
+    private static final class Writer implements YamlParser.Sink {
+        private final Region entries;
+        private final Region data;
+        private final Map<String, Integer> names = new HashMap<>();
+        private int count;
+        private int roots;
+        /**
+         * The entries of the groups begun but not ended yet
+         */
+        private int[] open = new int[16];
+        private int depth;
+
+        Writer(@NotNull Region entries, @NotNull Region data) {
+            this.entries = entries;
+            this.data = data;
+        }
+
+        /**
+         * Writes the objects of a source while its text is streamed through the parser line by line
+         */
+        void parse(@NotNull YamlSource source) throws IOException {
+            try (Reader r = source.reader()) {
+                new YamlParser(r, null).emit(this).parse();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public void begin(@NotNull String name) {
+            if (this.depth == 0) this.roots++;
+            if (this.depth == this.open.length) this.open = Arrays.copyOf(this.open, this.depth * 2);
+            this.open[this.depth++] = this.count;
+            this.entry(YamlBinary.OBJECT, false, name, 0);
+        }
+
+        @Override
+        public void item(@NotNull Yaml y) {
+            if (this.depth == 0) this.roots++;
+            this.write(y);
+        }
+
+        @Override
+        public void end(int items) {
+            int e = this.open[--this.depth];
+            this.patch(e, this.count - e, items);
+        }
+
+        /**
+         * Writes the entry of an object and its subtree
+         */
+        private void write(@NotNull Yaml y) {
+            if (y instanceof YamlString s) {
+                this.entry(YamlBinary.STRING, false, y.name, this.blob(s.value.getBytes(StandardCharsets.UTF_8)));
+            } else if (y instanceof YamlNumber n) {
+                boolean isFloat = !n.type.equals("Integer");
+                this.entry(YamlBinary.NUMBER, isFloat, y.name,
+                        isFloat ? Float.floatToRawIntBits((float) n.value) : n.size());
+            } else if (y instanceof YamlBoolean b) {
+                this.entry(YamlBinary.BOOLEAN, false, y.name, b.value ? 1 : 0);
+            } else if (y instanceof YamlNull) {
+                this.entry(YamlBinary.NULL, false, y.name, 0);
+            } else if (y instanceof YamlArray a) {
+                YamlBinary.Encoder enc = new YamlBinary.Encoder();
+                enc.varint(a.values.length);
+                for (Object o : a.values) enc.value(o);
+                this.entry(YamlBinary.ARRAY, false, y.name, this.blob(enc.toByteArray()));
+            } else if (y instanceof YamlObject o) {
+                int e = this.count;
+                this.entry(YamlBinary.OBJECT, false, y.name, 0);
+                Yaml[] items = o.getAll();
+                for (Yaml y1 : items) this.write(y1);
+                this.patch(e, this.count - e, items.length);
+            } else throw new IllegalArgumentException("Cannot store " + y.getTypeName() + " on a tape");
+        }
+
+        private void entry(byte type, boolean isFloat, @NotNull String name, long value) {
+            Integer at = this.names.get(name);
+            if (at == null) this.names.put(name, at = this.blob(name.getBytes(StandardCharsets.UTF_8)));
+            ByteBuffer b = this.entries.reserve(ENTRY);
+            b.put(type).put((byte) (isFloat ? 1 : 0)).putShort((short) 0).putInt(at).putInt(1).putLong(value);
+            this.count++;
+            this.checkSize();
+        }
+
+        /**
+         * Sets the amount of entries of the subtree and the amount of items of a group written before
+         */
+        private void patch(int entry, int subtree, long items) {
+            this.entries.put(HEADER + (long) entry * ENTRY + 8, subtree, items);
+        }
+
+        /**
+         * Writes the length and the bytes of a name, string or array to the data
+         *
+         * @return the offset of the blob in the data
+         */
+        private int blob(byte @NotNull [] b) {
+            int at = (int) this.data.size();
+            this.data.reserve(4 + b.length).putInt(b.length).put(b);
+            this.checkSize();
+            return at;
+        }
+
+        private void checkSize() {
+            if (this.entries.size() + this.data.size() > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The objects are too large for a single tape");
+        }
+
+        /**
+         * Writes the header and appends the data to the entries
+         *
+         * @return the tape, if it was written to a direct buffer, otherwise <code>null</code> after the tape was
+         * written to the file
+         */
+        @Nullable YamlTape finish() throws IOException {
+            int strings = (int) this.entries.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER).put(MAGIC).put(VERSION).put(new byte[3])
+                    .putInt(this.roots).putInt(this.count).putInt(strings).flip();
+            this.entries.write(0, header);
+            if (this.entries.file == null) {
+                return new YamlTape(this.entries.buffer.flip(), this.data.buffer.flip(), this.roots, this.count);
+            }
+            assert this.data.file != null;
+            this.entries.flush();
+            this.data.flush();
+            long size = this.data.size();
+            for (long n = 0; n < size; )
+                n += this.data.file.transferTo(n, size - n, this.entries.file.position(strings + n));
+            return null;
+        }
+    }
+
+    /**
+     * Bytes written one after another, into a direct buffer which grows as needed, or into a file through a direct
+     * buffer
+     */
+    private static final class Region {
+        private final @Nullable FileChannel file;
+        private ByteBuffer buffer;
+        /**
+         * The position the buffer starts at
+         */
+        private long flushed;
+
+        /**
+         * Creates a region
+         *
+         * @param file  the file to write to, or <code>null</code> to keep the bytes in the buffer
+         * @param start the position the first byte is written at, the bytes before are left for a header
+         */
+        Region(@Nullable FileChannel file, int start) {
+            this.file = file;
+            this.buffer = ByteBuffer.allocateDirect(1 << 16);
+            if (file == null) this.buffer.position(start);
+            else this.flushed = start;
+        }
+
+        long size() {
+            return this.flushed + this.buffer.position();
+        }
+
+        /**
+         * Makes room for the given amount of bytes
+         *
+         * @return the buffer to put the bytes into
+         */
+        @NotNull ByteBuffer reserve(int n) {
+            if (this.buffer.remaining() >= n) return this.buffer;
+            if (this.file != null) {
+                this.flush();
+                if (this.buffer.remaining() >= n) return this.buffer;
+            }
+            long capacity = Math.max((long) this.buffer.capacity() * 2, (long) this.buffer.position() + n);
+            if (capacity > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("The objects are too large for a single tape");
+            ByteBuffer b = ByteBuffer.allocateDirect((int) capacity);
+            this.buffer = b.put(this.buffer.flip());
+            return b;
+        }
+
+        /**
+         * Overwrites an int and a long written before
+         */
+        void put(long at, int i, long l) {
+            if (at >= this.flushed) {
+                this.buffer.putInt((int) (at - this.flushed), i).putLong((int) (at - this.flushed) + 4, l);
+            } else {
+                this.write(at, ByteBuffer.allocate(12).putInt(i).putLong(l).flip());
+            }
+        }
+
+        /**
+         * Overwrites bytes written before, or left for a header
+         */
+        void write(long at, @NotNull ByteBuffer b) {
+            if (this.file == null) {
+                this.buffer.put((int) at, b, b.position(), b.remaining());
+                return;
+            }
+            try {
+                while (b.hasRemaining()) at += this.file.write(b, at);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes the buffer to the file
+         */
+        void flush() {
+            assert this.file != null;
+            this.buffer.flip();
+            long at = this.flushed;
+            try {
+                while (this.buffer.hasRemaining()) at += this.file.write(this.buffer, at);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.flushed = at;
+            this.buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package io.shiromi.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Watches files for {@link YamlFile#watch(YamlFile.ChangeListener)}.
+ * <p>
+ * All files are watched by one shared thread, with one registration per directory no matter how many files of the
+ * directory are watched. Change events of a file are debounced, the file is parsed again once no more events arrived
+ * for the debounce delay, on a second shared thread which then notifies the listener. Both threads are daemon threads
+ * and are started when the first file is watched.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @see YamlFile#watch(long, YamlFile.ChangeListener)
+ * @since 1.8
+ */
+final class YamlWatcher implements Runnable {
+    private static YamlWatcher instance;
+
+    private final WatchService service;
+    private final ScheduledExecutorService reloader;
+    private final Map<Path, Directory> directories = new HashMap<>();
+    private final Map<WatchKey, Directory> keys = new ConcurrentHashMap<>();
+
+    private YamlWatcher() throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.reloader = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "YamlFile reload"));
+        daemon(this, "YamlFile watcher").start();
+    }
+
+    private static @NotNull Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Gets the shared watcher, starting it if needed
+     */
+    static synchronized @NotNull YamlWatcher get() throws IOException {
+        if (instance == null) instance = new YamlWatcher();
+        return instance;
+    }
+
+    /**
+     * The watched files of a directory
+     */
+    private static final class Directory {
+        final WatchKey key;
+        final Map<Path, List<Registration>> files = new ConcurrentHashMap<>();
+
+        Directory(WatchKey key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Starts watching a file
+     *
+     * @param f        the file to watch
+     * @param debounce the delay in milliseconds without any further change before the file is parsed again
+     * @param listener the listener to notify with the parsed file
+     * @return the registration, which stops watching when closed
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    synchronized @NotNull Registration watch(@NotNull File f, long debounce, @NotNull YamlFile.ChangeListener listener)
+            throws IOException {
+        Path path = f.toPath().toAbsolutePath().normalize();
+        Path dir = path.getParent();
+        Directory d = this.directories.get(dir);
+        if (d == null) {
+            WatchKey key = dir.register(this.service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            d = new Directory(key);
+            this.directories.put(dir, d);
+            this.keys.put(key, d);
+        }
+        Registration r = new Registration(path, debounce, listener);
+        d.files.computeIfAbsent(path.getFileName(), p -> new CopyOnWriteArrayList<>()).add(r);
+        return r;
+    }
+
+    private synchronized void unwatch(@NotNull Registration r) {
+        Path dir = r.path.getParent();
+        Directory d = this.directories.get(dir);
+        if (d == null) return;
+        List<Registration> l = d.files.get(r.path.getFileName());
+        if (l != null && l.remove(r) && l.isEmpty()) d.files.remove(r.path.getFileName());
+        if (d.files.isEmpty()) {
+            d.key.cancel();
+            this.directories.remove(dir);
+            this.keys.remove(d.key);
+        }
+    }
+
+    private static long size(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static FileTime modified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = this.service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Directory d = this.keys.get(key);
+            if (d != null) {
+                for (WatchEvent<?> e : key.pollEvents()) {
+                    if (e.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        for (List<Registration> l : d.files.values()) for (Registration r : l) r.changed();
+                        continue;
+                    }
+                    List<Registration> l = d.files.get((Path) e.context());
+                    if (l != null) for (Registration r : l) r.changed();
+                }
+            }
+            if (!key.reset()) {
+                synchronized (this) {
+                    if (d != null) this.directories.values().remove(d);
+                    this.keys.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * A watched file and its listener
+     */
+    final class Registration implements YamlFile.Watch {
+        final Path path;
+        private final long debounce;
+        private final YamlFile.ChangeListener listener;
+        private ScheduledFuture<?> pending;
+        private long size;
+        private FileTime modified;
+        private volatile boolean closed;
+
+        private Registration(Path path, long debounce, YamlFile.ChangeListener listener) {
+            this.path = path;
+            this.debounce = debounce;
+            this.listener = listener;
+            this.size = size(path);
+            this.modified = modified(path);
+        }
+
+        /**
+         * Called for every change event, (re)starts the debounce delay
+         */
+        synchronized void changed() {
+            if (this.closed) return;
+            if (this.pending != null) this.pending.cancel(false);
+            this.pending = YamlWatcher.this.reloader.schedule(this::reload, this.debounce, TimeUnit.MILLISECONDS);
+        }
+
+        private void reload() {
+            File f = this.path.toFile();
+            synchronized (this) {
+                this.pending = null;
+                long size = size(this.path);
+                FileTime modified = modified(this.path);
+                // a deleted file, or events of a change which was already reported
+                if (this.closed || modified == null || size == this.size && modified.equals(this.modified)) return;
+                this.size = size;
+                this.modified = modified;
+            }
+            YamlFile file = YamlFile.read(f);
+            if (file == null || this.closed) return;
+            YamlMetrics metrics = YamlMetrics.get();
+            if (metrics != null) metrics.reloaded();
+            try {
+                this.listener.changed(file);
+            } catch (RuntimeException e) {
+                System.err.printf("Listener of %s failed: %s\n", f, e);
+            }
+        }
+
+        @Override
+        public boolean isWatching() {
+            return !this.closed;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (this.closed) return;
+                this.closed = true;
+                if (this.pending != null) this.pending.cancel(false);
+            }
+            YamlWatcher.this.unwatch(this);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package io.shiromi.yaml.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field or record component to be bound to a yaml item, e.g.
+ * <blockquote>
+ * <pre>{@code
+ *      record Size(@SerializedItem int w, @SerializedItem(name = "height") int h) {}
+ *     }</pre>
+ * </blockquote>
+ * For every class or record with marked members, the annotation processor of the <code>YamlReader-processor</code>
+ * module generates a <code>&lt;Name&gt;YamlBinder</code> class in the same package, with a
+ * <code>fromYaml(YamlObject)</code> and <code>toYaml(...)</code> method which read and write the marked members
+ * without any reflection. The {@link io.shiromi.yaml.YamlMapper} uses the names given here as well.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface SerializedItem {
+    /**
+     * The default value of {@link #name()}, meaning the name of the field is used. An item cannot have an empty name,
+     * so every other name can be selected
+     */
+    String DEFAULT_NAME = "";
+
+    /**
+     * The name of the item, if not set or empty the name of the field is used
+     */
+    String name() default DEFAULT_NAME;
+}
@@ -0,0 +1,63 @@
+package io.shiromi.yaml.exception;
+
+/**
+ * Thrown when a document exceeds one of the limits it is parsed with. Unlike the other exceptions of this package it
+ * is unchecked, as it is thrown by methods parsing text which do not declare any exception.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+public class YamlLimitExceededException extends RuntimeException {
+    /**
+     * The limits a document can exceed
+     */
+    public enum Limit {
+        DEPTH,
+        DOCUMENT_LENGTH,
+        NODES,
+        SCALAR_LENGTH,
+        TIME,
+        ALIAS_EXPANSION
+    }
+
+    private final Limit limit;
+    private final long allowed;
+    private final int line;
+
+    /**
+     * Constructs a new exception with a detail message naming the limit and the line it was exceeded at.
+     *
+     * @param limit   the limit which was exceeded
+     * @param allowed the value the limit allows
+     * @param line    the line the limit was exceeded at, starting at <code>1</code>, or <code>0</code> if unknown
+     */
+    public YamlLimitExceededException(Limit limit, long allowed, int line) {
+        super("Document exceeds its " + limit.name().toLowerCase().replace('_', ' ') + " limit of " + allowed
+                + (line > 0 ? " at line " + line : ""));
+        this.limit = limit;
+        this.allowed = allowed;
+        this.line = line;
+    }
+
+    /**
+     * Gets the limit which was exceeded
+     */
+    public Limit getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * Gets the value the exceeded limit allows, in nanoseconds for {@link Limit#TIME}
+     */
+    public long getAllowed() {
+        return this.allowed;
+    }
+
+    /**
+     * Gets the line the limit was exceeded at, starting at <code>1</code>, or <code>0</code> if unknown
+     */
+    public int getLine() {
+        return this.line;
+    }
+}
@@ -0,0 +1,101 @@
+package io.shiromi.yaml.jfr;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.util.YamlObject;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The base of the flight recorder events of this library, shown in the <code>YAML</code> category of a recording.
+ * <p>
+ * An event is created and begun before the work it measures, and only filled in and committed if it is recorded:
+ * <blockquote>
+ * <pre>{@code
+ *      YamlParseEvent event = new YamlParseEvent();
+ *      event.begin();
+ *      Yaml[] y = ...;
+ *      if (event.shouldCommit()) event.commit(null, YamlEvent.utf8Length(s), y);
+ *     }</pre>
+ * </blockquote>
+ * While nothing is recorded, the event is never committed and the compiler removes its allocation, so the events
+ * cost next to nothing. Recordings can be started with e.g.
+ * <code>java -XX:StartFlightRecording=filename=app.jfr ...</code> and the events read with
+ * <code>jfr print --categories YAML app.jfr</code>.
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Category("YAML")
+@StackTrace(false)
+public abstract class YamlEvent extends Event {
+    @Label("Path")
+    @Description("The file read or written, if any")
+    public String path;
+
+    @Label("Bytes")
+    @Description("The size of the text as encoded in UTF-8, or of the file read or written")
+    @DataAmount
+    public long bytes;
+
+    @Label("Nodes")
+    @Description("The amount of yaml objects, including the nested ones")
+    public long nodes;
+
+    /**
+     * Fills in this event and commits it, should only be called if {@link #shouldCommit()}
+     *
+     * @param path  the file read or written, can be <code>null</code>
+     * @param bytes the size of the text
+     * @param y     the objects, whose nodes are counted
+     */
+    public final void commit(@Nullable String path, long bytes, Yaml @Nullable ... y) {
+        this.path = path;
+        this.bytes = bytes;
+        this.nodes = y == null ? 0 : count(y);
+        this.commit();
+    }
+
+    /**
+     * Counts objects and all objects nested in them
+     *
+     * @param y the objects
+     * @return the amount of objects
+     */
+    public static long count(Yaml @NotNull ... y) {
+        long n = 0;
+        for (Yaml y1 : y) {
+            if (y1 == null) continue;
+            n++;
+            if (y1 instanceof YamlObject o) n += count(o.get());
+        }
+        return n;
+    }
+
+    /**
+     * Gets the size of a text encoded in <code>UTF-8</code>, without encoding it
+     *
+     * @param s the text
+     * @return the size in bytes
+     */
+    public static long utf8Length(@NotNull CharSequence s) {
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) n++;
+            else if (c < 0x800) n += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else n += 3;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,19 @@
+package io.shiromi.yaml.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A yaml file read and parsed by any of the <code>read</code> methods of {@link io.shiromi.yaml.YamlFile}, the size
+ * is the size of the file
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Name("io.shiromi.yaml.YamlFileRead")
+@Label("YAML File Read")
+@Description("A yaml file read and parsed")
+public final class YamlFileReadEvent extends YamlEvent {
+}
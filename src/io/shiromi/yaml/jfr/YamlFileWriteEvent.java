@@ -0,0 +1,18 @@
+package io.shiromi.yaml.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A yaml file written by {@link io.shiromi.yaml.YamlFile#create()}, the size is the size of the file afterwards
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Name("io.shiromi.yaml.YamlFileWrite")
+@Label("YAML File Write")
+@Description("A yaml file written")
+public final class YamlFileWriteEvent extends YamlEvent {
+}
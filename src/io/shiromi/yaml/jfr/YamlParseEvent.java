@@ -0,0 +1,19 @@
+package io.shiromi.yaml.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Text parsed into yaml objects, by {@link io.shiromi.yaml.Yaml#fromString(String)} or
+ * {@link io.shiromi.yaml.util.YamlObject#parse(String)}
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Name("io.shiromi.yaml.YamlParse")
+@Label("YAML Parse")
+@Description("Text parsed into yaml objects")
+public final class YamlParseEvent extends YamlEvent {
+}
@@ -0,0 +1,19 @@
+package io.shiromi.yaml.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Yaml objects turned into text, by {@link io.shiromi.yaml.Yaml#stringify()} or
+ * {@link io.shiromi.yaml.Yaml#stringify(io.shiromi.yaml.Yaml...)}
+ *
+ * @author Shiromi
+ * @version 1.8
+ * @since 1.8
+ */
+@Name("io.shiromi.yaml.YamlStringify")
+@Label("YAML Stringify")
+@Description("Yaml objects turned into text")
+public final class YamlStringifyEvent extends YamlEvent {
+}
@@ -365,6 +365,20 @@ public class YamlArray extends Yaml {
     }
 
 
+    @Override
+    protected long estimateShallowBytes() {
+        long n = estimateObjectBytes(2, 0) + estimateBytes(this.name);
+        if (this.values == null) return n;
+        n += estimateArrayBytes(this.values.length);
+        for (Object o : this.values) {
+            if (o instanceof String s) n += estimateBytes(s);
+            else if (o instanceof Yaml y) n += y.estimateRetainedBytes();
+            else if (o instanceof Double || o instanceof Long) n += 24;
+            else if (o != null && !(o instanceof Boolean)) n += 16;
+        }
+        return n;
+    }
+
     /**
      * Returns a string representation of this array
      *
@@ -384,6 +398,11 @@ public class YamlArray extends Yaml {
         }
     }
 
+    private static final Pattern PATTERN = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?\\[(?<value>[^]]+)\\s?]");
+    private static final Pattern STRING = Pattern.compile("\"[^\"]+\"");
+    private static final Pattern INTEGER = Pattern.compile("[+-]?\\d+$");
+    private static final Pattern FLOAT = Pattern.compile("[+-]?\\d+(?>\\.[0-9]+)?(?>[eE][+-]\\d+)?");
+
     /**
      * Creates a new YamlArray based on a string
      *
@@ -391,17 +410,17 @@ public class YamlArray extends Yaml {
      * @return a new YamlArray if the string could be parsed, otherwise returns <code>null</code>
      */
     public static @Nullable YamlArray parse(String s) {
-        Matcher m = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?\\[(?<value>[^]]+)\\s?]").matcher(s);
+        Matcher m = PATTERN.matcher(s);
         if (m.matches()) {
             String[] sValues = m.group("value").split(",");
             Object[] values = new Object[sValues.length];
             for (int i = 0; i < sValues.length; i++) {
                 sValues[i] = sValues[i].trim();
-                if (Pattern.matches("\"[^\"]+\"", sValues[i]))
+                if (STRING.matcher(sValues[i]).matches())
                     values[i] = sValues[i];
-                else if (Pattern.matches("[+-]?\\d+$", sValues[i]))
+                else if (INTEGER.matcher(sValues[i]).matches())
                     values[i] = Integer.parseInt(sValues[i]);
-                else if (Pattern.matches("[+-]?\\d+(?>\\.[0-9]+)?(?>[eE][+-]\\d+)?", sValues[i]))
+                else if (FLOAT.matcher(sValues[i]).matches())
                     values[i] = Float.parseFloat(sValues[i]);
                 else
                     values[i] = null;
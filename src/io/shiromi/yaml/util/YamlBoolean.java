@@ -115,6 +115,11 @@ public final class YamlBoolean extends Yaml {
         return this.length();
     }
 
+    @Override
+    protected long estimateShallowBytes() {
+        return estimateObjectBytes(1, 1) + estimateBytes(this.name);
+    }
+
     /**
      * Returns a string representation of this object, e.g.
      * <blockquote>
@@ -134,6 +139,8 @@ public final class YamlBoolean extends Yaml {
         return "\t".repeat(tabs) + this.name + ": " + this.value;
     }
 
+    private static final Pattern PATTERN = Pattern.compile("^\\s*(?<name>[a-z][\\w ]*):\\s?(?<value>true|false)");
+
     /**
      * Creates a new YamlBoolean based on a string
      *
@@ -141,7 +148,7 @@ public final class YamlBoolean extends Yaml {
      * @return a new YamlBoolean if it could be parsed, otherwise returns <code>null</code>
      */
     public static @Nullable YamlBoolean parse(String s) {
-        Matcher m = Pattern.compile("^\\s*(?<name>[a-z][\\w ]*):\\s?(?<value>true|false)").matcher(s);
+        Matcher m = PATTERN.matcher(s);
         if (m.matches()) return new YamlBoolean(m.group("name"), m.group("value"));
         return null;
     }
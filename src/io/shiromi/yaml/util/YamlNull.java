@@ -113,13 +113,15 @@ public final class YamlNull extends Yaml {
         return "\t".repeat(tabs) + this.name + ": null";
     }
 
+    private static final Pattern PATTERN = Pattern.compile("^\\s*(?<name>[a-z][\\w ]*): null");
+
     /**
      * Creates a new YamlNull object based on a string
      * @param s the string to parse
      * @return a new YamlNull object if it could be parsed, otherwise returns <code>null</code>
      */
     public static @Nullable YamlNull parse(String s) {
-        Matcher m = Pattern.compile("^\\s*(?<name>[a-z][\\w ]*): null").matcher(s);
+        Matcher m = PATTERN.matcher(s);
         if (m.matches()) return new YamlNull(m.group("name"));
         return null;
     }
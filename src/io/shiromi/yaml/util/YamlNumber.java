@@ -324,6 +324,12 @@ public final class YamlNumber extends Yaml {
         return this.get().intValue();
     }
 
+    @Override
+    protected long estimateShallowBytes() {
+        // the type names are shared by all numbers
+        return estimateObjectBytes(3, 16) + estimateBytes(this.name);
+    }
+
     /**
      * Returns a string representation of this object
      * @param tabs the amount of tabs to be inserted before
@@ -336,20 +342,24 @@ public final class YamlNumber extends Yaml {
                 (this.valueType == Integer.class ? this.intValue : this.floatValue);
     }
 
+    private static final Pattern PATTERN =
+            Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?(?<value>[+-]?\\d+(?>\\.[0-9]+)?(?>[eE][+-]\\d+)?)");
+    private static final Pattern INTEGER = Pattern.compile("[+-]?\\d+$");
+    private static final Pattern FLOAT = Pattern.compile("[+-]?\\d+(?>\\.[0-9])?(?>[eE][+-]\\d+)?");
+
     /**
      * Creates a new YamlNumber based on a string
      * @param s the string to parse
      * @return a new YamlNumber object if it could be parsed, otherwise returns <code>null</code>
      */
     public static @Nullable YamlNumber parse(String s) {
-        Matcher m = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?(?<value>[+-]?\\d+(?>\\.[0-9]+)?(?>[eE][+-]\\d+)?)")
-                .matcher(s);
+        Matcher m = PATTERN.matcher(s);
         if (m.matches()) {
             String name = m.group("name");
             String value = m.group("value");
-            if (Pattern.matches("[+-]?\\d+$", value))
+            if (INTEGER.matcher(value).matches())
                 return new YamlNumber(name, Integer.parseInt(value));
-            else if (Pattern.matches("[+-]?\\d+(?>\\.[0-9])?(?>[eE][+-]\\d+)?", value))
+            else if (FLOAT.matcher(value).matches())
                 return new YamlNumber(name, Float.parseFloat(value));
         }
         return null;
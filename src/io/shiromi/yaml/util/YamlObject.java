@@ -1,17 +1,29 @@
 package io.shiromi.yaml.util;
 
+import io.shiromi.yaml.ParserLimits;
 import io.shiromi.yaml.Yaml;
 
 import io.shiromi.yaml.exception.YamlElementAlreadyPresentException;
+import io.shiromi.yaml.exception.YamlLimitExceededException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A yaml object containing a list of other {@link Yaml} objects
+ * <p>
+ * An object which {@link #merge(YamlObject...) merges} other objects is read as its own items followed by the items
+ * of the merged objects it does not hold an item of the same name of, see {@link #getAll()}. This is what every
+ * method reading the items sees, e.g. {@link #length()}, {@link #getAt(int)}, {@link #getByName(String)},
+ * {@link #contains(Yaml)} and {@link #forEach(YamlObjectIterator)}. The methods changing the items, {@link #find(Yaml)}
+ * and {@link #values} only refer to the items of its own, which come first, so an index below the amount of its own
+ * items refers to the same item either way.
  *
  * @author Shiromi
  * @version 1.7
@@ -22,6 +34,22 @@ public final class YamlObject extends Yaml {
      */
     public Yaml[] values;
 
+    private static final YamlObject[] NO_PARENTS = new YamlObject[0];
+
+    /**
+     * The objects merged into this object, in the order they are looked up in
+     */
+    private YamlObject[] merged = NO_PARENTS;
+
+    /**
+     * The items last returned by {@link #getAll()} for an object merging others, the values they were resolved from
+     * and the {@link #version()} they were resolved at
+     */
+    private Yaml @Nullable [] all;
+    private Yaml[] allValues;
+    private long allVersion;
+    private int modifications;
+
     /**
      * Creates a new instance of this object, with an initial capacity
      *
@@ -69,6 +97,7 @@ public final class YamlObject extends Yaml {
      */
     public int set(Yaml... items) {
         this.values = items;
+        this.modifications++;
         return this.length();
     }
 
@@ -84,18 +113,19 @@ public final class YamlObject extends Yaml {
     public int add(Yaml after, Yaml y) throws YamlElementAlreadyPresentException {
         if (this.contains(y))
             throw new YamlElementAlreadyPresentException("Element " + y + " already exists in this object");
-        int index = this.length();
-        if (this.contains(after)) index = this.find(after);
+        int index = this.find(after);
+        if (index < 0) index = this.values.length;
         int j = 0;
-        Yaml[] newValues = new Yaml[this.length() + 1];
+        Yaml[] newValues = new Yaml[this.values.length + 1];
         for (int i = 0; i < newValues.length; i++) {
             if (i == index) {
                 newValues[i] = y;
                 continue;
             }
-            newValues[i] = this.getAt(j++);
+            newValues[i] = this.values[j++];
         }
         this.values = newValues;
+        this.modifications++;
         return this.length();
     }
 
@@ -126,7 +156,7 @@ public final class YamlObject extends Yaml {
      * @see #append(Yaml...)
      */
     public int append(Yaml y) throws YamlElementAlreadyPresentException {
-        return this.add(this.getLast(), y);
+        return this.add(this.values.length == 0 ? null : this.values[this.values.length - 1], y);
     }
 
     /**
@@ -173,9 +203,10 @@ public final class YamlObject extends Yaml {
     public @Nullable Yaml replace(int index, Yaml y) throws YamlElementAlreadyPresentException {
         if (this.contains(y))
             throw new YamlElementAlreadyPresentException("Element " + y + " already exists in this object");
-        if (0 > index || index >= this.length()) return null;
-        Yaml y1 = this.getAt(index);
+        if (0 > index || index >= this.values.length) return null;
+        Yaml y1 = this.values[index];
         this.values[index] = y;
+        this.modifications++;
         return y1;
     }
 
@@ -188,18 +219,19 @@ public final class YamlObject extends Yaml {
      * @see #pop()
      */
     public @Nullable Yaml remove(int index) {
-        if (0 > index || index >= this.length()) return null;
+        if (0 > index || index >= this.values.length) return null;
         Yaml y = null;
-        Yaml[] newValues = new Yaml[this.length() - 1];
+        Yaml[] newValues = new Yaml[this.values.length - 1];
         int j = 0;
-        for (int i = 0; i < this.length(); i++) {
+        for (int i = 0; i < this.values.length; i++) {
             if (i == index) {
-                y = this.getAt(i);
+                y = this.values[i];
                 continue;
             }
-            newValues[j++] = this.getAt(i);
+            newValues[j++] = this.values[i];
         }
         this.values = newValues;
+        this.modifications++;
 
         return y;
     }
@@ -214,7 +246,7 @@ public final class YamlObject extends Yaml {
      * @see #pop()
      */
     public Yaml @Nullable [] remove(int index, int length) {
-        if (0 > index || index + length >= this.length()) return null;
+        if (0 > index || index + length >= this.values.length) return null;
         Yaml[] y = new Yaml[length];
         for (int i = index, j = 0; i < index + length; i++, j++) y[j] = this.remove(i);
         return y;
@@ -228,11 +260,11 @@ public final class YamlObject extends Yaml {
      * @since 1.2
      */
     public Yaml pop() {
-        return this.remove(this.length() - 1);
+        return this.remove(this.values.length - 1);
     }
 
     /**
-     * A safe version to find the given item in this list
+     * A safe version to find the given item in this list, among the items of this object's own
      *
      * @param y the item to find
      * @return the index of the item, if not found returns <code>-1</code>
@@ -240,19 +272,19 @@ public final class YamlObject extends Yaml {
      * @since 1.2
      */
     public int find(Yaml y) {
-        for (int i = 0; i < this.length(); i++) if (this.values[i].equals(y)) return i;
+        for (int i = 0; i < this.values.length; i++) if (this.values[i].equals(y)) return i;
         return -1;
     }
 
     /**
-     * Gets the index of the given item in this list
+     * Gets the index of the given item in this list, among the items of this object's own
      *
      * @param y the item to find
      * @return the item of the index
      * @throws IllegalArgumentException if the item is not in the list
      */
     public int get(Yaml y) throws IllegalArgumentException {
-        for (int i = 0; i < this.length(); i++) if (this.values[i].equals(y)) return i;
+        for (int i = 0; i < this.values.length; i++) if (this.values[i].equals(y)) return i;
         throw new IllegalArgumentException("Item '" + y + "' is not contained inside the object");
     }
 
@@ -263,12 +295,14 @@ public final class YamlObject extends Yaml {
      * @return the item at the list, if index is out of range, returns <code>null</code>
      */
     public @Nullable Yaml getAt(int index) {
-        if (0 > index || index >= this.length()) return null;
-        return this.values[index];
+        Yaml[] all = this.getAll();
+        if (0 > index || index >= all.length) return null;
+        return all[index];
     }
 
     /**
-     * Gets an item in the object by its name
+     * Gets an item in the object by its name, falling through to the {@link #merge(YamlObject...) merged} objects if
+     * this object does not hold an item of the name itself
      *
      * @param name the name of the object
      * @return the object, if not found, returns <code>null</code>
@@ -277,6 +311,10 @@ public final class YamlObject extends Yaml {
      */
     public @Nullable Yaml getByName(String name) {
         for (Yaml y : this.get()) if (y.name.equals(name)) return y;
+        for (YamlObject o : this.merged) {
+            Yaml y = o.getByName(name);
+            if (y != null) return y;
+        }
         return null;
     }
 
@@ -375,20 +413,21 @@ public final class YamlObject extends Yaml {
     }
 
     /**
-     * Checks whether this object contains the given item or not
+     * Checks whether this object contains the given item or not, including the items of the
+     * {@link #merge(YamlObject...) merged} objects
      *
      * @param y the item to search for
      * @return whether the item is in the list or not
      */
     public boolean contains(Yaml y) {
         if (y == null) return false;
-        if (this.length() == 0) return false;
-        for (Yaml y1 : this.values) if (y1.equals(y)) return true;
+        for (Yaml y1 : this.getAll()) if (y1.equals(y)) return true;
         return false;
     }
 
     /**
-     * Iterates through this object and allows for operations on each item
+     * Iterates through this object and allows for operations on each item, including the items of the
+     * {@link #merge(YamlObject...) merged} objects
      * <blockquote>
      * <pre>{@code
      *      YamlObject o = ...;
@@ -404,7 +443,8 @@ public final class YamlObject extends Yaml {
      * @see YamlArray#forEach(YamlArrayIterator)
      */
     public void forEach(YamlObjectIterator iterator) {
-        for (int i = 0; i < this.length(); i++) iterator.item(i, this.values[i].name, this.getAt(i));
+        Yaml[] all = this.getAll();
+        for (int i = 0; i < all.length; i++) iterator.item(i, all[i].name, all[i]);
     }
 
     /**
@@ -431,7 +471,7 @@ public final class YamlObject extends Yaml {
      */
     public int getCountOf(Class<? extends Yaml> item) {
         int count = 0;
-        for (Yaml y : this.get()) if (item == y.getClass()) count++;
+        for (Yaml y : this.getAll()) if (item == y.getClass()) count++;
         return count;
     }
 
@@ -511,6 +551,73 @@ public final class YamlObject extends Yaml {
         return this.values;
     }
 
+    /**
+     * Merges objects into this object, like the merge key <code>&lt;&lt;: *base</code> does. The items of the merged
+     * objects are not copied, they are read after the items of this object if it does not hold an item of the same
+     * name, see {@link #getAll()}. Objects merged first take precedence over objects merged later
+     *
+     * @param parents the objects to merge into this object
+     * @throws IllegalArgumentException if this object is merged into any of the objects already
+     * @see #getMerged()
+     * @since 1.8
+     */
+    public void merge(YamlObject @NotNull ... parents) {
+        for (YamlObject p : parents)
+            if (p.inherits(this)) throw new IllegalArgumentException("'" + p.name + "' already merges '" + this.name + "'");
+        YamlObject[] merged = Arrays.copyOf(this.merged, this.merged.length + parents.length);
+        System.arraycopy(parents, 0, merged, this.merged.length, parents.length);
+        this.merged = merged;
+        this.modifications++;
+    }
+
+    private boolean inherits(@NotNull YamlObject o) {
+        if (this == o) return true;
+        for (YamlObject p : this.merged) if (p.inherits(o)) return true;
+        return false;
+    }
+
+    /**
+     * Gets the objects merged into this object, in the order they are looked up in
+     *
+     * @see #merge(YamlObject...)
+     * @since 1.8
+     */
+    public YamlObject @NotNull [] getMerged() {
+        return this.merged.length == 0 ? NO_PARENTS : this.merged.clone();
+    }
+
+    /**
+     * Gets the items of this object followed by the items of the {@link #merge(YamlObject...) merged} objects which
+     * this object does not hold an item of the same name of. Without any merged objects, these are the
+     * {@link #values} themselves. Otherwise they are resolved once and kept until this object or any object merged
+     * into it is changed by its methods, so the array must not be changed
+     *
+     * @return the items
+     * @see #get()
+     * @since 1.8
+     */
+    public Yaml @NotNull [] getAll() {
+        if (this.merged.length == 0) return this.values;
+        long version = this.version();
+        if (this.all != null && this.allValues == this.values && this.allVersion == version) return this.all;
+        List<Yaml> all = new ArrayList<>(Arrays.asList(this.values));
+        Set<String> names = new HashSet<>();
+        for (Yaml y : this.values) names.add(y.name);
+        for (YamlObject o : this.merged) for (Yaml y : o.getAll()) if (names.add(y.name)) all.add(y);
+        this.allValues = this.values;
+        this.allVersion = version;
+        return this.all = all.toArray(new Yaml[0]);
+    }
+
+    /**
+     * Counts the changes of this object and of the objects merged into it, the count only grows
+     */
+    private long version() {
+        long version = this.modifications;
+        for (YamlObject o : this.merged) version += o.version();
+        return version;
+    }
+
     /**
      * Gets the last item of this object
      */
@@ -519,14 +626,15 @@ public final class YamlObject extends Yaml {
     }
 
     /**
-     * Gets the length of this object
+     * Gets the length of this object, including the items of the {@link #merge(YamlObject...) merged} objects
      *
      * @see #size()
      * @see #absoluteSize()
+     * @see #getAll()
      */
     @Override
     public int length() {
-        return this.values.length;
+        return this.getAll().length;
     }
 
     /**
@@ -562,32 +670,51 @@ public final class YamlObject extends Yaml {
      * @see #length()
      */
     public int absoluteSize() {
-        YamlObject[] content = new YamlObject[0];
-        for (Yaml v : this.get()) {
-            if (v.isObject()) {
-                YamlObject[] newContent = new YamlObject[content.length + 1];
-                System.arraycopy(content, 0, newContent, 0, content.length);
-                newContent[content.length] = (YamlObject) v;
-                content = newContent;
-            }
+        // walked without recursion, so a deeply nested object cannot overflow the stack
+        ArrayDeque<YamlObject> pending = new ArrayDeque<>();
+        pending.push(this);
+        int size = 0;
+        while (!pending.isEmpty()) {
+            YamlObject o = pending.pop();
+            Yaml[] all = o.getAll();
+            size += all.length;
+            for (Yaml v : all) if (v.isObject()) pending.push((YamlObject) v);
         }
-        int size = this.length();
-        for (YamlObject v : content) size += v.absoluteSize();
         return size;
     }
 
+    /**
+     * Estimates the heap retained by this object, including all of its children
+     *
+     * @return the estimated size in bytes
+     * @see Yaml#estimateRetainedBytes()
+     * @since 1.8
+     */
+    @Override
+    public long estimateRetainedBytes() {
+        long n = this.estimateShallowBytes();
+        if (this.values != null) for (Yaml y : this.values) if (y != null) n += y.estimateRetainedBytes();
+        return n;
+    }
+
+    @Override
+    protected long estimateShallowBytes() {
+        return estimateObjectBytes(2, 0) + estimateBytes(this.name)
+                + (this.values == null ? 0 : estimateArrayBytes(this.values.length));
+    }
+
     /**
      * Returns a string representation of this object
      *
      * @param tabs the amount of tabs to be inserted before
      * @return a string representing this object with its name and a string representation of each
-     * contained object
+     * contained object, including the items of the {@link #merge(YamlObject...) merged} objects
      */
     @Override
     @NotNull
     public String stringify(int tabs) {
         StringBuilder s = new StringBuilder("\t".repeat(tabs) + this.name + ":\n");
-        for (Yaml y : this.get()) s.append(y.stringify(tabs + 1)).append('\n');
+        for (Yaml y : this.getAll()) s.append(y.stringify(tabs + 1)).append('\n');
         return s.substring(0, s.length() - 1);
     }
 
@@ -597,59 +724,26 @@ public final class YamlObject extends Yaml {
      * @param s the string to parse
      * @return a new YamlObject with its contents if the string could be parsed, otherwise returns
      * <code>null</code>
+     * @throws YamlLimitExceededException if the string exceeds the {@link ParserLimits#getDefault() default limits}
      */
     public static @Nullable YamlObject parse(@NotNull String s) {
-        String[] _items = s.split("\\n");
-        String begin = _items[0];
-        String[] items = new String[_items.length - 1];
-        System.arraycopy(_items, 1, items, 0, _items.length - 1);
-
-        Pattern leading = Pattern.compile("^(?<leading>\\s*)");
-        Pattern group = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):$");
-
-        Matcher m = group.matcher(begin);
-        if (m.find()) {
-            YamlObject o = new YamlObject(m.group("name"));
-            Matcher m1 = leading.matcher(items[0]);
-            int whitespaces = 0;
-            if (m1.find()) whitespaces = m1.group("leading").length();
-            if (whitespaces == 0) return null;
-
-            for (int i = 0; i < items.length; i++) {
-                Matcher m2 = group.matcher(items[i]);
-                if (m2.find()) {
-                    StringBuilder s1 = new StringBuilder(items[i].substring(whitespaces) + '\n');
-                    int currentLevel = whitespaces;
-                    for (int j = i + 1; j < items.length; j++) {
-                        Matcher m3 = leading.matcher(items[j]);
-                        if (m3.find()) currentLevel = m3.group("leading").length();
-                        if (currentLevel == whitespaces) break;
-                        s1.append(items[j].substring(whitespaces)).append('\n');
-                    }
-                    YamlObject o1 = parse(s1.substring(0, s1.length() - 1));
-                    assert o1 != null;
-                    i += o1.absoluteSize();
-                    try {
-                        o.append(o1);
-                    } catch (YamlElementAlreadyPresentException e) {
-                        throw new RuntimeException(e);
-                    }
-                } else {
-                    String s2 = items[i].trim();
-                    Yaml y = YamlString.parse(s2);
-                    if (y == null) y = YamlNumber.parse(s2);
-                    if (y == null) y = YamlBoolean.parse(s2);
-                    if (y == null) y = YamlNull.parse(s2);
-                    if (y == null) y = YamlArray.parse(s2);
-                    try {
-                        o.append(y);
-                    } catch (YamlElementAlreadyPresentException e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
-            return o;
-        }
-        return null;
+        return parse(s, ParserLimits.getDefault());
+    }
+
+    /**
+     * Creates new YamlObject based on a string, parsing it only within the given limits. The string is parsed the
+     * same way {@link Yaml#fromString(String, ParserLimits, io.shiromi.yaml.ParseListener) Yaml.fromString} does,
+     * lines which cannot be parsed are skipped
+     *
+     * @param s      the string to parse
+     * @param limits the limits to parse the string within
+     * @return the object the string consists of, or <code>null</code> if the string does not consist of a single
+     * object
+     * @throws YamlLimitExceededException if the string exceeds the limits
+     * @since 1.8
+     */
+    public static @Nullable YamlObject parse(@NotNull String s, @NotNull ParserLimits limits) {
+        Yaml[] y = Yaml.fromString(s, limits, null);
+        return y.length == 1 && y[0] instanceof YamlObject o ? o : null;
     }
 }
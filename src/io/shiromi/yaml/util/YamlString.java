@@ -224,6 +224,13 @@ public final class YamlString extends Yaml {
         return "\t".repeat(tabs) + this.name + ": \"" + this.value + '"';
     }
 
+    @Override
+    protected long estimateShallowBytes() {
+        return estimateObjectBytes(2, 0) + estimateBytes(this.name) + estimateBytes(this.value);
+    }
+
+    private static final Pattern PATTERN = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?\"(?<value>[^\"]*)\"");
+
     /**
      * Creates a new YamlString based on a string
      *
@@ -231,7 +238,7 @@ public final class YamlString extends Yaml {
      * @return a new YamlString if it could be parsed, otherwise returns <code>null</code>
      */
     public static @Nullable YamlString parse(String s) {
-        Matcher m = Pattern.compile("^\\s*(?<name>[A-Za-z][\\w ]*):\\s?\"(?<value>[^\"]*)\"").matcher(s);
+        Matcher m = PATTERN.matcher(s);
         if (m.matches()) return new YamlString(m.group("name"), m.group("value"));
         return null;
     }
@@ -0,0 +1,192 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Items decoded from their binary encoding stringify the same as the encoded items, and broken encodings are refused
+ */
+public class YamlBinaryTest extends TestCase {
+    private static Yaml[] items() {
+        return new Yaml[]{
+                new YamlString("text", "a \"quoted\" \u00e9\u4e2d\ud83d\ude00"),
+                new YamlString("empty", ""),
+                new YamlString("none", null),
+                new YamlNumber("int", 42),
+                new YamlNumber("negative", Integer.MIN_VALUE),
+                new YamlNumber("float", 2.5f),
+                new YamlNumber("tiny", -1.0E-30f),
+                new YamlBoolean("yes", true),
+                new YamlBoolean("no", false),
+                new YamlNull("nothing"),
+                new YamlArray("list", 1, -7, "a", 2.5f, 1.25, 1L << 40, true, null, 'c'),
+                new YamlArray("emptyList"),
+                new YamlObject("outer",
+                        new YamlNumber("w", 3),
+                        new YamlObject("inner",
+                                new YamlBoolean("on", true),
+                                new YamlObject("deepest", new YamlString("leaf", "x"))),
+                        new YamlObject("hollow")),
+        };
+    }
+
+    private static Yaml[] roundTrip(Yaml[] items) throws IOException {
+        byte[] b = YamlBinary.encode(items);
+        return YamlBinary.decode(b, 0, b.length);
+    }
+
+    public void testEveryTypeRoundTrips() throws IOException {
+        Yaml[] items = items();
+        Yaml[] decoded = roundTrip(items);
+        assertEquals(items.length, decoded.length);
+        for (int i = 0; i < items.length; i++) {
+            assertEquals(items[i].getClass(), decoded[i].getClass());
+            assertEquals(items[i].stringify(), decoded[i].stringify());
+        }
+        assertEquals(Yaml.stringify(items), Yaml.stringify(decoded));
+        assertEquals(0, roundTrip(new Yaml[0]).length);
+    }
+
+    public void testArrayValuesKeepTheirType() throws IOException {
+        YamlArray a = (YamlArray) roundTrip(new Yaml[]{new YamlArray("list", 1, 2.5f, 1.25, 1L << 40, true, null, "s", 'c')})[0];
+        assertEquals(Arrays.asList(1, 2.5f, 1.25, 1L << 40, true, null, "s", "c"), Arrays.asList(a.values));
+    }
+
+    public void testNestedObjectsRoundTrip() throws IOException {
+        // wide enough that the length of the outer object takes more than one varint byte
+        YamlObject child = null;
+        for (int depth = 19; depth >= 0; depth--) {
+            Yaml[] items = new Yaml[child == null ? 50 : 51];
+            for (int i = 0; i < 50; i++) items[i] = new YamlNumber("n" + i, depth * 100 + i);
+            if (child != null) items[50] = child;
+            child = new YamlObject("level" + depth, items);
+        }
+        YamlObject root = new YamlObject("root", child);
+        Yaml[] decoded = roundTrip(new Yaml[]{root});
+        assertEquals(root.stringify(), decoded[0].stringify());
+
+        YamlObject level = (YamlObject) decoded[0];
+        for (int depth = 0; depth < 20; depth++) {
+            level = level.getObject("level" + depth);
+            assertEquals(depth * 100 + 49, level.getNumber("n49").size());
+        }
+    }
+
+    public void testNamesAreStoredOnce() throws IOException {
+        Yaml[] items = new Yaml[100];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new YamlObject("entry", new YamlString("name", "n" + i), new YamlNumber("value", i));
+        }
+        byte[] b = YamlBinary.encode(items);
+        // "YAMB", the version and the size of the name table
+        assertEquals(3, b[5]);
+        assertEquals(Yaml.stringify(items), Yaml.stringify(YamlBinary.decode(b, 0, b.length)));
+        String text = new String(b, StandardCharsets.ISO_8859_1);
+        for (String name : new String[]{"entry", "name", "value"}) {
+            assertEquals(text.indexOf(name), text.lastIndexOf(name));
+        }
+    }
+
+    public void testDecodesFromAnOffset() throws IOException {
+        Yaml[] items = items();
+        byte[] b = YamlBinary.encode(items);
+        byte[] padded = new byte[b.length + 10];
+        System.arraycopy(b, 0, padded, 7, b.length);
+        assertEquals(Yaml.stringify(items), Yaml.stringify(YamlBinary.decode(padded, 7, b.length)));
+    }
+
+    public void testTruncatedDataIsRefused() {
+        byte[] b = YamlBinary.encode(items());
+        for (int length = 0; length < b.length; length++) {
+            try {
+                YamlBinary.decode(b, 0, length);
+                fail("decoded " + length + " of " + b.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    public void testCorruptDataIsRefused() {
+        byte[] b = YamlBinary.encode(new Yaml[]{new YamlString("a", "b")});
+        // "YAMB" 1, 1 name: 1 'a', 1 item: STRING name 1 length 2 'b'
+        assertEquals("[89, 65, 77, 66, 1, 1, 1, 97, 1, 1, 1, 2, 98]", Arrays.toString(b));
+
+        assertRefused(b, 0, 'X', "Not a binary yaml encoding");
+        assertRefused(b, 4, 2, "Unsupported binary yaml version: 2");
+        assertRefused(b, 8, 1 << 6, "Invalid count");
+        assertRefused(b, 9, 0x7F, "Unknown tag 127");
+        assertRefused(b, 10, 2, "Invalid name index 2");
+        assertRefused(b, 11, 9, "Invalid string length");
+        byte[] longer = Arrays.copyOf(b, b.length + 1);
+        try {
+            YamlBinary.decode(longer, 0, longer.length);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Unexpected data after the last item", e.getMessage());
+        }
+
+        byte[] o = YamlBinary.encode(new Yaml[]{new YamlObject("o", new YamlNull("n"))});
+        // the header and both names take 10 bytes, the object length follows the item count, tag and name index
+        int at = 13;
+        assertEquals(YamlBinary.OBJECT, o[at - 2]);
+        o[at + 4]++;
+        try {
+            YamlBinary.decode(o, 0, o.length);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Object 'o' has an invalid length", e.getMessage());
+        }
+    }
+
+    public void testOverlongVarintsAreRefused() {
+        byte[] b = new byte[]{'Y', 'A', 'M', 'B', 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0};
+        try {
+            YamlBinary.decode(b, 0, b.length);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Malformed varint"));
+        }
+        // ten bytes encode a negative count
+        b = new byte[]{'Y', 'A', 'M', 'B', 1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 1};
+        try {
+            YamlBinary.decode(b, 0, b.length);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid count"));
+        }
+    }
+
+    public void testRandomCorruptionOnlyThrowsIOException() {
+        byte[] b = YamlBinary.encode(items());
+        Random random = new Random(1);
+        for (int round = 0; round < 20_000; round++) {
+            byte[] c = b.clone();
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                int at = 5 + random.nextInt(c.length - 5);
+                c[at] = random.nextInt(4) == 0 ? (byte) -1 : (byte) random.nextInt(256);
+            }
+            try {
+                YamlBinary.decode(c, 0, c.length);
+            } catch (IOException expected) {
+            } catch (RuntimeException e) {
+                throw new AssertionError("round " + round + ": " + Arrays.toString(c), e);
+            }
+        }
+    }
+
+    private static void assertRefused(byte[] b, int at, int value, String message) {
+        byte[] c = b.clone();
+        c[at] = (byte) value;
+        try {
+            YamlBinary.decode(c, 0, c.length);
+            fail("decoded with " + value + " at " + at);
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.shiromi.yaml;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * A snapshot is used only while the size, the last modification time and the checksum of its source are unchanged
+ */
+public class YamlCacheTest extends TestCase {
+    private static final String TEXT = """
+            name: "original"
+            size:
+                w: 3
+                h: 1.5
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("cache");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testSnapshotIsStoredNextToTheSource() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        YamlFile f = YamlFile.readCached(file, null);
+        assertNotNull(f);
+        assertEquals(Yaml.stringify(Yaml.fromString(TEXT)), Yaml.stringify(f.get()));
+        assertTrue(this.dir.resolve(".a.yaml.cache").toFile().isFile());
+
+        this.plant(YamlCache.snapshotOf(file, null));
+        assertEquals("planted!", this.name(file, null));
+    }
+
+    public void testSnapshotIsStoredInTheCacheDirectory() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        File cache = this.dir.resolve("cache").toFile();
+        assertEquals("original", this.name(file, cache));
+        File snapshot = YamlCache.snapshotOf(file, cache);
+        assertEquals(cache, snapshot.getParentFile());
+        assertTrue(snapshot.isFile());
+        assertFalse(this.dir.resolve(".a.yaml.cache").toFile().exists());
+
+        this.plant(snapshot);
+        assertEquals("planted!", this.name(file, cache));
+        // another file with the same name gets its own snapshot
+        File other = this.write("other/a.yaml", TEXT);
+        assertEquals("original", this.name(other, cache));
+    }
+
+    public void testChangedSizeInvalidatesTheSnapshot() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        this.name(file, null);
+        this.plant(YamlCache.snapshotOf(file, null));
+        this.rewrite(file, TEXT.replace("original", "original, longer"), false);
+        assertEquals("original, longer", this.name(file, null));
+        this.assertSnapshotMatches(file);
+    }
+
+    public void testChangedModificationTimeInvalidatesTheSnapshot() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        this.name(file, null);
+        this.plant(YamlCache.snapshotOf(file, null));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 5000));
+        assertEquals("original", this.name(file, null));
+        this.assertSnapshotMatches(file);
+    }
+
+    public void testChangedChecksumInvalidatesTheSnapshot() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        this.name(file, null);
+        this.plant(YamlCache.snapshotOf(file, null));
+        // same size and modification time, only the checksum tells the contents apart
+        this.rewrite(file, TEXT.replace("original", "changed!"), true);
+        assertEquals("changed!", this.name(file, null));
+        this.assertSnapshotMatches(file);
+    }
+
+    public void testFilesWithAliasesOrMergesAreNotCached() throws IOException {
+        File aliases = this.write("aliases.yaml", """
+                base: &base
+                    a: 1
+                copy: *base
+                """);
+        File merges = this.write("merges.yaml", """
+                base: &base
+                    a: 1
+                derived:
+                    <<: *base
+                    b: 2
+                """);
+        for (File file : new File[]{aliases, merges}) {
+            YamlFile f = YamlFile.readCached(file, null);
+            assertNotNull(f);
+            assertEquals(Yaml.stringify(YamlFile.read(file).get()), Yaml.stringify(f.get()));
+            assertFalse(file.getName(), YamlCache.snapshotOf(file, null).exists());
+            assertEquals(1, f.getObject("base").getNumber("a").size());
+        }
+    }
+
+    public void testCorruptSnapshotIsReplaced() throws IOException {
+        File file = this.write("a.yaml", TEXT);
+        File snapshot = YamlCache.snapshotOf(file, null);
+        this.name(file, null);
+        byte[] valid = Files.readAllBytes(snapshot.toPath());
+
+        byte[][] corrupt = {
+                new byte[0],
+                "not a snapshot".getBytes(StandardCharsets.US_ASCII),
+                java.util.Arrays.copyOf(valid, valid.length / 2),
+                java.util.Arrays.copyOf(valid, valid.length - 1),
+        };
+        for (byte[] b : corrupt) {
+            Files.write(snapshot.toPath(), b);
+            assertEquals("original", this.name(file, null));
+            assertTrue(java.util.Arrays.equals(valid, Files.readAllBytes(snapshot.toPath())));
+        }
+
+        // a snapshot of another version is ignored as well
+        byte[] version = valid.clone();
+        version[4]++;
+        Files.write(snapshot.toPath(), version);
+        assertEquals("original", this.name(file, null));
+        this.assertSnapshotMatches(file);
+    }
+
+    private File write(String name, String text) throws IOException {
+        Path p = this.dir.resolve(name);
+        Files.createDirectories(p.getParent());
+        return Files.writeString(p, text).toFile();
+    }
+
+    /**
+     * Replaces the contents of a file, keeping its last modification time if asked to
+     */
+    private void rewrite(File file, String text, boolean keepModified) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file.toPath());
+        Files.writeString(file.toPath(), text);
+        if (keepModified) Files.setLastModifiedTime(file.toPath(), modified);
+    }
+
+    /**
+     * Changes the name stored in a snapshot, so a value read from it can be told apart from a value parsed
+     */
+    private void plant(File snapshot) throws IOException {
+        String s = new String(Files.readAllBytes(snapshot.toPath()), StandardCharsets.ISO_8859_1);
+        assertEquals(s.indexOf("original"), s.lastIndexOf("original"));
+        Files.write(snapshot.toPath(), s.replace("original", "planted!").getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private String name(File file, File cache) {
+        YamlFile f = YamlFile.readCached(file, cache);
+        assertNotNull(f);
+        return f.getString("name").value;
+    }
+
+    private void assertSnapshotMatches(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        SourceMap cached = YamlCache.load(YamlCache.snapshotOf(file, null), bytes.length, file.lastModified(),
+                YamlCache.checksum(bytes));
+        assertNotNull(cached);
+        assertEquals(Yaml.stringify(Yaml.fromString(new String(bytes, StandardCharsets.UTF_8))),
+                Yaml.stringify(cached.roots()));
+    }
+}
@@ -0,0 +1,166 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writing a file keeps the objects it shares shared, with anchors, aliases and merge keys
+ */
+public class YamlFileAliasTest extends TestCase {
+    private static final String TEXT = """
+            base: &base
+                a: 1
+                b: "x"
+
+            copy: *base
+
+            other:
+                <<: *base
+                b: "y"
+
+            plain: true
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("alias");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testUnrelatedChangeIsPatched() throws Exception {
+        File file = this.write("a.yaml", TEXT);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        f.get()[3] = new YamlBoolean("plain", false);
+        assertTrue(f.create());
+        assertEquals(TEXT.replace("plain: true", "plain: false"), Files.readString(file.toPath()));
+
+        YamlObject other = f.getObject("other");
+        other.replace(other.getByName("b"), new YamlString("b", "z"));
+        assertTrue(f.create());
+        assertEquals(TEXT.replace("plain: true", "plain: false").replace("b: \"y\"", "b: \"z\""),
+                Files.readString(file.toPath()));
+    }
+
+    public void testChangedChildOfAnchorIsPatched() throws Exception {
+        File file = this.write("a.yaml", TEXT);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        YamlObject base = f.getObject("base");
+        base.replace(0, new YamlNumber("a", 2));
+        assertTrue(f.create());
+        assertEquals(TEXT.replace("a: 1", "a: 2.0"), Files.readString(file.toPath()));
+        this.assertReadBack(file, f);
+    }
+
+    public void testAliasNoLongerSharedIsWrittenAsAWhole() throws Exception {
+        File file = this.write("a.yaml", TEXT);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        YamlObject base = f.getObject("base");
+        base.values = new Yaml[]{new YamlNumber("a", 2), base.values[1]};
+        assertTrue(f.create());
+
+        assertEquals("""
+                base: &base
+                \ta: 2.0
+                \tb: &b "x"
+
+                copy:
+                \ta: 1.0
+                \tb: *b
+
+                other:
+                \t<<: *base
+                \tb: "y"
+
+                plain: true
+
+                """, Files.readString(file.toPath()));
+        YamlFile again = YamlFile.read(file);
+        assertNotNull(again);
+        assertEquals(f.getContent(), again.getContent());
+        assertSame(again.getObject("base"), again.getObject("other").getMerged()[0]);
+    }
+
+    public void testSharedObjectsOfNewFile() throws Exception {
+        YamlObject base = new YamlObject("base", new YamlNumber("a", 1), new YamlString("b", "x"));
+        YamlString shared = new YamlString("s", "v");
+        YamlObject other = new YamlObject("other", new YamlString("b", "y"), shared);
+        other.merge(base);
+        File file = this.dir.resolve("b.yaml").toFile();
+        YamlFile f = new YamlFile(file);
+        f.write(base, shared, new YamlObject("copy", base.values), other);
+        assertTrue(f.create());
+
+        assertEquals("""
+                base: &base
+                \ta: 1.0
+                \tb: "x"
+
+                s: &s "v"
+
+                copy: *base
+
+                other:
+                \t<<: *base
+                \tb: "y"
+                \ts: *s
+
+                """, Files.readString(file.toPath()));
+        YamlFile again = this.assertReadBack(file, f);
+        assertSame(again.get()[1], again.getObject("other").getByName("s"));
+    }
+
+    public void testMergeOfObjectNotAnchoredBefore() throws Exception {
+        YamlObject base = new YamlObject("base", new YamlNumber("a", 1));
+        YamlObject other = new YamlObject("other", new YamlString("b", "y"));
+        other.merge(base);
+        File file = this.dir.resolve("c.yaml").toFile();
+        YamlFile f = new YamlFile(file);
+        f.write(other, base);
+        assertTrue(f.create());
+        // the merged item is written into the object, and later as an alias of it
+        assertEquals("other:\n\tb: \"y\"\n\ta: &a 1.0\n\nbase:\n\ta: *a\n\n", Files.readString(file.toPath()));
+    }
+
+    public void testGzip() throws Exception {
+        File file = this.write("a.yaml", TEXT);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        File gz = this.dir.resolve("a.yaml.gz").toFile();
+        YamlFile g = new YamlFile(gz);
+        g.write(f.get());
+        assertTrue(g.create());
+        this.assertReadBack(gz, f);
+    }
+
+    private YamlFile assertReadBack(File file, YamlFile expected) {
+        YamlFile again = YamlFile.read(file);
+        assertNotNull(again);
+        assertEquals(expected.getContent(), again.getContent());
+        assertSame(again.getObject("base").values, again.getObject("copy").values);
+        assertEquals(1, again.getObject("other").getMerged().length);
+        assertSame(again.getObject("base"), again.getObject("other").getMerged()[0]);
+        return again;
+    }
+
+    private File write(String name, String text) throws IOException {
+        File file = this.dir.resolve(name).toFile();
+        Files.writeString(file.toPath(), text);
+        return file;
+    }
+}
@@ -0,0 +1,152 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Saving a read file only writes the objects which were changed, leaving the comments and formatting of the rest of
+ * the file as they are
+ */
+public class YamlFilePatchTest extends TestCase {
+    private static final String TEXT = """
+            # settings
+            root:
+                a: 1
+                b: "x"
+                c: true
+
+            other: "o"
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("patch");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testReplaceChild() throws Exception {
+        String patched = this.patch(TEXT, f -> {
+            YamlObject root = f.getObject("root");
+            root.replace(root.getByName("b"), new YamlString("b", "y"));
+        });
+        assertEquals(TEXT.replace("b: \"x\"", "b: \"y\""), patched);
+    }
+
+    public void testInsertChild() throws Exception {
+        String patched = this.patch(TEXT, f -> {
+            YamlObject root = f.getObject("root");
+            root.add(root.getByName("c"), new YamlString("d", "z"));
+        });
+        assertEquals(TEXT.replace("    c: true", "    d: \"z\"\n    c: true"), patched);
+    }
+
+    public void testAppendChild() throws Exception {
+        String patched = this.patch(TEXT, f -> append(f.getObject("root"), new YamlNull("e")));
+        assertEquals(TEXT.replace("    c: true", "    c: true\n    e: null"), patched);
+    }
+
+    public void testRemoveChild() throws Exception {
+        String patched = this.patch(TEXT, f -> f.getObject("root").remove(1));
+        assertEquals(TEXT.replace("    b: \"x\"\n", ""), patched);
+    }
+
+    public void testRemoveLastChildAtEndOfFile() throws Exception {
+        String text = "root:\n    a: 1\n    b: 2";
+        assertEquals("root:\n    a: 1", this.patch(text, f -> f.getObject("root").pop()));
+    }
+
+    public void testAppendToEmptyObject() throws Exception {
+        String text = "# empty\nempty:\nother: 1\n";
+        assertEquals("# empty\nempty:\n\tv: true\nother: 1\n",
+                this.patch(text, f -> append(f.getObject("empty"), new YamlBoolean("v", true))));
+    }
+
+    public void testReplaceAndAppendTopLevel() throws Exception {
+        String patched = this.patch(TEXT, f -> {
+            f.get()[1] = new YamlString("other", "p");
+            f.write(new YamlBoolean("last", false));
+        });
+        assertEquals(TEXT.replace("other: \"o\"", "other: \"p\"\n\nlast: false"), patched);
+    }
+
+    public void testCrlf() throws Exception {
+        String text = TEXT.replace("\n", "\r\n");
+        String patched = this.patch(text, f -> {
+            YamlObject root = f.getObject("root");
+            root.remove(0);
+            root.replace(root.getByName("c"), new YamlObject("c", new YamlNumber("n", 2)));
+            append(root, new YamlString("e", "v"));
+        });
+        assertEquals(TEXT.replace("    a: 1\n", "")
+                .replace("    c: true", "    c:\n        n: 2.0\n    e: \"v\"")
+                .replace("\n", "\r\n"), patched);
+    }
+
+    public void testSuccessivePatches() throws Exception {
+        File file = this.dir.resolve("a.yaml").toFile();
+        Files.writeString(file.toPath(), TEXT);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        YamlObject root = f.getObject("root");
+
+        root.add(root.getByName("b"), new YamlString("x", "1"));
+        assertTrue(f.create());
+        root.remove(root.find(root.getByName("a")));
+        assertTrue(f.create());
+        root.replace(root.getByName("c"), new YamlBoolean("c", false));
+        f.write(new YamlNull("n"));
+        assertTrue(f.create());
+
+        String expected = TEXT.replace("    a: 1\n", "    x: \"1\"\n").replace("c: true", "c: false")
+                .replace("other: \"o\"", "other: \"o\"\n\nn: null");
+        assertEquals(expected, Files.readString(file.toPath()));
+        YamlFile again = YamlFile.read(file);
+        assertNotNull(again);
+        assertEquals(f.getContent(), again.getContent());
+    }
+
+    public void testReorderedChildrenAreWrittenAsAWhole() throws Exception {
+        String patched = this.patch(TEXT, f -> {
+            YamlObject root = f.getObject("root");
+            Yaml[] v = root.values;
+            root.set(v[2], v[0], v[1]);
+        });
+        assertEquals(TEXT.replace("root:\n    a: 1\n    b: \"x\"\n    c: true",
+                "root:\n    c: true\n    a: 1.0\n    b: \"x\""), patched);
+    }
+
+    private String patch(String text, Change change) throws Exception {
+        File file = this.dir.resolve("a.yaml").toFile();
+        Files.writeString(file.toPath(), text);
+        YamlFile f = YamlFile.read(file);
+        assertNotNull(f);
+        change.accept(f);
+        assertTrue(f.create());
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void append(YamlObject o, Yaml y) {
+        Yaml[] values = Arrays.copyOf(o.values, o.values.length + 1);
+        values[o.values.length] = y;
+        o.set(values);
+    }
+
+    private interface Change {
+        void accept(YamlFile f) throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Files and sources compressed with <code>gzip</code> read back the content they were written with
+ */
+public class YamlGzipTest extends TestCase {
+    private static final String TEXT = """
+            version: "1.0"
+            base: &base
+                x: 1
+                y: "\u00e9"
+            copy: *base
+            derived:
+                <<: *base
+                y: "z"
+            list: [1, "a", 2.5]
+            last: null
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("gzip");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean isGzip(Path p) throws IOException {
+        byte[] b = Files.readAllBytes(p);
+        return b.length > 2 && b[0] == (byte) 0x1f && b[1] == (byte) 0x8b;
+    }
+
+    public void testGzipSourceIsDecompressed() throws IOException {
+        String expected = Yaml.stringify(Yaml.fromString(TEXT));
+        assertEquals(expected, Yaml.stringify(Yaml.fromSource(YamlSource.gzip(YamlSource.of(gzip(TEXT))))));
+
+        Path p = Files.write(this.dir.resolve("a.yaml.gz"), gzip(TEXT));
+        assertEquals(expected, Yaml.stringify(Yaml.fromSource(YamlSource.of(p))));
+        assertEquals(expected, Yaml.stringify(YamlFile.read(p.toFile()).get()));
+    }
+
+    public void testDocumentsOfAGzipSource() throws IOException {
+        try (YamlReader reader = YamlReader.documents(YamlSource.gzip(YamlSource.of(gzip(TEXT + "---\nnext: true\n"))))) {
+            assertEquals(Yaml.stringify(Yaml.fromString(TEXT)), Yaml.stringify(reader.next()));
+            assertEquals("next: true\n", Yaml.stringify(reader.next()));
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    public void testCorruptGzipIsRefused() throws IOException {
+        byte[] b = gzip(TEXT);
+        byte[][] corrupt = {
+                TEXT.getBytes(StandardCharsets.UTF_8),
+                java.util.Arrays.copyOf(b, b.length / 2),
+        };
+        for (byte[] c : corrupt) {
+            try {
+                Yaml.fromSource(YamlSource.gzip(YamlSource.of(c)));
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    public void testCreatedGzipFileReadsBack() throws IOException {
+        Yaml[] content = YamlFile.read(Files.writeString(this.dir.resolve("a.yaml"), TEXT).toFile()).get();
+        File file = this.dir.resolve("out/a.yaml.gz").toFile();
+        YamlFile f = new YamlFile(file).write(content);
+        assertTrue(f.create());
+        assertTrue(isGzip(file.toPath()));
+
+        YamlFile read = YamlFile.read(file);
+        assertNotNull(read);
+        assertEquals(Yaml.stringify(content), Yaml.stringify(read.get()));
+        // objects shared by the file are written with anchors, aliases and merge keys
+        String text;
+        try (GZIPInputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(text, text.contains("base: &base\n") && text.contains("copy: *base\n") && text.contains("<<: *base\n"));
+
+        // a changed gzip file is written as a whole again
+        read.get()[0] = new YamlString("version", "2.0");
+        assertTrue(read.create());
+        assertTrue(isGzip(file.toPath()));
+        YamlFile again = YamlFile.read(file);
+        assertEquals("2.0", again.getString("version").value);
+        assertEquals(Yaml.stringify(read.get()), Yaml.stringify(again.get()));
+    }
+
+    public void testSavedGzipFileReadsBack() throws Exception {
+        File file = this.dir.resolve("b.yaml.gz").toFile();
+        YamlFile f = new YamlFile(file).write(Yaml.fromString(TEXT));
+        f.saveAsync().get();
+        assertTrue(isGzip(file.toPath()));
+        assertEquals(Yaml.stringify(f.get()), Yaml.stringify(YamlFile.read(file).get()));
+        assertEquals(Yaml.stringify(f.get()), Yaml.stringify(YamlFile.readAsync(file.toPath()).get().get()));
+    }
+}
@@ -0,0 +1,87 @@
+package io.shiromi.yaml;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Releasing a file read within a budget returns exactly what was charged for it, also if aliases share objects
+ */
+public class YamlHeapBudgetTest extends TestCase {
+    private static final String TEXT = """
+            base: &base
+                a: 1
+                b: "x"
+                inner:
+                    c: true
+            copy: *base
+            other:
+                base: *base
+                d: null
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("budget");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testReleaseReturnsCharge() throws Exception {
+        File file = this.dir.resolve("a.yaml").toFile();
+        Files.writeString(file.toPath(), TEXT);
+        this.readAndRelease(file);
+    }
+
+    public void testReleaseReturnsChargeOfGzip() throws Exception {
+        File file = this.dir.resolve("a.yaml.gz").toFile();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+        }
+        this.readAndRelease(file);
+    }
+
+    public void testAliasesAreChargedOnce() throws Exception {
+        File file = this.dir.resolve("a.yaml").toFile();
+        Files.writeString(file.toPath(), TEXT);
+        YamlHeapBudget budget = new YamlHeapBudget(1 << 20, YamlHeapBudget.Mode.ABORT);
+        YamlFile f = YamlFile.readWithin(file, budget);
+        assertNotNull(f);
+        assertTrue(budget.used() < f.estimateRetainedBytes());
+    }
+
+    public void testLazyFileIsNotCharged() throws Exception {
+        File file = this.dir.resolve("a.yaml").toFile();
+        Files.writeString(file.toPath(), TEXT);
+        YamlHeapBudget budget = new YamlHeapBudget(16, YamlHeapBudget.Mode.LAZY);
+        YamlFile f = YamlFile.readWithin(file, budget);
+        assertNotNull(f);
+        assertTrue(f.isLazy());
+        assertEquals(0, budget.used());
+        budget.release(f);
+        assertEquals(0, budget.used());
+    }
+
+    private void readAndRelease(File file) throws Exception {
+        YamlHeapBudget budget = new YamlHeapBudget(1 << 20, YamlHeapBudget.Mode.ABORT);
+        YamlFile f = YamlFile.readWithin(file, budget);
+        assertNotNull(f);
+        assertFalse(f.isLazy());
+        assertTrue(budget.used() > 0);
+        budget.release(f);
+        assertEquals(0, budget.used());
+    }
+}
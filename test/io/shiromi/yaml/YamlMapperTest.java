@@ -0,0 +1,211 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.annotations.SerializedItem;
+import io.shiromi.yaml.exception.YamlMappingException;
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Instances bound from objects hold the values of their items, and objects written from instances read back the same
+ */
+public class YamlMapperTest extends TestCase {
+    enum Color {RED, GREEN}
+
+    record Size(int w, @SerializedItem(name = "height") int h) {
+    }
+
+    record Label(String text, Size size, Color color, boolean visible) {
+    }
+
+    static class Widget {
+        String name = "unnamed";
+        int count = 7;
+        Integer boxed = 3;
+        double scale;
+        char letter;
+        Color color = Color.GREEN;
+        List<String> tags;
+        List<Integer> numbers;
+        int[] grid;
+        String[] lines;
+        Color[] colors;
+        Size size;
+        transient String cache = "kept";
+        Widget child;
+    }
+
+    static class NoDefaultConstructor {
+        final int x;
+
+        NoDefaultConstructor(int x) {
+            this.x = x;
+        }
+    }
+
+    private static YamlObject object(String text) {
+        Yaml[] y = Yaml.fromString(text);
+        assertEquals(1, y.length);
+        return (YamlObject) y[0];
+    }
+
+    public void testRecordsAreCreatedWithTheirComponents() throws YamlMappingException {
+        Label label = YamlMapper.fromYaml(object("""
+                label:
+                    text: "hello"
+                    size:
+                        w: 3
+                        height: 4
+                    color: "RED"
+                    visible: true
+                    unknown: 1
+                """), Label.class);
+        assertEquals(new Label("hello", new Size(3, 4), Color.RED, true), label);
+
+        YamlObject o = YamlMapper.toYaml("label", label);
+        assertEquals(4, o.getObject("size").getNumber("height").size());
+        assertEquals(label, YamlMapper.fromYaml(o, Label.class));
+    }
+
+    public void testMissingComponentsAreDefaults() throws YamlMappingException {
+        Label label = YamlMapper.fromYaml(object("""
+                label:
+                    size:
+                        w: 3
+                """), Label.class);
+        assertEquals(new Label(null, new Size(3, 0), null, false), label);
+    }
+
+    public void testFieldsAreSet() throws YamlMappingException {
+        Widget w = YamlMapper.fromYaml(object("""
+                widget:
+                    name: "dial"
+                    count: 2
+                    scale: 1.5
+                    letter: "x"
+                    color: "RED"
+                    tags: ["a", "b"]
+                    numbers: [1, 2, 3]
+                    grid: [4, 5]
+                    lines: ["one", "two"]
+                    colors: ["GREEN", "RED"]
+                    size:
+                        w: 1
+                        height: 2
+                """), Widget.class);
+        assertEquals("dial", w.name);
+        assertEquals(2, w.count);
+        assertEquals(1.5, w.scale);
+        assertEquals('x', w.letter);
+        assertEquals(Color.RED, w.color);
+        assertEquals(List.of("a", "b"), w.tags);
+        assertEquals(List.of(1, 2, 3), w.numbers);
+        assertTrue(Arrays.equals(new int[]{4, 5}, w.grid));
+        assertTrue(Arrays.equals(new String[]{"one", "two"}, w.lines));
+        assertTrue(Arrays.equals(new Color[]{Color.GREEN, Color.RED}, w.colors));
+        assertEquals(new Size(1, 2), w.size);
+        assertEquals("kept", w.cache);
+        assertNull(w.child);
+
+        Widget back = YamlMapper.fromYaml(YamlMapper.toYaml("widget", w), Widget.class);
+        assertEquals(w.name, back.name);
+        assertEquals(w.scale, back.scale);
+        assertEquals(w.letter, back.letter);
+        assertEquals(w.tags, back.tags);
+        assertEquals(w.numbers, back.numbers);
+        assertTrue(Arrays.equals(w.grid, back.grid));
+        assertTrue(Arrays.equals(w.lines, back.lines));
+        assertTrue(Arrays.equals(w.colors, back.colors));
+        assertEquals(w.size, back.size);
+    }
+
+    public void testMissingAndNullFields() throws YamlMappingException {
+        Widget w = YamlMapper.fromYaml(object("""
+                widget:
+                    name: null
+                    count: null
+                    boxed: null
+                    size: null
+                """), Widget.class);
+        assertNull(w.name);
+        // a primitive keeps its default, as if the item was missing
+        assertEquals(7, w.count);
+        assertNull(w.boxed);
+        assertNull(w.size);
+        assertEquals(Color.GREEN, w.color);
+        assertNull(w.tags);
+
+        YamlObject o = YamlMapper.toYaml("widget", w);
+        assertTrue(o.getByName("name") instanceof YamlNull);
+        assertTrue(o.getByName("tags") instanceof YamlNull);
+        assertNull(o.getByName("cache"));
+    }
+
+    public void testMismatchedItemsAreRefused() {
+        try {
+            YamlMapper.fromYaml(object("""
+                    widget:
+                        count: "two"
+                    """), Widget.class);
+            fail();
+        } catch (YamlMappingException e) {
+            assertEquals("Item 'count' is a YamlString, expected int", e.getMessage());
+        }
+        try {
+            YamlMapper.fromYaml(object("""
+                    widget:
+                        color: "BLUE"
+                    """), Widget.class);
+            fail();
+        } catch (YamlMappingException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Unknown constant 'BLUE'"));
+        }
+    }
+
+    public void testBindingErrorKeepsItsCause() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                YamlMapper.fromYaml(object("""
+                        o:
+                            x: 1
+                        """), NoDefaultConstructor.class);
+                fail();
+            } catch (YamlMappingException e) {
+                assertEquals("Cannot bind " + NoDefaultConstructor.class.getName(), e.getMessage());
+                assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof NoSuchMethodException);
+            }
+        }
+    }
+
+    public void testCyclesAreRefused() {
+        Widget w = new Widget();
+        w.child = w;
+        try {
+            YamlMapper.toYaml("widget", w);
+            fail();
+        } catch (YamlMappingException e) {
+            assertEquals("Cannot write 'child', the " + Widget.class.getName() + " refers back to itself", e.getMessage());
+        }
+
+        Widget a = new Widget();
+        Widget b = new Widget();
+        a.child = b;
+        b.child = a;
+        try {
+            YamlMapper.toYaml("a", a);
+            fail();
+        } catch (YamlMappingException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("refers back to itself"));
+        }
+    }
+
+    public void testSharedInstancesAreWrittenTwice() throws YamlMappingException {
+        record Pair(Size first, Size second) {
+        }
+        Size s = new Size(1, 2);
+        YamlObject o = YamlMapper.toYaml("pair", new Pair(s, s));
+        assertEquals(new Pair(s, s), YamlMapper.fromYaml(o, Pair.class));
+    }
+}
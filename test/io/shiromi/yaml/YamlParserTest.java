@@ -0,0 +1,72 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+/**
+ * The parser reads scalars straight from the text, into the same objects the parse methods of the yaml types give
+ */
+public class YamlParserTest extends TestCase {
+    private static final String[] LINES = {
+            "s: \"text\"", "s:\"\"", "s: \"a: b\"", "s: \"a\" b", "s: \"a\"b\"", "S: \"x\"",
+            "n: 12", "n: -3", "n:+4", "n: 1.5", "n: 3.25", "n: 2e+3", "n: 2e3", "n: 1.", "n: 1 2",
+            "b: true", "b:\tfalse", "B: true", "b: yes", "b: truer",
+            "z: null", "z:null", "z:\tnull", "Z: null",
+            "a: [1, 2.25, \"x\"]", "a: [ 1 , y ]", "a: [1,]", "a: [,]", "a: []", "a: [1]]", "A:[\"q\"]",
+            "x y_1: 5", "1x: 5", "x-y: 5", "x:  5", "x", "x: 5 # c"
+    };
+
+    public void testScalarsAreParsedLikeTheirTypes() {
+        for (String line : LINES) {
+            Yaml[] y = Yaml.fromString(line);
+            Yaml expected = parse(line);
+            if (expected == null) assertEquals(line, 0, y.length);
+            else {
+                assertEquals(line, 1, y.length);
+                assertEquals(line, expected.getClass(), y[0].getClass());
+                assertEquals(line, expected.name, y[0].name);
+                assertEquals(line, expected.stringify(0), y[0].stringify(0));
+            }
+        }
+    }
+
+    public void testAnchoredScalars() {
+        for (String line : LINES) {
+            int colon = line.indexOf(':');
+            // only names of letters, digits, spaces and underscores can be anchored
+            if (colon < 0 || !line.substring(0, colon).matches("[a-z][\\w ]*")) continue;
+            String value = line.substring(colon + 1).trim();
+            Yaml[] y = Yaml.fromString(line.substring(0, colon) + ": &v " + value + "\ncopy: *v");
+            Yaml expected = parse("copy: " + value);
+            if (expected == null) assertEquals(line, 0, y.length);
+            else {
+                assertEquals(line, 2, y.length);
+                assertEquals(line, expected.stringify(0), y[1].stringify(0));
+            }
+        }
+    }
+
+    public void testValues() {
+        Yaml[] y = Yaml.fromString("s: \"x\"\nn: 7\nf: 0.5\nb: true\nz: null\na: [1, \"q\", 2.5, w]");
+        assertEquals(6, y.length);
+        assertEquals("x", y[0].get());
+        assertEquals(7.0, y[1].get());
+        assertEquals(0.5, y[2].get());
+        assertEquals(true, y[3].get());
+        assertTrue(y[4].isNullType());
+        Object[] values = ((YamlArray) y[5]).values;
+        assertEquals(1, values[0]);
+        assertEquals("\"q\"", values[1]);
+        assertEquals(2.5f, values[2]);
+        assertNull(values[3]);
+    }
+
+    private static Yaml parse(String s) {
+        Yaml y = YamlString.parse(s);
+        if (y == null) y = YamlNumber.parse(s);
+        if (y == null) y = YamlBoolean.parse(s);
+        if (y == null) y = YamlNull.parse(s);
+        if (y == null) y = YamlArray.parse(s);
+        return y;
+    }
+}
@@ -0,0 +1,79 @@
+package io.shiromi.yaml;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A stream is split into documents at lines starting with a <code>---</code> marker
+ */
+public class YamlReaderTest extends TestCase {
+    private static List<String> documents(String text) throws IOException {
+        List<String> documents = new ArrayList<>();
+        try (YamlReader reader = YamlReader.documents(YamlSource.of(text.getBytes(StandardCharsets.UTF_8)))) {
+            while (reader.hasNext()) documents.add(Yaml.stringify(reader.next()));
+        }
+        return documents;
+    }
+
+    private static String items(String text) {
+        return Yaml.stringify(Yaml.fromString(text));
+    }
+
+    public void testStreamWithoutMarkerIsOneDocument() throws IOException {
+        assertEquals(List.of(items("a: 1\nb: 2\n")), documents("a: 1\nb: 2\n"));
+        assertEquals(List.of(items("a: 1\n")), documents("a: 1"));
+        assertEquals(List.of(), documents(""));
+        assertEquals(List.of(), documents("\n  \n# only a comment\n"));
+    }
+
+    public void testDocumentsAreSplitAtMarkers() throws IOException {
+        assertEquals(List.of(items("a: 1\n"), items("b: 2\no:\n    c: 3\n"), items("d: true\n")),
+                documents("---\na: 1\n---\nb: 2\no:\n    c: 3\n--- \nd: true\n"));
+        // a marker is only recognized at the start of a line
+        assertEquals(List.of(items("a: 1\nb: 2\n")), documents("a: 1\n ---\nb: 2\n"));
+    }
+
+    public void testTextAfterTheMarkerStartsTheNextDocument() throws IOException {
+        assertEquals(List.of(items("a: 1\n"), items("c: 3\nd: 4\n")), documents("a: 1\n--- c: 3\nd: 4\n"));
+        assertEquals(List.of(items("c: 3\n"), items("e: 5\n")), documents("--- c: 3\n---\te: 5\n"));
+        assertEquals(List.of(items("o:\n    c: 3\n")), documents("--- o:\n    c: 3\n"));
+    }
+
+    public void testLeadingCommentIsIgnored() throws IOException {
+        assertEquals(List.of(items("a: 1\n"), items("b: 2\n")), documents("# header\n\n---\na: 1\n---\nb: 2\n"));
+        // without a marker, the comment is part of the only document
+        assertEquals(List.of(items("a: 1\n")), documents("# header\na: 1\n"));
+    }
+
+    public void testTrailingMarkerYieldsAnEmptyDocument() throws IOException {
+        assertEquals(List.of(items("a: 1\n"), ""), documents("a: 1\n---\n"));
+        assertEquals(List.of(items("a: 1\n"), ""), documents("a: 1\n---"));
+        assertEquals(List.of("", ""), documents("---\n---\n"));
+    }
+
+    public void testLongerDashesAreNoMarker() throws IOException {
+        assertEquals(List.of(items("a: 1\nb: 2\n")), documents("a: 1\n----\nb: 2\n"));
+        assertEquals(List.of(items("a: 1\nb: 2\n")), documents("a: 1\n---x\nb: 2\n"));
+    }
+
+    public void testCrlfLineEndings() throws IOException {
+        assertEquals(List.of(items("a: 1\no:\n    c: \"x\"\n"), items("b: 2\n"), items("d: 4\n")),
+                documents("a: 1\r\no:\r\n    c: \"x\"\r\n---\r\nb: 2\r\n--- d: 4\r\n"));
+        assertEquals(List.of(items("a: 1\n"), ""), documents("# header\r\n---\r\na: 1\r\n---\r\n"));
+    }
+
+    public void testDocumentsSpanningTheReadBuffer() throws IOException {
+        StringBuilder s = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            s.append("item").append(i).append(": \"").append("x".repeat(i % 17)).append("\"\n");
+            expected.append("item").append(i).append(": \"").append("x".repeat(i % 17)).append("\"\n");
+        }
+        List<String> documents = documents(s + "---\n" + s);
+        assertEquals(List.of(items(expected.toString()), items(expected.toString())), documents);
+    }
+}
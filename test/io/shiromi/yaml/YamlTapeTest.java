@@ -0,0 +1,129 @@
+package io.shiromi.yaml;
+
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A tape written while its source is parsed holds the same objects as a tape of the parsed objects
+ */
+public class YamlTapeTest extends TestCase {
+    private static final String TEXT = """
+            version: "1.0"
+            size:
+                w: 3
+                h: 1.5
+                inner:
+                    on: true
+                    off: null
+                    list: [1, "a", 2.5]
+            base: &base
+                x: 1
+                y: 2
+            copy: *base
+            derived:
+                <<: *base
+                y: 3
+            last: false
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("tape");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testStreamedTapeHoldsTheParsedObjects() throws IOException {
+        Yaml[] parsed = Yaml.fromString(TEXT);
+        String expected = Yaml.stringify(parsed);
+        assertEquals(expected, Yaml.stringify(YamlTape.of(parsed).toYaml()));
+
+        YamlTape memory = YamlTape.of(YamlSource.of(TEXT.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, Yaml.stringify(memory.toYaml()));
+
+        Path p = this.dir.resolve("a.tape");
+        YamlTape file = YamlTape.of(YamlSource.of(TEXT.getBytes(StandardCharsets.UTF_8)), p);
+        assertEquals(expected, Yaml.stringify(file.toYaml()));
+        assertEquals(Files.size(p), file.sizeInBytes());
+        assertEquals(memory.sizeInBytes(), file.sizeInBytes());
+        try (var files = Files.list(this.dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    public void testLookups() throws IOException {
+        YamlTape tape = YamlTape.of(YamlSource.of(TEXT.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(6, tape.length());
+        YamlTape.Node size = tape.get("size");
+        assertNotNull(size);
+        assertEquals(3, size.length());
+        assertEquals(3.0, size.get("w").getNumber());
+        assertEquals(1.5, size.get("h").getNumber());
+        assertTrue(size.get("inner").get("on").getBoolean());
+        assertEquals(YamlNull.class, size.get("inner").get("off").getType());
+        assertEquals("1.0", tape.get(0).getString());
+        YamlTape.Node derived = tape.get("derived");
+        assertEquals(2, derived.length());
+        assertEquals(3.0, derived.get("y").getNumber());
+        assertEquals(1.0, derived.get("x").getNumber());
+        assertFalse(tape.get("last").getBoolean());
+        assertNull(tape.get("missing"));
+    }
+
+    public void testSavedTapeIsMappedAgain() throws IOException {
+        YamlTape tape = YamlTape.of(YamlSource.of(TEXT.getBytes(StandardCharsets.UTF_8)));
+        Path p = this.dir.resolve("saved.tape");
+        tape.save(p);
+        assertEquals(tape.sizeInBytes(), Files.size(p));
+        assertEquals(Yaml.stringify(tape.toYaml()), Yaml.stringify(YamlTape.map(p).toYaml()));
+    }
+
+    public void testLargeGzipDocument() throws IOException {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            s.append("group").append(i).append(":\n");
+            for (int j = 0; j < 100; j++) {
+                s.append("\tsub").append(j).append(":\n");
+                s.append("\t\tname: \"item ").append(i).append('.').append(j).append("\"\n");
+                s.append("\t\tvalue: ").append(i * j).append('\n');
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(s.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Path p = this.dir.resolve("large.tape");
+        YamlTape tape = YamlTape.of(YamlSource.gzip(YamlSource.of(bytes.toByteArray())), p);
+        assertEquals(200, tape.length());
+        assertEquals("item 199.99", tape.get("group199").get("sub99").get("name").getString());
+        assertEquals(199.0 * 99, tape.get(199).get(99).get(1).getNumber());
+        assertEquals(Yaml.stringify(Yaml.fromString(s.toString())), Yaml.stringify(tape.toYaml()));
+    }
+
+    public void testFailedTapeIsDeleted() throws IOException {
+        Path p = this.dir.resolve("bad.tape");
+        byte[] invalid = {'a', ':', ' ', '"', (byte) 0xC3, '"', '\n'};
+        try {
+            YamlTape.of(YamlSource.of(invalid), p);
+            fail();
+        } catch (IOException expected) {
+        }
+        try (var files = Files.list(this.dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
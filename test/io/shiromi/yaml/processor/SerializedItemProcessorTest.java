@@ -0,0 +1,161 @@
+package io.shiromi.yaml.processor;
+
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.util.*;
+import junit.framework.TestCase;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class compiled with the processor gets a binder, whose objects read back into the same instance
+ */
+public class SerializedItemProcessorTest extends TestCase {
+    private static final String WIDGET = """
+            package gen;
+
+            import io.shiromi.yaml.annotations.SerializedItem;
+
+            public class Widget {
+                public enum Color {RED, GREEN}
+
+                public record Size(@SerializedItem int w, @SerializedItem(name = "height") double h) {
+                }
+
+                @SerializedItem public double scale;
+                @SerializedItem public Double boxedScale;
+                @SerializedItem public float ratio;
+                @SerializedItem public int count;
+                @SerializedItem public Integer boxed;
+                @SerializedItem public long big;
+                @SerializedItem public short small;
+                @SerializedItem public byte tiny;
+                @SerializedItem public boolean on;
+                @SerializedItem public char letter;
+                @SerializedItem public String text;
+                @SerializedItem public Color color;
+                @SerializedItem public Size size;
+                @SerializedItem(name = "varName") public String renamed;
+                @SerializedItem(name = "") public String plain;
+                public String ignored = "ignored";
+            }
+            """;
+
+    private static final String CHECK = """
+            package gen;
+
+            import io.shiromi.yaml.util.YamlObject;
+
+            public class Check {
+                public static YamlObject write() {
+                    Widget w = new Widget();
+                    w.scale = 0.5;
+                    w.boxedScale = 1.5;
+                    w.ratio = 2.5f;
+                    w.count = -3;
+                    w.boxed = 4;
+                    w.big = 5;
+                    w.small = 6;
+                    w.tiny = 7;
+                    w.on = true;
+                    w.letter = 'x';
+                    w.text = "hello";
+                    w.color = Widget.Color.GREEN;
+                    w.size = new Widget.Size(8, 9.5);
+                    w.renamed = "renamed";
+                    w.plain = "plain";
+                    return WidgetYamlBinder.toYaml(w);
+                }
+
+                public static YamlObject roundTrip(YamlObject o) {
+                    return WidgetYamlBinder.toYaml(WidgetYamlBinder.fromYaml(o));
+                }
+            }
+            """;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("processor");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var files = Files.walk(this.dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    public void testGeneratedBinderRoundTrips() throws Exception {
+        Path classes = this.compile();
+        String binder = Files.readString(this.dir.resolve("generated/gen/WidgetYamlBinder.java"));
+        assertFalse(binder, binder.contains("(double)"));
+        assertTrue(Files.isRegularFile(classes.resolve("gen/Widget_SizeYamlBinder.class")));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, this.getClass().getClassLoader())) {
+            Class<?> check = loader.loadClass("gen.Check");
+            YamlObject o = (YamlObject) check.getMethod("write").invoke(null);
+            assertEquals("Widget", o.name);
+            assertEquals(0.5, o.getNumber("scale").get());
+            assertEquals(1.5, o.getNumber("boxedScale").get());
+            assertEquals("hello", o.getString("text").value);
+            assertEquals("GREEN", o.getString("color").value);
+            assertEquals(9.5, o.getObject("size").getNumber("height").get());
+            assertEquals("renamed", o.getString("varName").value);
+            assertEquals("plain", o.getString("plain").value);
+            assertNull(o.getByName("renamed"));
+            assertNull(o.getByName("ignored"));
+
+            YamlObject back = (YamlObject) check.getMethod("roundTrip", YamlObject.class).invoke(null, o);
+            assertEquals(o.stringify(), back.stringify());
+
+            // and through the text of the object
+            YamlObject parsed = (YamlObject) Yaml.fromString(o.stringify())[0];
+            back = (YamlObject) check.getMethod("roundTrip", YamlObject.class).invoke(null, parsed);
+            assertEquals(o.stringify(), back.stringify());
+        }
+    }
+
+    /**
+     * Compiles the sources with the processor, treating every lint warning but the processing ones as an error
+     *
+     * @return the directory of the compiled classes
+     */
+    private Path compile() throws IOException, URISyntaxException {
+        Path src = Files.createDirectories(this.dir.resolve("src/gen"));
+        Files.writeString(src.resolve("Widget.java"), WIDGET);
+        Files.writeString(src.resolve("Check.java"), CHECK);
+        Path classes = Files.createDirectories(this.dir.resolve("classes"));
+        Path generated = Files.createDirectories(this.dir.resolve("generated"));
+        String classpath = location(YamlObject.class) + File.pathSeparator + location(NotNull.class);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                    List.of("-Xlint:all,-processing", "-Werror", "-cp", classpath, "-d", classes.toString(), "-s", generated.toString()),
+                    null, files.getJavaFileObjects(src.resolve("Widget.java").toFile(), src.resolve("Check.java").toFile()));
+            task.setProcessors(List.of(new SerializedItemProcessor()));
+            boolean compiled = task.call();
+            assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+            assertEquals(List.of(), diagnostics.getDiagnostics());
+        }
+        assertTrue(new File(classes.toFile(), "gen/WidgetYamlBinder.class").isFile());
+        return classes;
+    }
+
+    private static String location(Class<?> c) throws URISyntaxException {
+        return Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
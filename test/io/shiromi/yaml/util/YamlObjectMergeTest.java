@@ -0,0 +1,93 @@
+package io.shiromi.yaml.util;
+
+import io.shiromi.yaml.Yaml;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An object merging others is read the same way by every method, as its own items followed by the merged items it
+ * does not shadow
+ */
+public class YamlObjectMergeTest extends TestCase {
+    private YamlObject base;
+    private YamlObject defaults;
+    private YamlObject o;
+
+    @Override
+    protected void setUp() {
+        this.base = new YamlObject("base", new YamlNumber("a", 1), new YamlString("b", "x"));
+        this.defaults = new YamlObject("defaults", new YamlString("b", "d"), new YamlBoolean("c", true));
+        this.o = new YamlObject("o", new YamlString("b", "y"));
+        this.o.merge(this.base, this.defaults);
+    }
+
+    public void testEveryMethodReadsTheMergedItems() {
+        Yaml[] all = this.o.getAll();
+        assertEquals(3, all.length);
+        assertEquals("b", all[0].name);
+        assertEquals("a", all[1].name);
+        assertEquals("c", all[2].name);
+
+        assertEquals(all.length, this.o.length());
+        for (int i = 0; i < all.length; i++) assertSame(all[i], this.o.getAt(i));
+        assertSame(all[2], this.o.getLast());
+        assertNull(this.o.getAt(3));
+        assertFalse(this.o.isEmpty());
+        assertEquals(1, this.o.getCountOfStrings());
+        assertEquals(1, this.o.getCountOfNumbers());
+        assertEquals(1, this.o.getCountOfBooleans());
+        assertEquals(3, this.o.absoluteSize());
+        assertTrue(this.o.contains(this.base.getAt(0)));
+        assertSame(all[0], this.o.getByName("b"));
+        assertSame(all[2], this.o.getBoolean("c"));
+
+        List<Yaml> seen = new ArrayList<>();
+        this.o.forEach((i, k, v) -> {
+            assertSame(this.o.getAt(i), v);
+            seen.add(v);
+        });
+        assertEquals(3, seen.size());
+    }
+
+    public void testOwnItemsKeepTheirIndex() {
+        assertSame(this.o.values[0], this.o.getAt(0));
+        assertEquals(0, this.o.find(this.o.values[0]));
+        assertEquals(-1, this.o.find(this.base.getAt(0)));
+        assertNull(this.o.remove(1));
+        assertEquals(1, this.o.values.length);
+    }
+
+    public void testResolvedItemsAreKept() {
+        assertSame(this.o.getAll(), this.o.getAll());
+    }
+
+    public void testChangesAreSeen() throws Exception {
+        Yaml[] before = this.o.getAll();
+        this.o.append(new YamlNull("d"));
+        assertEquals(4, this.o.length());
+        assertNotSame(before, this.o.getAll());
+
+        this.base.replace(0, new YamlNumber("a", 2));
+        assertEquals(2.0, this.o.getNumber("a").get());
+        assertSame(this.base.getAt(0), this.o.getAt(2));
+
+        this.defaults.remove(1);
+        assertNull(this.o.getByName("c"));
+        assertEquals(3, this.o.length());
+
+        this.o.remove(this.o.find(this.o.getByName("b")));
+        assertEquals("x", this.o.getString("b").get());
+        assertSame(this.base.getAt(1), this.o.getAt(2));
+
+        YamlObject more = new YamlObject("more", new YamlNumber("e", 5));
+        this.o.merge(more);
+        assertSame(more.getAt(0), this.o.getLast());
+
+        this.base.set(new YamlNumber("f", 6));
+        assertNull(this.o.getByName("a"));
+        assertNotNull(this.o.getByName("f"));
+        assertEquals(this.o.getAll().length, this.o.length());
+    }
+}
@@ -0,0 +1,63 @@
+package io.shiromi.yaml.util;
+
+import io.shiromi.yaml.ParserLimits;
+import io.shiromi.yaml.Yaml;
+import io.shiromi.yaml.exception.YamlLimitExceededException;
+import junit.framework.TestCase;
+
+/**
+ * An object is parsed from a string the same way {@link Yaml#fromString(String)} parses it
+ */
+public class YamlObjectParseTest extends TestCase {
+    public void testNestedObjects() {
+        YamlObject o = YamlObject.parse("root:\n\ta: 1\n\tg:\n\t\tb: \"x\"\n\tc: true");
+        assertNotNull(o);
+        assertEquals("root", o.name);
+        assertEquals(3, o.length());
+        YamlObject g = (YamlObject) o.getByName("g");
+        assertNotNull(g);
+        assertEquals("x", g.getByName("b").get());
+        assertEquals(true, o.getByName("c").get());
+    }
+
+    public void testEmptyNestedObject() {
+        YamlObject o = YamlObject.parse("g:\n\tb:\n\tc: 1");
+        assertNotNull(o);
+        assertEquals(2, o.length());
+        assertTrue(((YamlObject) o.getByName("b")).isEmpty());
+        assertEquals(1.0, o.getByName("c").get());
+    }
+
+    public void testUnparseableItemsAreSkipped() {
+        YamlObject o = YamlObject.parse("g:\n\tc: 3.25\n\tx: []\n\td: 1");
+        assertNotNull(o);
+        assertEquals(1, o.length());
+        assertEquals("d", o.getAt(0).name);
+    }
+
+    public void testNotASingleObject() {
+        assertNull(YamlObject.parse("a: 1"));
+        assertNull(YamlObject.parse("a:\n\tb: 1\nc:\n\td: 2"));
+        assertNull(YamlObject.parse(""));
+    }
+
+    public void testWideObject() {
+        int n = 100_000;
+        StringBuilder s = new StringBuilder("wide:\n");
+        for (int i = 0; i < n; i++) s.append("\titem").append(i).append(": ").append(i).append('\n');
+        YamlObject o = YamlObject.parse(s.toString());
+        assertNotNull(o);
+        assertEquals(n, o.length());
+        assertEquals((double) (n - 1), o.getLast().get());
+    }
+
+    public void testLimits() {
+        ParserLimits limits = ParserLimits.getDefault().maxNodes(3);
+        try {
+            YamlObject.parse("g:\n\ta: 1\n\tb: 2\n\tc: 3", limits);
+            fail();
+        } catch (YamlLimitExceededException e) {
+            assertEquals(YamlLimitExceededException.Limit.NODES, e.getLimit());
+        }
+    }
+}